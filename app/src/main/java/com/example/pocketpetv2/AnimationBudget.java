@@ -0,0 +1,45 @@
+package com.example.pocketpetv2;
+
+/**
+ * Caps the memory all decoded animation frames may use together. Players reserve whole frames
+ * before decoding and give the bytes back when they stop; when the budget is short they get fewer
+ * frames than they asked for. Thread safe.
+ */
+public class AnimationBudget {
+
+    private final long budgetBytes;
+    private long usedBytes;
+
+    public AnimationBudget(long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("budget can't be negative");
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Reserves room for up to wantedFrames frames of frameBytes each and returns how many fit,
+     * which may be 0. The caller owns {@code granted * frameBytes} bytes until it releases them.
+     */
+    public synchronized int reserveFrames(long frameBytes, int wantedFrames) {
+        if (frameBytes <= 0) {
+            throw new IllegalArgumentException("frameBytes must be positive");
+        }
+        long fits = (budgetBytes - usedBytes) / frameBytes;
+        int granted = (int) Math.max(0, Math.min(wantedFrames, fits));
+        usedBytes += granted * frameBytes;
+        return granted;
+    }
+
+    public synchronized void release(long bytes) {
+        usedBytes = Math.max(0, usedBytes - bytes);
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+}
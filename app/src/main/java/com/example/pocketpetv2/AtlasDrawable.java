@@ -0,0 +1,119 @@
+package com.example.pocketpetv2;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Draws one region of a sprite atlas. Switching sprites only moves the source rect; the bitmap
+ * (and its GPU texture) stays the same. An animation frame set with {@link #setFrame} is drawn
+ * instead of the region while there is one.
+ */
+public class AtlasDrawable extends Drawable {
+
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect source = new Rect();
+    private final Rect frameBounds = new Rect();
+    private Bitmap atlas;
+    private Bitmap frame;
+    private SpriteAtlasLayout layout;
+    private int region = -1;
+
+    /**
+     * Swaps in a new atlas (e.g. after the pet type changed). Passing null draws nothing.
+     */
+    public void setAtlas(Bitmap atlas, SpriteAtlasLayout layout) {
+        boolean sizeChanged = this.layout == null || layout == null
+                || this.layout.getCellWidth() != layout.getCellWidth()
+                || this.layout.getCellHeight() != layout.getCellHeight();
+        this.atlas = atlas;
+        this.layout = layout;
+        int current = region;
+        region = -1;
+        if (current >= 0) {
+            setRegion(current);
+        }
+        if (sizeChanged) {
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Selects the cell to draw. Returns false if it was already selected.
+     */
+    public boolean setRegion(int index) {
+        if (index == region) {
+            return false;
+        }
+        region = index;
+        if (layout != null && index >= 0 && index < layout.getCount()) {
+            source.set(layout.getLeft(index), layout.getTop(index), layout.getRight(index), layout.getBottom(index));
+        }
+        invalidateSelf();
+        return true;
+    }
+
+    /**
+     * Shows a separately decoded animation frame (cell sized or smaller) over the atlas region,
+     * or the region again for null. Returns false if it was already showing.
+     */
+    public boolean setFrame(Bitmap frame) {
+        if (frame == this.frame) {
+            return false;
+        }
+        this.frame = frame;
+        invalidateSelf();
+        return true;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (frame != null && layout != null) {
+            // Centred and scaled the way the packer places a sprite in its cell.
+            Rect bounds = getBounds();
+            float scale = (float) bounds.width() / layout.getCellWidth();
+            int width = Math.round(frame.getWidth() * scale);
+            int height = Math.round(frame.getHeight() * scale);
+            int left = bounds.left + (bounds.width() - width) / 2;
+            int top = bounds.top + (bounds.height() - height) / 2;
+            frameBounds.set(left, top, left + width, top + height);
+            canvas.drawBitmap(frame, null, frameBounds, paint);
+            return;
+        }
+        if (atlas == null || layout == null || region < 0) {
+            return;
+        }
+        canvas.drawBitmap(atlas, source, getBounds(), paint);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return layout != null ? layout.getCellWidth() : -1;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return layout != null ? layout.getCellHeight() : -1;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        paint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        paint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
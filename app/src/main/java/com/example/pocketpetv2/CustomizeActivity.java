@@ -1,5 +1,9 @@
-package com.example.pocketpetv2;import android.os.Build;
+package com.example.pocketpetv2;import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.View;
 import android.view.WindowInsets;
 import android.view.WindowInsetsController;
@@ -9,22 +13,44 @@ import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.Spinner;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class CustomizeActivity extends AppCompatActivity {
 
+    private static final String SELECTED_PET_KEY = "selectedPet";
+
     private ImageView petPreviewImageView;
     private Button backButton;
     private Button petNameButton;
     private Spinner petSelectionSpinner;
+    private Button importPackButton;
+
+    private final ExecutorService previewExecutor = Executors.newSingleThreadExecutor();
+    private ThumbnailLoader<Bitmap> previews;
+    private List<PetType> petTypes;
+    // Shown but not yet saved; PetData only changes once, in onPause.
+    private PetType selectedPet;
+
+    private final ActivityResultLauncher<String[]> pickPack =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importPack);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Normally done by MainActivity's startup worker already; blocks only if that is still running.
+        PetData.init(this);
         setContentView(R.layout.activity_customize);
 
         hideSystemUI();
@@ -33,7 +59,15 @@ public class CustomizeActivity extends AppCompatActivity {
         backButton = findViewById(R.id.button_back);
         petNameButton = findViewById(R.id.petNameButton);
         petSelectionSpinner = findViewById(R.id.pet_selection_spinner);
-
+        importPackButton = findViewById(R.id.button_import_pack);
+
+        PetCatalog catalog = PetData.getCatalog();
+        petTypes = catalog.getTypes();
+        String selectedId = savedInstanceState != null
+                ? savedInstanceState.getString(SELECTED_PET_KEY, PetData.getPetType())
+                : PetData.getPetType();
+        selectedPet = catalog.get(selectedId);
+        setupPreviews();
         setupPetSelectionSpinner();
 
         updatePreviewImage();
@@ -41,22 +75,71 @@ public class CustomizeActivity extends AppCompatActivity {
 
         backButton.setOnClickListener(v -> finish());
         petNameButton.setOnClickListener(v -> showPetNameDialog());
+        importPackButton.setOnClickListener(v -> pickPack.launch(new String[] {"application/zip"}));
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(SELECTED_PET_KEY, selectedPet.getId());
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Leaving the screen is the commit: one type change (and sprite reload) however many pets
+        // were looked at. No-op if the pet didn't change.
+        PetData.setPetType(selectedPet.getId());
+        PetData.flush();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        previews.close();
+        previewExecutor.shutdown();
+    }
+
+    /**
+     * Thumbnails are decoded at the preview's size on a worker. The current pet and its
+     * neighbours in the list are prefetched, as many as the cache holds.
+     */
+    private void setupPreviews() {
+        int size = getResources().getDimensionPixelSize(R.dimen.pet_size);
+        SpriteDecoder decoder = new SpriteDecoder(getResources(), SpriteDecoder.Mode.ARGB_8888);
+        PetCatalog catalog = PetData.getCatalog();
+        Handler handler = new Handler(Looper.getMainLooper());
+        previews = new ThumbnailLoader<>(getResources().getInteger(R.integer.preview_cache_size),
+                previewExecutor, handler::post,
+                id -> decoder.decode(catalog.get(id).getPreviewResource(), size, size),
+                (id, thumbnail) -> {
+                    if (id.equals(selectedPet.getId())) {
+                        petPreviewImageView.setImageBitmap(thumbnail);
+                    }
+                });
+    }
+
+    private void prefetchAround(int index) {
+        int count = Math.min(petTypes.size(), previews.getCapacity());
+        List<String> ids = new ArrayList<>(count);
+        for (int step = 1; ids.size() < count - 1 && step < petTypes.size(); step++) {
+            if (index + step < petTypes.size()) ids.add(petTypes.get(index + step).getId());
+            if (ids.size() < count - 1 && index - step >= 0) ids.add(petTypes.get(index - step).getId());
+        }
+        previews.prefetch(ids);
     }
 
     private void setupPetSelectionSpinner() {
-        List<String> petTypes = new ArrayList<>();
-        petTypes.add("gator");
-        petTypes.add("cat");
-        petTypes.add("penguin");
+        PetCatalog catalog = PetData.getCatalog();
 
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(this, R.layout.custom_spinner_item, petTypes);
+        // PetType.toString() is its display name.
+        ArrayAdapter<PetType> adapter = new ArrayAdapter<>(this, R.layout.custom_spinner_item, petTypes);
 
         adapter.setDropDownViewResource(R.layout.custom_spinner_dropdown_item);
 
         petSelectionSpinner.setAdapter(adapter);
 
-        String currentPet = PetData.getPetType();
-        int currentSelection = petTypes.indexOf(currentPet);
+        int currentSelection = catalog.indexOf(selectedPet.getId());
         if (currentSelection >= 0) {
             petSelectionSpinner.setSelection(currentSelection);
         }
@@ -64,9 +147,9 @@ public class CustomizeActivity extends AppCompatActivity {
         petSelectionSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                String selectedPet = parent.getItemAtPosition(position).toString();
-                PetData.setPetType(selectedPet);
+                selectedPet = petTypes.get(position);
                 updatePreviewImage();
+                prefetchAround(position);
             }
 
             @Override
@@ -76,6 +159,41 @@ public class CustomizeActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Copies the picked zip into the packs directory and indexes it on the preview worker, then
+     * selects the first imported pet. The pick is only shown; it's saved on leaving like any other.
+     */
+    private void importPack(Uri uri) {
+        if (uri == null) return;
+        importPackButton.setEnabled(false);
+        PetCatalog catalog = PetData.getCatalog();
+        Handler handler = new Handler(Looper.getMainLooper());
+        previewExecutor.execute(() -> {
+            String error = null;
+            List<PetType> imported = null;
+            try (InputStream in = getContentResolver().openInputStream(uri)) {
+                if (in == null) throw new IOException("Could not open " + uri);
+                imported = PetData.getPacks().importPack(in, catalog, SpriteDecoder::canDecode);
+            } catch (IOException | IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            String message = error;
+            List<PetType> added = imported;
+            handler.post(() -> {
+                if (isDestroyed()) return;
+                importPackButton.setEnabled(true);
+                if (added == null) {
+                    Toast.makeText(this, getString(R.string.import_pack_failed, message), Toast.LENGTH_LONG).show();
+                    return;
+                }
+                petTypes = catalog.getTypes();
+                selectedPet = added.get(0);
+                setupPetSelectionSpinner();
+                updatePreviewImage();
+            });
+        });
+    }
+
     private void showPetNameDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Change Pet Name");
@@ -120,17 +238,11 @@ public class CustomizeActivity extends AppCompatActivity {
         petNameButton.setText(PetData.getPetName());
     }
 
+    /**
+     * Shows the selected pet's thumbnail if it's cached; otherwise clears the preview until the
+     * loader delivers it. Never decodes on the main thread.
+     */
     private void updatePreviewImage() {
-        String currentPetType = PetData.getPetType();
-
-        if ("gator".equals(currentPetType)) {
-            petPreviewImageView.setImageResource(R.drawable.gator_idle_left);
-        } else if ("cat".equals(currentPetType)) {
-            petPreviewImageView.setImageResource(R.drawable.cat_idle_left);
-        } else if ("penguin".equals(currentPetType)) {
-            petPreviewImageView.setImageResource(R.drawable.peng_idle_left);
-        } else {
-            petPreviewImageView.setImageResource(R.drawable.gator_idle_left);
-        }
+        petPreviewImageView.setImageBitmap(previews.request(selectedPet.getId()));
     }
 }
@@ -0,0 +1,88 @@
+package com.example.pocketpetv2;
+
+/**
+ * Turns real elapsed time into a whole number of constant-length physics steps, so the pet moves
+ * at the same speed no matter how often the host ticks or how fast sensor events arrive.
+ * Time left over after the last whole step carries into the next call.
+ */
+public class FixedStepClock {
+
+    /** One step per 60 Hz frame, which is what the PetPhysics constants were tuned against. */
+    public static final long DEFAULT_STEP_NANOS = 16_666_667L;
+    /** After a stall (GC, app switch) only catch up this many steps and drop the rest. */
+    public static final int DEFAULT_MAX_STEPS = 4;
+
+    private final long stepNanos;
+    private final int maxSteps;
+
+    private long lastTimeNanos;
+    private boolean started = false;
+    private long accumulatorNanos;
+    private long droppedSteps;
+
+    public FixedStepClock() {
+        this(DEFAULT_STEP_NANOS, DEFAULT_MAX_STEPS);
+    }
+
+    public FixedStepClock(long stepNanos, int maxSteps) {
+        if (stepNanos <= 0) {
+            throw new IllegalArgumentException("stepNanos must be positive");
+        }
+        if (maxSteps <= 0) {
+            throw new IllegalArgumentException("maxSteps must be positive");
+        }
+        this.stepNanos = stepNanos;
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Returns how many fixed steps the caller should run to catch up to {@code nowNanos}
+     * (a System.nanoTime() reading). The first call after construction or {@link #reset()}
+     * only records the time and returns 0.
+     */
+    public int advance(long nowNanos) {
+        if (!started) {
+            started = true;
+            lastTimeNanos = nowNanos;
+            return 0;
+        }
+
+        long elapsed = nowNanos - lastTimeNanos;
+        lastTimeNanos = nowNanos;
+        if (elapsed <= 0) {
+            return 0;
+        }
+
+        accumulatorNanos += elapsed;
+        long steps = accumulatorNanos / stepNanos;
+        accumulatorNanos -= steps * stepNanos;
+
+        if (steps > maxSteps) {
+            droppedSteps += steps - maxSteps;
+            steps = maxSteps;
+        }
+        return (int) steps;
+    }
+
+    /**
+     * Forgets the last timestamp, e.g. when the host is paused, so the next advance() doesn't
+     * count the paused time.
+     */
+    public void reset() {
+        started = false;
+        accumulatorNanos = 0;
+    }
+
+    /** How far into the next step the clock is, from 0 (inclusive) to 1 (exclusive). */
+    public float getAlpha() {
+        return (float) accumulatorNanos / stepNanos;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+}
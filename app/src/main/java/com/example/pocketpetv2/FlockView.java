@@ -0,0 +1,65 @@
+package com.example.pocketpetv2;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.view.View;
+
+/**
+ * Draws every pet of a PetFlock except the first (which lives in its own draggable window) from
+ * the shared sprite atlas. Meant for one full-screen, untouchable overlay window, so any number of
+ * pets costs one invalidate per frame instead of a window relayout per pet.
+ */
+public class FlockView extends View {
+
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect source = new Rect();
+    private final RectF destination = new RectF();
+    private PetFlock flock;
+    private SpriteCache sprites;
+    private float interpolation = 1f;
+
+    public FlockView(Context context) {
+        super(context);
+    }
+
+    public void bind(PetFlock flock, SpriteCache sprites) {
+        this.flock = flock;
+        this.sprites = sprites;
+        invalidate();
+    }
+
+    /**
+     * Redraws the pets interpolation of the way through the flock's last step (see
+     * FixedStepClock.getAlpha()).
+     */
+    public void setInterpolation(float alpha) {
+        interpolation = alpha;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (flock == null) return;
+        Bitmap atlas = sprites.getAtlas();
+        if (atlas == null) return;
+
+        // After a memory trim the image may be a single, lower resolution sprite; it is still
+        // drawn at full size.
+        SpriteAtlasLayout layout = sprites.getLayout();
+        int width = sprites.getSpriteWidth();
+        int height = sprites.getSpriteHeight();
+        for (int i = 1; i < flock.getCount(); i++) {
+            int region = sprites.getRegion(flock.getState(i));
+            source.set(layout.getLeft(region), layout.getTop(region), layout.getRight(region), layout.getBottom(region));
+            // Floats, so slow pets still move smoothly by fractions of a pixel.
+            float left = flock.getInterpolatedX(i, interpolation);
+            float top = flock.getInterpolatedY(i, interpolation);
+            destination.set(left, top, left + width, top + height);
+            canvas.drawBitmap(atlas, source, destination, paint);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.pocketpetv2;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Animation frames decoded ahead of playback on a worker, so the frame loop only ever picks up
+ * finished frames. Holds at most {@code slots} frames: if the whole animation fits it is decoded
+ * once and kept; otherwise the ring streams, decoding the next frames into the slots already
+ * played while the current one is shown. A replaced frame is only dropped, never recycled, since
+ * the last drawn frame may still reference it; the GC frees it like an old atlas.
+ *
+ * {@link #play} and {@link #frame} are for one consumer thread; decoding runs on the worker.
+ */
+public class FrameRing<T> {
+
+    public interface Decoder<T> {
+        /**
+         * Decodes frame index of the animation. May return null if decoding failed.
+         */
+        T decode(int index);
+    }
+
+    private final Executor worker;
+    private final Decoder<T> decoder;
+    private final Object[] values;
+
+    private int frameCount;
+    private int slots;
+    // Ring positions [head, tail) are decoded; position p holds frame p % frameCount.
+    private long head, tail;
+    private int generation;
+    private boolean filling;
+    private long decodeCount;
+
+    public FrameRing(int maxSlots, Executor worker, Decoder<T> decoder) {
+        if (maxSlots < 1) {
+            throw new IllegalArgumentException("need at least one slot");
+        }
+        this.worker = worker;
+        this.decoder = decoder;
+        values = new Object[maxSlots];
+    }
+
+    /**
+     * Starts decoding a new animation of frameCount frames into the first slots slots, dropping
+     * whatever was queued.
+     */
+    public synchronized void play(int frameCount, int slots) {
+        if (frameCount < 1 || slots < 1 || slots > values.length) {
+            throw new IllegalArgumentException("bad frame or slot count");
+        }
+        this.frameCount = frameCount;
+        this.slots = Math.min(slots, frameCount);
+        for (int i = this.slots; i < values.length; i++) {
+            values[i] = null;
+        }
+        head = 0;
+        tail = 0;
+        generation++;
+        scheduleFill();
+    }
+
+    /**
+     * Drops every frame, e.g. when the pet type changes or the host goes away.
+     */
+    public synchronized void clear() {
+        frameCount = 0;
+        slots = 0;
+        head = 0;
+        tail = 0;
+        generation++;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+        }
+    }
+
+    /**
+     * Returns frame index if it has been decoded, else null (keep showing the previous one).
+     * While streaming, frames before it are released to be decoded over. Never blocks on a decode.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T frame(int index) {
+        if (frameCount == 0 || index < 0 || index >= frameCount) return null;
+
+        if (isResident()) {
+            return index < tail ? (T) values[index] : null;
+        }
+
+        for (long p = head; p < tail; p++) {
+            if (p % frameCount == index) {
+                head = p;
+                scheduleFill();
+                return (T) values[(int) (p % slots)];
+            }
+        }
+        // Playback jumped past what was decoded (a stall): restart the queue at this frame.
+        long restart = tail + Math.floorMod(index - tail, (long) frameCount);
+        head = restart;
+        tail = restart;
+        generation++;
+        scheduleFill();
+        return null;
+    }
+
+    /** Frames decoded so far, for tests and diagnostics. */
+    public synchronized long getDecodeCount() {
+        return decodeCount;
+    }
+
+    /** Decoded frames waiting or showing. */
+    public synchronized int getReadyCount() {
+        return (int) (tail - head);
+    }
+
+    private boolean isResident() {
+        return frameCount <= slots;
+    }
+
+    private void scheduleFill() {
+        if (filling || !needsFrame()) return;
+        filling = true;
+        worker.execute(this::fill);
+    }
+
+    private boolean needsFrame() {
+        return frameCount > 0 && (isResident() ? tail < frameCount : tail - head < slots);
+    }
+
+    private void fill() {
+        while (true) {
+            int decodeGeneration;
+            long position;
+            synchronized (this) {
+                if (!needsFrame()) {
+                    filling = false;
+                    return;
+                }
+                decodeGeneration = generation;
+                position = tail;
+            }
+
+            T decoded = decoder.decode((int) (position % frameCount));
+
+            synchronized (this) {
+                decodeCount++;
+                // Played or cleared meanwhile: drop the stale frame and pick up the new work.
+                if (decodeGeneration != generation) continue;
+                values[(int) (position % slots)] = decoded;
+                tail++;
+            }
+        }
+    }
+}
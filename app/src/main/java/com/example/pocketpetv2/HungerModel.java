@@ -0,0 +1,52 @@
+package com.example.pocketpetv2;
+
+/**
+ * Hunger as a closed-form function of time. Only a (value, timestamp) pair is stored, and the
+ * current value is worked out on demand, so nothing has to wake up periodically to subtract it.
+ * The pet loses one point per minute, as before.
+ */
+public final class HungerModel {
+
+    public static final int MAX_HUNGER = 720;
+    public static final long MILLIS_PER_POINT = 60_000L;
+    /** At or below this the pet counts as starving (10% of MAX_HUNGER). */
+    public static final int STARVING_THRESHOLD = MAX_HUNGER / 10;
+
+    private HungerModel() {
+    }
+
+    public static int hungerAt(int storedHunger, long storedAtMillis, long nowMillis) {
+        long elapsed = nowMillis - storedAtMillis;
+        if (elapsed <= 0) {
+            return storedHunger;
+        }
+        long lost = elapsed / MILLIS_PER_POINT;
+        return lost >= storedHunger ? 0 : (int) (storedHunger - lost);
+    }
+
+    /**
+     * Timestamp to store with a value computed at nowMillis, keeping the part of a minute that
+     * had already passed so repeated feeding doesn't slow the hunger clock down.
+     */
+    public static long rebaseTimestamp(int storedHunger, long storedAtMillis, long nowMillis) {
+        long elapsed = nowMillis - storedAtMillis;
+        if (elapsed <= 0 || hungerAt(storedHunger, storedAtMillis, nowMillis) == 0) {
+            return nowMillis;
+        }
+        return nowMillis - elapsed % MILLIS_PER_POINT;
+    }
+
+    /**
+     * Milliseconds from nowMillis until the hunger drops to threshold, 0 if it already has.
+     */
+    public static long millisUntil(int storedHunger, long storedAtMillis, int threshold, long nowMillis) {
+        if (threshold < 0) {
+            return Long.MAX_VALUE;
+        }
+        if (hungerAt(storedHunger, storedAtMillis, nowMillis) <= threshold) {
+            return 0;
+        }
+        long reachedAt = storedAtMillis + (storedHunger - threshold) * MILLIS_PER_POINT;
+        return Math.max(0, reachedAt - nowMillis);
+    }
+}
@@ -1,19 +1,30 @@
 package com.example.pocketpetv2;
 
+import android.Manifest;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
 import android.content.Context;
-import android.content.SharedPreferences;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
-// The import for the correct Result class might be needed if not using the full path.
-import androidx.work.ListenableWorker.Result;
-
+/**
+ * One-shot job PetData schedules for the moment the pet becomes starving. Hunger itself is never
+ * written here; it is computed from the stored value and timestamp.
+ */
 public class HungerWorker extends Worker {
 
-    private static final String PREFS_NAME = "PetPrefs";
-    private static final String CURRENT_HUNGER_KEY = "currentHunger";
-    private static final String LAST_UPDATED_KEY = "lastUpdatedTime";
+    private static final String TAG = "HungerWorker";
+    private static final String CHANNEL_ID = "hunger";
+    private static final int NOTIFICATION_ID = 1;
 
     public HungerWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
@@ -22,26 +33,44 @@ public class HungerWorker extends Worker {
     @NonNull
     @Override
     public Result doWork() {
-        SharedPreferences sharedPreferences = getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-
-        int maxHunger = PetData.maxHunger;
-        int currentHunger = sharedPreferences.getInt(CURRENT_HUNGER_KEY, maxHunger);
-        long lastUpdatedTime = sharedPreferences.getLong(LAST_UPDATED_KEY, System.currentTimeMillis());
-        long currentTime = System.currentTimeMillis();
+        Context context = getApplicationContext();
+        PetData.init(context);
 
-        long timeElapsedMillis = currentTime - lastUpdatedTime;
-        int minutesElapsed = (int) (timeElapsedMillis / (1000 * 60));
+        // The pet may have been fed after this job was queued and before it was replaced.
+        if (PetData.getCurrentHunger() <= HungerModel.STARVING_THRESHOLD) {
+            notifyStarving(context);
+        }
+        return Result.success();
+    }
 
-        if (minutesElapsed > 0) {
-            int newHunger = Math.max(0, currentHunger - minutesElapsed);
+    private static void notifyStarving(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            // MainActivity asks on deploy; the user said no.
+            Log.i(TAG, "Pet is starving but POST_NOTIFICATIONS is not granted");
+            return;
+        }
+        NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
+        if (!notificationManager.areNotificationsEnabled()) {
+            Log.i(TAG, "Pet is starving but notifications are turned off");
+            return;
+        }
 
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.putInt(CURRENT_HUNGER_KEY, newHunger);
-            editor.putLong(LAST_UPDATED_KEY, currentTime);
-            editor.apply();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                    context.getString(R.string.hunger_channel_name), NotificationManager.IMPORTANCE_DEFAULT);
+            context.getSystemService(NotificationManager.class).createNotificationChannel(channel);
         }
 
-        return Result.success();
+        PendingIntent openApp = PendingIntent.getActivity(context, 0,
+                new Intent(context, MainActivity.class), PendingIntent.FLAG_IMMUTABLE);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle(context.getString(R.string.starving_title, PetData.getPetName()))
+                .setContentText(context.getString(R.string.starving_text))
+                .setContentIntent(openApp)
+                .setAutoCancel(true);
+        notificationManager.notify(NOTIFICATION_ID, builder.build());
     }
 }
-
@@ -0,0 +1,34 @@
+package com.example.pocketpetv2;
+
+/**
+ * Binary format shared by InputTraceWriter and InputTraceReader: everything the simulation reacts
+ * to (bounds, placement, pet tuning, accelerometer samples, touches, frame ticks) in the order the
+ * host saw it.
+ *
+ * The file starts with MAGIC and VERSION (ints) and the start time (long nanos). Each record is a type byte, the time since the
+ * previous record as a zigzag varint of nanos, then the payload as big-endian floats:
+ * BOUNDS minX minY maxX maxY, POSITION x y, SENSOR x y z (raw, as in SensorEvent.values),
+ * TOUCH action(byte) rawX rawY, FRAME nothing, TUNING damping accelerationScale (the pet type's
+ * PetPhysics tuning). A 50 Hz sensor sample takes 17 bytes. Version 1 logs have no TUNING records
+ * and were all recorded with PetPhysics's defaults.
+ */
+public final class InputTrace {
+
+    public static final int MAGIC = 0x50505431; // "PPT1"
+    public static final int VERSION = 2;
+
+    public static final int BOUNDS = 1;
+    public static final int POSITION = 2;
+    public static final int SENSOR = 3;
+    public static final int TOUCH = 4;
+    public static final int FRAME = 5;
+    public static final int TUNING = 6;
+
+    /** Touch actions, matching MotionEvent.ACTION_DOWN/UP/MOVE so hosts can record them as is. */
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+
+    private InputTrace() {
+    }
+}
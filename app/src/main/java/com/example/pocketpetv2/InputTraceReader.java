@@ -0,0 +1,149 @@
+package com.example.pocketpetv2;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads an {@link InputTrace} log one record at a time. Like a cursor, the reader holds the
+ * current record in its own fields instead of allocating an object per record.
+ */
+public class InputTraceReader implements Closeable {
+
+    private final DataInputStream in;
+    private final long startTimeNanos;
+    private long timeNanos;
+    private int type;
+    private int action;
+    private float a, b, c, d;
+
+    public InputTraceReader(InputStream stream) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != InputTrace.MAGIC) {
+            throw new IOException("Not an input trace");
+        }
+        int version = in.readInt();
+        if (version < 1 || version > InputTrace.VERSION) {
+            throw new IOException("Unsupported input trace version " + version);
+        }
+        startTimeNanos = timeNanos = in.readLong();
+    }
+
+    /**
+     * Moves to the next record. Returns false at a clean end of the log; a log cut off in the
+     * middle of a record throws EOFException.
+     */
+    public boolean next() throws IOException {
+        int tag = in.read();
+        if (tag < 0) {
+            type = 0;
+            return false;
+        }
+        timeNanos += readDelta();
+        type = tag;
+        switch (tag) {
+            case InputTrace.BOUNDS:
+                a = in.readFloat();
+                b = in.readFloat();
+                c = in.readFloat();
+                d = in.readFloat();
+                break;
+            case InputTrace.POSITION:
+                a = in.readFloat();
+                b = in.readFloat();
+                break;
+            case InputTrace.SENSOR:
+                a = in.readFloat();
+                b = in.readFloat();
+                c = in.readFloat();
+                break;
+            case InputTrace.TOUCH:
+                action = in.readUnsignedByte();
+                a = in.readFloat();
+                b = in.readFloat();
+                break;
+            case InputTrace.TUNING:
+                a = in.readFloat();
+                b = in.readFloat();
+                break;
+            case InputTrace.FRAME:
+                break;
+            default:
+                throw new IOException("Unknown record type " + tag);
+        }
+        return true;
+    }
+
+    public long getStartTimeNanos() {
+        return startTimeNanos;
+    }
+
+    /** One of the InputTrace record types, or 0 before the first and after the last record. */
+    public int getType() {
+        return type;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    /** BOUNDS minX, POSITION x, SENSOR x, TOUCH rawX. */
+    public float getX() {
+        return a;
+    }
+
+    /** BOUNDS minY, POSITION y, SENSOR y, TOUCH rawY. */
+    public float getY() {
+        return b;
+    }
+
+    /** BOUNDS maxX, SENSOR z. */
+    public float getZ() {
+        return c;
+    }
+
+    public float getMaxX() {
+        return c;
+    }
+
+    public float getMaxY() {
+        return d;
+    }
+
+    /** TUNING damping. */
+    public float getDamping() {
+        return a;
+    }
+
+    /** TUNING acceleration scale. */
+    public float getAccelerationScale() {
+        return b;
+    }
+
+    public int getAction() {
+        return action;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private long readDelta() throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int next = in.read();
+            if (next < 0) {
+                throw new EOFException("Input trace ends inside a record");
+            }
+            zigzag |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Malformed time delta");
+    }
+}
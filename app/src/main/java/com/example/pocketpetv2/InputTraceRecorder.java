@@ -0,0 +1,125 @@
+package com.example.pocketpetv2;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Host-side wrapper around InputTraceWriter: opens a log file for one session and turns I/O
+ * errors into a warning plus stopping the recording, so a full disk never crashes the pet.
+ * Only active when the record_input_traces flag is set. Logs go to the app's external files dir
+ * under traces/, where adb pull can reach them, and replay with TraceReplayer.
+ */
+public class InputTraceRecorder {
+
+    private static final String TAG = "InputTraceRecorder";
+    private static final String DIR = "traces";
+
+    private InputTraceWriter writer;
+
+    private InputTraceRecorder(InputTraceWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Starts a new log named after host, or returns null if recording is off or the file can't be
+     * created.
+     */
+    public static InputTraceRecorder start(Context context, String host) {
+        if (!context.getResources().getBoolean(R.bool.record_input_traces)) {
+            return null;
+        }
+        File root = context.getExternalFilesDir(null);
+        File dir = new File(root != null ? root : context.getFilesDir(), DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Can't create " + dir);
+            return null;
+        }
+        File file = new File(dir, host + "-" + System.currentTimeMillis() + ".pptrace");
+        try {
+            return new InputTraceRecorder(new InputTraceWriter(new FileOutputStream(file), System.nanoTime()));
+        } catch (IOException e) {
+            Log.w(TAG, "Can't start input trace " + file, e);
+            return null;
+        }
+    }
+
+    public void bounds(float minX, float minY, float maxX, float maxY) {
+        if (writer == null) return;
+        try {
+            writer.bounds(System.nanoTime(), minX, minY, maxX, maxY);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void position(float x, float y) {
+        if (writer == null) return;
+        try {
+            writer.position(System.nanoTime(), x, y);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** Records the pet type's physics tuning, whenever the host applies it. */
+    public void tuning(float damping, float accelerationScale) {
+        if (writer == null) return;
+        try {
+            writer.tuning(System.nanoTime(), damping, accelerationScale);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void sensor(float x, float y, float z) {
+        if (writer == null) return;
+        try {
+            writer.sensor(System.nanoTime(), x, y, z);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void touch(int action, float rawX, float rawY) {
+        if (writer == null) return;
+        try {
+            writer.touch(System.nanoTime(), action, rawX, rawY);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** Records a loop tick at frameTimeNanos, the same value handed to FixedStepClock.advance. */
+    public void frame(long frameTimeNanos) {
+        if (writer == null) return;
+        try {
+            writer.frame(frameTimeNanos);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+            Log.i(TAG, "Recorded " + writer.getRecordCount() + " input records");
+        } catch (IOException e) {
+            Log.w(TAG, "Input trace may be truncated", e);
+        }
+        writer = null;
+    }
+
+    private void fail(IOException e) {
+        Log.w(TAG, "Input trace stopped", e);
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.pocketpetv2;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Appends records in the {@link InputTrace} format. Buffered, and allocation-free per record, so a
+ * host can call it from onSensorChanged and the frame loop. Timestamps must not go backwards by
+ * more than the varint can hold; System.nanoTime() readings are fine.
+ */
+public class InputTraceWriter implements Closeable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final DataOutputStream out;
+    private long lastTimeNanos;
+    private long records;
+
+    public InputTraceWriter(OutputStream stream, long startTimeNanos) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_BYTES));
+        this.lastTimeNanos = startTimeNanos;
+        out.writeInt(InputTrace.MAGIC);
+        out.writeInt(InputTrace.VERSION);
+        out.writeLong(startTimeNanos);
+    }
+
+    public void bounds(long timeNanos, float minX, float minY, float maxX, float maxY) throws IOException {
+        header(InputTrace.BOUNDS, timeNanos);
+        out.writeFloat(minX);
+        out.writeFloat(minY);
+        out.writeFloat(maxX);
+        out.writeFloat(maxY);
+    }
+
+    public void position(long timeNanos, float x, float y) throws IOException {
+        header(InputTrace.POSITION, timeNanos);
+        out.writeFloat(x);
+        out.writeFloat(y);
+    }
+
+    public void sensor(long timeNanos, float x, float y, float z) throws IOException {
+        header(InputTrace.SENSOR, timeNanos);
+        out.writeFloat(x);
+        out.writeFloat(y);
+        out.writeFloat(z);
+    }
+
+    public void touch(long timeNanos, int action, float rawX, float rawY) throws IOException {
+        header(InputTrace.TOUCH, timeNanos);
+        out.writeByte(action);
+        out.writeFloat(rawX);
+        out.writeFloat(rawY);
+    }
+
+    public void tuning(long timeNanos, float damping, float accelerationScale) throws IOException {
+        header(InputTrace.TUNING, timeNanos);
+        out.writeFloat(damping);
+        out.writeFloat(accelerationScale);
+    }
+
+    public void frame(long timeNanos) throws IOException {
+        header(InputTrace.FRAME, timeNanos);
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    /** Pushes buffered records to the stream, e.g. from onPause. */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void header(int type, long timeNanos) throws IOException {
+        out.writeByte(type);
+        long delta = timeNanos - lastTimeNanos;
+        lastTimeNanos = timeNanos;
+        long zigzag = (delta << 1) ^ (delta >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+        records++;
+    }
+}
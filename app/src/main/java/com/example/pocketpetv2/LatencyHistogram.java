@@ -0,0 +1,98 @@
+package com.example.pocketpetv2;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket latency histogram that never allocates after construction, so it can sit inside
+ * the frame loop. Buckets are 128 ns wide below 1 us and then eight per power of two, which keeps
+ * any reported percentile within 12.5% of the true value up to about 8.6 s; anything slower lands
+ * in the last bucket. The exact maximum is tracked separately. Not thread safe; record and read on
+ * one thread.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int LINEAR_SHIFT = 7;       // 128 ns linear buckets
+    private static final int FIRST_OCTAVE = 10;      // 1024 ns
+    private static final int LAST_OCTAVE = 32;       // up to 2^33 ns
+    static final int BUCKET_COUNT = SUB_BUCKETS + (LAST_OCTAVE - FIRST_OCTAVE + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[bucketOf(nanos)]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100], capped at the recorded max.
+     * Returns 0 when nothing has been recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * count);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < (1L << FIRST_OCTAVE)) {
+            return (int) (nanos >> LINEAR_SHIFT);
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(nanos);
+        if (octave > LAST_OCTAVE) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (nanos >> (octave - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (octave - FIRST_OCTAVE) * SUB_BUCKETS + sub;
+    }
+
+    /** Largest value that falls in bucket index. */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return ((long) (index + 1) << LINEAR_SHIFT) - 1;
+        }
+        if (index == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        int octave = FIRST_OCTAVE + (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (octave - SUB_BITS);
+        return (1L << octave) + (sub + 1) * width - 1;
+    }
+}
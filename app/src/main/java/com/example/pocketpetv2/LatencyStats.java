@@ -0,0 +1,113 @@
+package com.example.pocketpetv2;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * One LatencyHistogram per instrumented stage of the pet's frame. The hosts time each stage with
+ * System.nanoTime() and record into {@link #process()}, which the overlay's debug HUD reads and
+ * can dump to a file. Recording never allocates. Not thread safe; everything here runs on the
+ * main thread.
+ */
+public class LatencyStats {
+
+    public enum Metric {
+        /** All physics steps for one frame. */
+        PHYSICS_STEP,
+        /** PetStateMachine.update. */
+        STATE_UPDATE,
+        /** SpriteCache.show. */
+        SPRITE_SWAP,
+        /** WindowManager.updateViewLayout in the overlay. */
+        RELAYOUT,
+        /** A whole onSensorChanged call. */
+        SENSOR_EVENT,
+        /** A whole frame callback, including the stages above. */
+        FRAME
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+    private static final LatencyStats PROCESS = new LatencyStats();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[METRICS.length];
+
+    public LatencyStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /** The stats both hosts record into. */
+    public static LatencyStats process() {
+        return PROCESS;
+    }
+
+    public void record(Metric metric, long nanos) {
+        histograms[metric.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram get(Metric metric) {
+        return histograms[metric.ordinal()];
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Appends one line per metric with its count, p50, p95, p99 and max in microseconds, to an
+     * existing builder so the HUD can reuse one.
+     */
+    public void format(StringBuilder out) {
+        out.append("metric (us)      count    p50    p95    p99    max\n");
+        for (Metric metric : METRICS) {
+            LatencyHistogram h = histograms[metric.ordinal()];
+            out.append(metric.name());
+            pad(out, 13 - metric.name().length());
+            appendRight(out, h.getCount(), 7);
+            appendMicros(out, h.getPercentileNanos(50));
+            appendMicros(out, h.getPercentileNanos(95));
+            appendMicros(out, h.getPercentileNanos(99));
+            appendMicros(out, h.getMaxNanos());
+            out.append('\n');
+        }
+    }
+
+    /** Writes the same table plus the mean, for a file dump. */
+    public void dump(Writer out) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        format(builder);
+        out.write(builder.toString());
+        for (Metric metric : METRICS) {
+            out.write(String.format(Locale.ROOT, "%s mean %.1f us%n", metric.name(),
+                    histograms[metric.ordinal()].getMeanNanos() / 1000.0));
+        }
+        out.flush();
+    }
+
+    private static void appendMicros(StringBuilder out, long nanos) {
+        // One decimal place without String.format, which would allocate on every HUD refresh.
+        long tenths = (nanos + 50) / 100;
+        int digits = 1;
+        for (long v = tenths / 100; v > 0; v /= 10) digits++;
+        pad(out, 4 - digits);
+        out.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    private static void appendRight(StringBuilder out, long value, int width) {
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) digits++;
+        pad(out, width - digits);
+        out.append(value);
+    }
+
+    private static void pad(StringBuilder out, int spaces) {
+        out.append(' ');
+        for (int i = 0; i < spaces; i++) {
+            out.append(' ');
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.pocketpetv2;
 
+import android.Manifest;
 import android.content.Context;
 import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
@@ -9,9 +12,14 @@ import android.hardware.SensorManager;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.Settings;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.WindowInsets;
 import android.view.WindowInsetsController;
 import android.widget.FrameLayout;
@@ -19,16 +27,21 @@ import android.widget.ImageView;
 import android.widget.ProgressBar;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.work.ExistingPeriodicWorkPolicy;
-import androidx.work.PeriodicWorkRequest;
-import androidx.work.WorkManager;
+import androidx.core.content.ContextCompat;
 
 import com.example.pocketpetv2.databinding.ActivityMainBinding;
 
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity implements SensorEventListener {
+    private static final String TAG = "MainActivity";
+    // One per process: only the first onCreate is a cold start.
+    private static final StartupTrace startupTrace = new StartupTrace();
+
     private ActivityMainBinding binding;
     private FrameLayout petContainer;
     private ImageView petStateImageView;
@@ -36,31 +49,84 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
     private Sensor accelerometer;
     private ProgressBar hungerBar;
 
-    private float currentX, currentY;
-    private float velocityX = 0, velocityY = 0;
-    private static final float DAMPING = 0.92f;
-    private static final float ACCELERATION_SCALE = 2.5f;
+    private final PetPhysics physics = new PetPhysics();
+    private final FixedStepClock clock = new FixedStepClock();
+    private final SensorRateGovernor sensorGovernor = new SensorRateGovernor();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private Choreographer choreographer;
     private boolean isDragging = false;
     private float initialTouchX, initialTouchY;
     private float initialPetX, initialPetY;
     private static final float DRAG_DIRECTION_THRESHOLD = 50f;
 
-    public enum State {
-        IDLE_LEFT, IDLE_RIGHT, FALLING_VERTICAL, FALLING_LEFT,
-        FALLING_RIGHT, SMACK_LEFT, SMACK_RIGHT
-    }
-    private volatile State currentState = State.IDLE_LEFT;
-    private volatile State lastIdleState = State.IDLE_LEFT;
-
+    private final PetStateMachine stateMachine = new PetStateMachine();
+    private SpriteCache spriteCache;
+    private final ExecutorService startupExecutor = Executors.newSingleThreadExecutor();
+    private StartupLoader<Bitmap> startupLoader;
+    private boolean petReady = false;
+    private boolean spritesReady = false;
+    private InputTraceRecorder traceRecorder;
+    private final LatencyStats latencyStats = LatencyStats.process();
+
+    // Deploying waits for the answer either way; the overlay works without notifications.
+    private final ActivityResultLauncher<String> notificationPermission =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), granted -> {
+                if (!granted) {
+                    Log.i(TAG, "Notifications denied; no starving alerts");
+                }
+                deployOverlay();
+            });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        startupTrace.mark(StartupTrace.Phase.CREATE);
+
+        // Prefs and sprites load on a worker while the layout inflates; neither blocks the first frame.
+        int petSize = getResources().getDimensionPixelSize(R.dimen.pet_size);
+        spriteCache = new SpriteCache(this, petSize, petSize);
+        Context appContext = getApplicationContext();
+        startupLoader = new StartupLoader<>(startupExecutor, handler::post, startupTrace);
+        startupLoader.start(() -> {
+            PetData.init(appContext);
+            return PetData.snapshot();
+        }, spriteCache::loadAtlas, new StartupLoader.Callback<Bitmap>() {
+            @Override
+            public void onStateReady(PetSnapshot pet) {
+                petReady = true;
+                applyPetTuning();
+                updatePetName();
+                updateHungerBar();
+            }
 
-        PetData.init(this);
+            @Override
+            public void onSpritesReady(PetSnapshot pet, Bitmap atlas) {
+                spriteCache.install(pet, atlas);
+                spritesReady = true;
+                showSprite(stateMachine.getState());
+                markFirstPetFrame();
+            }
 
+            @Override
+            public void onFailed(PetSnapshot pet, Throwable error) {
+                if (pet != null) {
+                    // The cache decodes what it shows on demand instead.
+                    Log.w(TAG, "Could not prefetch sprites", error);
+                    spritesReady = true;
+                    showSprite(stateMachine.getState());
+                    markFirstPetFrame();
+                    return;
+                }
+                Log.e(TAG, "Could not load the pet", error);
+                Toast.makeText(MainActivity.this, R.string.load_pet_failed, Toast.LENGTH_LONG).show();
+                finish();
+            }
+        });
+
+        choreographer = Choreographer.getInstance();
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
+        startupTrace.mark(StartupTrace.Phase.CONTENT_VIEW);
 
         if (getSupportActionBar() != null) {
             getSupportActionBar().hide();
@@ -69,6 +135,7 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         hungerBar = findViewById(R.id.hunger_bar); // Link the hunger bar
         petContainer = findViewById(R.id.pet_container);
         petStateImageView = findViewById(R.id.pet_state_image_view);
+        petStateImageView.setImageDrawable(spriteCache.getDrawable());
 
         hideSystemUI();
         setupButtons();
@@ -81,54 +148,155 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
             accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
         }
 
-        scheduleHungerWorker();
-
+        petContainer.addOnLayoutChangeListener((v, left, top, right, bottom,
+                                                oldLeft, oldTop, oldRight, oldBottom) -> updatePhysicsBounds());
         petContainer.post(() -> {
-            float minX = 0;
-            float maxX = petContainer.getWidth() - petStateImageView.getWidth();
-            float minY = 0;
-            float maxY = petContainer.getHeight() - petStateImageView.getHeight();
-
-            currentX = (minX + maxX) / 2;
-            currentY = maxY;
-            petStateImageView.setX(currentX);
-            petStateImageView.setY(currentY);
+            updatePhysicsBounds();
+            physics.setPosition((physics.getMinX() + physics.getMaxX()) / 2, physics.getMaxY());
+            if (traceRecorder != null) {
+                traceRecorder.position(physics.getX(), physics.getY());
+            }
+            petStateImageView.setX(physics.getX());
+            petStateImageView.setY(physics.getY());
         });
     }
 
+    /**
+     * Records FIRST_PET_FRAME on the next draw, which is the first one with the atlas installed.
+     */
+    private void markFirstPetFrame() {
+        petStateImageView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                petStateImageView.getViewTreeObserver().removeOnPreDrawListener(this);
+                if (startupTrace.mark(StartupTrace.Phase.FIRST_PET_FRAME)) {
+                    reportFullyDrawn();
+                    Log.i(TAG, startupTrace.toString());
+                }
+                return true;
+            }
+        });
+        petStateImageView.invalidate();
+    }
+
+    /** Cold start phase timings for this process. */
+    public static StartupTrace getStartupTrace() {
+        return startupTrace;
+    }
+
+    private void updatePhysicsBounds() {
+        physics.setBounds(0, 0,
+                petContainer.getWidth() - petStateImageView.getWidth(),
+                petContainer.getHeight() - petStateImageView.getHeight());
+        if (traceRecorder != null) {
+            traceRecorder.bounds(physics.getMinX(), physics.getMinY(), physics.getMaxX(), physics.getMaxY());
+        }
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
+        traceRecorder = InputTraceRecorder.start(this, "main");
+        if (traceRecorder != null) {
+            traceRecorder.bounds(physics.getMinX(), physics.getMinY(), physics.getMaxX(), physics.getMaxY());
+            traceRecorder.position(physics.getX(), physics.getY());
+        }
+        // After the recorder starts, so the log carries the tuning the session runs with.
+        applyPetTuning();
         updatePetName();
         updateHungerBar();
 
-        if (accelerometer != null) {
-            sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_GAME);
-        }
+        sensorGovernor.reset();
+        registerAccelerometer();
+        clock.reset();
+        choreographer.postFrameCallback(frameCallback);
     }
 
     @Override
     protected void onPause() {
         super.onPause();
         sensorManager.unregisterListener(this);
+        choreographer.removeFrameCallback(frameCallback);
+        PetData.flush();
+        if (traceRecorder != null) {
+            traceRecorder.close();
+            traceRecorder = null;
+        }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        startupLoader.cancel();
+        startupExecutor.shutdown();
+        spriteCache.releaseFrames();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        long released = spriteCache.trim(level);
+        if (released > 0) {
+            Log.i(TAG, "Trim level " + level + " released " + released / 1024 + " KB of sprites");
+        }
+    }
+
+    private void registerAccelerometer() {
+        if (accelerometer == null) return;
+
+        SensorRateGovernor.Tier tier = sensorGovernor.getTier();
+        sensorManager.unregisterListener(this, accelerometer);
+        sensorManager.registerListener(this, accelerometer, tier.samplingPeriodUs, tier.maxReportLatencyUs);
+    }
+
+    /**
+     * Runs once per display refresh at whatever rate the panel uses. Physics still steps at the
+     * clock's fixed 60 Hz; in between, the pet is drawn interpolated between the last two steps.
+     */
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            long frameStart = System.nanoTime();
+            if (traceRecorder != null) {
+                traceRecorder.frame(frameTimeNanos);
+            }
+            int steps = clock.advance(frameTimeNanos);
+            if (!isDragging) {
+                if (steps > 0) {
+                    long physicsStart = System.nanoTime();
+                    for (int i = 0; i < steps; i++) {
+                        physics.step();
+                    }
+                    latencyStats.record(LatencyStats.Metric.PHYSICS_STEP, System.nanoTime() - physicsStart);
+
+                    long stateStart = System.nanoTime();
+                    stateMachine.update(physics);
+                    latencyStats.record(LatencyStats.Metric.STATE_UPDATE, System.nanoTime() - stateStart);
+                    stateImageUpdate();
+                }
+                if (spritesReady) {
+                    spriteCache.tick(frameTimeNanos);
+                }
+
+                // View positions are floats, so the sub-pixel part is drawn rather than truncated.
+                float alpha = clock.getAlpha();
+                petStateImageView.setX(physics.getInterpolatedX(alpha));
+                petStateImageView.setY(physics.getInterpolatedY(alpha));
+                latencyStats.record(LatencyStats.Metric.FRAME, System.nanoTime() - frameStart);
+            }
+            choreographer.postFrameCallback(this);
+        }
+    };
+
     private void updateHungerBar() {
-        if (hungerBar != null) {
+        if (hungerBar != null && petReady) {
             hungerBar.setProgress(PetData.getHungerPercentage());
         }
     }
 
-    private void scheduleHungerWorker() {
-        PeriodicWorkRequest hungerWorkRequest =
-                new PeriodicWorkRequest.Builder(HungerWorker.class, 15, TimeUnit.MINUTES)
-                        .build();
-
-        WorkManager.getInstance(this).enqueueUniquePeriodicWork(
-                "HungerWorker",
-                ExistingPeriodicWorkPolicy.KEEP,
-                hungerWorkRequest
-        );
+    private void deployOverlay() {
+        startService(new Intent(this, OverlayService.class));
+        finish();
     }
 
     private void setupButtons() {
@@ -143,8 +311,14 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         // Deploy the pet as an overlay
         binding.buttonDeploy.setOnClickListener(v -> {
             if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M || Settings.canDrawOverlays(this)) {
-                startService(new Intent(this, OverlayService.class));
-                finish();
+                // The starving alert matters most once the app is closed, which deploying does.
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                        && ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+                        != PackageManager.PERMISSION_GRANTED) {
+                    notificationPermission.launch(Manifest.permission.POST_NOTIFICATIONS);
+                } else {
+                    deployOverlay();
+                }
             } else {
                 startActivity(new Intent(Settings.ACTION_MANAGE_OVERLAY_PERMISSION, Uri.parse("package:" + getPackageName())));
             }
@@ -152,6 +326,7 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
 
         // Keep the original feed button functionality
         binding.buttonFeed.setOnClickListener(v -> {
+            if (!petReady) return;
             PetData.feedPet(120);
             updateHungerBar();
             Toast.makeText(this, "You fed your pet!", Toast.LENGTH_SHORT).show();
@@ -177,47 +352,46 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
 
     private void setupDragAndDrop() {
         petStateImageView.setOnTouchListener((view, event) -> {
+            if (traceRecorder != null) {
+                traceRecorder.touch(event.getAction(), event.getRawX(), event.getRawY());
+            }
             switch (event.getAction()) {
                 case MotionEvent.ACTION_DOWN:
                     isDragging = true;
+                    if (sensorGovernor.boost()) {
+                        registerAccelerometer();
+                    }
                     initialTouchX = event.getRawX();
                     initialTouchY = event.getRawY();
-                    initialPetX = petStateImageView.getX();
-                    initialPetY = petStateImageView.getY();
-                    petStateImageView.setImageResource(PetData.fallVertical);
+                    // The physics position, not the interpolated view position, so a recorded
+                    // drag replays exactly (TraceReplayer starts from the same place).
+                    initialPetX = physics.getX();
+                    initialPetY = physics.getY();
+                    showSprite(PetState.FALLING_VERTICAL);
                     return true;
 
                 case MotionEvent.ACTION_MOVE:
                     if (isDragging) {
                         float deltaX = event.getRawX() - initialTouchX;
                         float deltaY = event.getRawY() - initialTouchY;
-                        currentX = initialPetX + deltaX;
-                        currentY = initialPetY + deltaY;
-
-                        float minX = 0;
-                        float maxX = petContainer.getWidth() - petStateImageView.getWidth();
-                        float minY = 0;
-                        float maxY = petContainer.getHeight() - petStateImageView.getHeight();
-                        currentX = Math.max(minX, Math.min(currentX, maxX));
-                        currentY = Math.max(minY, Math.min(currentY, maxY));
+                        physics.setPosition(initialPetX + deltaX, initialPetY + deltaY);
 
-                        petStateImageView.setX(currentX);
-                        petStateImageView.setY(currentY);
+                        petStateImageView.setX(physics.getX());
+                        petStateImageView.setY(physics.getY());
 
                         if (deltaX > DRAG_DIRECTION_THRESHOLD) {
-                            petStateImageView.setImageResource(PetData.fallHorizontalRight);
+                            showSprite(PetState.FALLING_RIGHT);
                         } else if (deltaX < -DRAG_DIRECTION_THRESHOLD) {
-                            petStateImageView.setImageResource(PetData.fallHorizontalLeft);
+                            showSprite(PetState.FALLING_LEFT);
                         } else {
-                            petStateImageView.setImageResource(PetData.fallVertical);
+                            showSprite(PetState.FALLING_VERTICAL);
                         }
                     }
                     return true;
 
                 case MotionEvent.ACTION_UP:
                     isDragging = false;
-                    velocityX = 0;
-                    velocityY = 0;
+                    physics.stop();
                     return true;
             }
             return false;
@@ -226,49 +400,19 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
 
     @Override
     public void onSensorChanged(SensorEvent event) {
-        if (isDragging) {
-            return;
-        }
-
         if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-            float accelX = -event.values[0];
-            float accelY = event.values[1];
-
-            velocityX *= DAMPING;
-            velocityY *= DAMPING;
-
-            velocityX += accelX * ACCELERATION_SCALE;
-            velocityY += accelY * ACCELERATION_SCALE;
-
-            currentX += velocityX;
-            currentY += velocityY;
-
-            float minX = 0;
-            float maxX = petContainer.getWidth() - petStateImageView.getWidth();
-            float minY = 0;
-            float maxY = petContainer.getHeight() - petStateImageView.getHeight();
-
-            if (currentX < minX) {
-                currentX = minX;
-                velocityX = 0;
-            } else if (currentX > maxX) {
-                currentX = maxX;
-                velocityX = 0;
+            long eventStart = System.nanoTime();
+            // Only record the sample; the fixed-step loop decides when physics runs.
+            if (traceRecorder != null) {
+                traceRecorder.sensor(event.values[0], event.values[1], event.values[2]);
             }
+            physics.setInput(-event.values[0], event.values[1]);
 
-            if (currentY < minY) {
-                currentY = minY;
-                velocityY = 0;
-            } else if (currentY > maxY) {
-                currentY = maxY;
-                velocityY = 0;
+            if (sensorGovernor.onSample(event.timestamp, event.values[0], event.values[1], event.values[2],
+                    physics.isAtRest() && !isDragging)) {
+                registerAccelerometer();
             }
-
-            petStateImageView.setX(currentX);
-            petStateImageView.setY(currentY);
-
-            updatePetState();
-            stateImageUpdate();
+            latencyStats.record(LatencyStats.Metric.SENSOR_EVENT, System.nanoTime() - eventStart);
         }
     }
 
@@ -277,155 +421,33 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         // Not needed
     }
 
-    private void updatePetName() {
-        binding.buttonPetName.setText(PetData.getPetName());
-    }
-
-    private boolean isOnWall() {
-        float minX = 0;
-        float maxX = petContainer.getWidth() - petStateImageView.getWidth();
-        float tolerance = 1.0f;
-        return currentX <= minX + tolerance || currentX >= maxX - tolerance;
+    /**
+     * Uses the current pet type's damping and acceleration; the type may have changed in
+     * CustomizeActivity.
+     */
+    private void applyPetTuning() {
+        if (!petReady) return;
+        PetType type = PetData.getCatalog().get(PetData.getPetType());
+        physics.setTuning(type.getDamping(), type.getAccelerationScale());
+        if (traceRecorder != null) {
+            traceRecorder.tuning(type.getDamping(), type.getAccelerationScale());
+        }
     }
 
-    private boolean isOnGround() {
-        float maxY = petContainer.getHeight() - petStateImageView.getHeight();
-        float tolerance = 1.0f;
-        return currentY >= maxY - tolerance;
+    private void updatePetName() {
+        if (!petReady) return;
+        binding.buttonPetName.setText(PetData.getPetName());
     }
 
-    private void updatePetState() {
-        float absVelocityX = Math.abs(velocityX);
-        float absVelocityY = Math.abs(velocityY);
-
-        if (currentState == State.IDLE_LEFT || currentState == State.IDLE_RIGHT) {
-            lastIdleState = currentState;
-        }
-
-        switch (currentState) {
-            case IDLE_LEFT:
-                if (isOnWall()) {
-                    currentState = (currentX >= petContainer.getWidth() - petStateImageView.getWidth() - 1.0f) ? State.SMACK_RIGHT : State.SMACK_LEFT;
-                }
-                else if (!isOnGround()) {
-                    if (absVelocityY > absVelocityX) {
-                        currentState = State.FALLING_VERTICAL;
-                    } else {
-                        currentState = (velocityX > 0) ? State.FALLING_RIGHT : State.FALLING_LEFT;
-                    }
-                }
-                break;
-
-            case IDLE_RIGHT:
-                if (isOnWall()) {
-                    currentState = (currentX <= 1.0f) ? State.SMACK_LEFT : State.SMACK_RIGHT;
-                }
-                else if (!isOnGround()) {
-                    if (absVelocityY > absVelocityX) {
-                        currentState = State.FALLING_VERTICAL;
-                    } else {
-                        currentState = (velocityX > 0) ? State.FALLING_RIGHT : State.FALLING_LEFT;
-                    }
-                }
-                break;
-
-            case FALLING_VERTICAL:
-                if (isOnWall()) {
-                    currentState = (currentX <= 1.0f) ? State.SMACK_LEFT : State.SMACK_RIGHT;
-                }
-                else if (isOnGround()) {
-                    currentState = lastIdleState;
-                }
-                else if (absVelocityX > absVelocityY) {
-                    currentState = (velocityX > 0) ? State.FALLING_RIGHT : State.FALLING_LEFT;
-                }
-                break;
-
-            case FALLING_LEFT:
-                if (isOnWall()) {
-                    currentState = (currentX <= 1.0f) ? State.SMACK_LEFT : State.SMACK_RIGHT;
-                }
-                else if (isOnGround()) {
-                    currentState = State.IDLE_LEFT;
-                }
-                else if (absVelocityY > absVelocityX) {
-                    currentState = State.FALLING_VERTICAL;
-                }
-                else if (velocityX > 0) {
-                    currentState = State.FALLING_RIGHT;
-                }
-                break;
-
-            case FALLING_RIGHT:
-                if (isOnWall()) {
-                    currentState = (currentX <= 1.0f) ? State.SMACK_LEFT : State.SMACK_RIGHT;
-                }
-                else if (isOnGround()) {
-                    currentState = State.IDLE_RIGHT;
-                }
-                else if (absVelocityY > absVelocityX) {
-                    currentState = State.FALLING_VERTICAL;
-                }
-                else if (velocityX < 0) {
-                    currentState = State.FALLING_LEFT;
-                }
-                break;
-
-            case SMACK_LEFT:
-                if (!isOnWall()) {
-                    if (isOnGround()) {
-                        currentState = State.IDLE_LEFT;
-                    } else {
-                        currentState = State.FALLING_LEFT;
-                    }
-                }
-                break;
-
-            case SMACK_RIGHT:
-                if (!isOnWall()) {
-                    if (isOnGround()) {
-                        currentState = State.IDLE_RIGHT;
-                    } else {
-                        currentState = State.FALLING_RIGHT;
-                    }
-                }
-                break;
-
-            default:
-                currentState = State.IDLE_LEFT;
-                break;
-        }
+    private void stateImageUpdate() {
+        showSprite(stateMachine.getState());
     }
 
-
-
-    private void stateImageUpdate() {
-        int imageResource = 0;
-        switch(currentState) {
-            case IDLE_LEFT:
-                imageResource = PetData.idleLeft;
-                break;
-            case IDLE_RIGHT:
-                imageResource = PetData.idleRight;
-                break;
-            case FALLING_VERTICAL:
-                imageResource = PetData.fallVertical;
-                break;
-            case FALLING_LEFT:
-                imageResource = PetData.fallHorizontalLeft;
-                break;
-            case FALLING_RIGHT:
-                imageResource = PetData.fallHorizontalRight;
-                break;
-            case SMACK_LEFT:
-                imageResource = PetData.wallSmackLeft;
-                break;
-            case SMACK_RIGHT:
-                imageResource = PetData.wallSmackRight;
-                break;
-        }
-        if (imageResource != 0) {
-            binding.petStateImageView.setImageResource(imageResource);
-        }
+    private void showSprite(PetState state) {
+        // Until the prefetched atlas arrives, showing would load it again on the main thread.
+        if (!spritesReady) return;
+        long spriteStart = System.nanoTime();
+        spriteCache.show(state);
+        latencyStats.record(LatencyStats.Metric.SPRITE_SWAP, System.nanoTime() - spriteStart);
     }
 }
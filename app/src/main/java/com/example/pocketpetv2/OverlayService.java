@@ -1,17 +1,23 @@
 package com.example.pocketpetv2;
 
+import android.app.KeyguardManager;
 import android.app.Service;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.graphics.PixelFormat;
 import android.graphics.Point;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
 import android.os.Build;
-import android.os.Handler;
 import android.os.IBinder;
+import android.os.PowerManager;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
@@ -20,7 +26,7 @@ import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.ImageView;
 
-public class OverlayService extends Service implements SensorEventListener {
+public class OverlayService extends Service implements SensorEventListener, PowerScheduler.Host {
 
     private WindowManager windowManager;
     private View overlayView;
@@ -28,23 +34,39 @@ public class OverlayService extends Service implements SensorEventListener {
     private ImageView petImageView;
     private SensorManager sensorManager;
     private Sensor accelerometer;
-    private float velocityX = 0, velocityY = 0;
-    private static final float DAMPING = 0.92f;
-    private static final float ACCELERATION_SCALE = 2.5f;
+    // Pet 0 is the draggable one in overlayView; any others are drawn by flockView.
+    private PetFlock flock;
+    private FlockView flockView;
     private int screenWidth, screenHeight;
 
-    public enum State {
-        IDLE_LEFT, IDLE_RIGHT, FALLING_VERTICAL, FALLING_LEFT,
-        FALLING_RIGHT, SMACK_LEFT, SMACK_RIGHT
-    }
-    private volatile State currentState = State.IDLE_LEFT;
-    private volatile State lastIdleState = State.IDLE_LEFT;
+    private SpriteCache spriteCache;
     private boolean isDragging = false;
     private float initialTouchX, initialTouchY;
     private int initialWindowX, initialWindowY;
     private static final float DRAG_DIRECTION_THRESHOLD = 50f;
-    private final Handler handler = new Handler();
-    private static final int UPDATE_DELAY = 16; // about 60 FPS
+    private final FixedStepClock clock = new FixedStepClock();
+    private Choreographer choreographer;
+    private boolean frameLoopRunning = false;
+    // Last position handed to WindowManager; updateViewLayout is an IPC, so skip it when unchanged.
+    private int appliedX, appliedY;
+    private boolean relayoutScheduled = false;
+    private static final RateCounter relayoutCounter = new RateCounter();
+    private Sensor wakeTrigger;
+    private StationaryController stationaryController;
+    private static volatile SensorRateGovernor.Tier sensorTier;
+    private static volatile StationaryController.Mode sensorMode = StationaryController.Mode.STOPPED;
+    private final LatencyStats latencyStats = LatencyStats.process();
+    private PerfHud perfHud;
+    private PowerManager powerManager;
+    private KeyguardManager keyguardManager;
+    private PowerScheduler powerScheduler;
+    // For the static diagnostics getters; cleared in onDestroy.
+    private static PowerScheduler activeScheduler;
+    // Interpolation of the last drawn frame, so a suspended pet resumes exactly where it was drawn.
+    private float drawnAlpha = 1f;
+    private int tunedVersion = -1;
+    // With battery saver on the loop waits this long after each frame: about 30 fps at 60 Hz.
+    private static final long POWER_SAVE_FRAME_DELAY_MILLIS = 17;
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -54,17 +76,28 @@ public class OverlayService extends Service implements SensorEventListener {
     @Override
     public void onCreate() {
         super.onCreate();
+        PetData.init(this);
 
         overlayView = LayoutInflater.from(this).inflate(R.layout.overlay_layout, null);
         petImageView = overlayView.findViewById(R.id.overlay_pet_image);
+        int petSize = getResources().getDimensionPixelSize(R.dimen.pet_size);
+        spriteCache = new SpriteCache(this, petSize, petSize);
+        petImageView.setImageDrawable(spriteCache.getDrawable());
         Button stopButton = overlayView.findViewById(R.id.button_stop_overlay);
         stopButton.setOnClickListener(v -> stopSelf());
 
         windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
+        choreographer = Choreographer.getInstance();
         sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
         if (sensorManager != null) {
             accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+            wakeTrigger = sensorManager.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION);
+            if (wakeTrigger == null) {
+                wakeTrigger = sensorManager.getDefaultSensor(Sensor.TYPE_MOTION_DETECT);
+            }
         }
+        long sleepAfterNanos = getResources().getInteger(R.integer.sensor_sleep_after_seconds) * 1_000_000_000L;
+        stationaryController = new StationaryController(sensorSource, sleepAfterNanos);
 
         Point size = new Point();
         windowManager.getDefaultDisplay().getSize(size);
@@ -86,65 +119,377 @@ public class OverlayService extends Service implements SensorEventListener {
         params.x = (screenWidth / 2);
         params.y = (screenHeight / 2);
 
+        int petCount = Math.max(1, getResources().getInteger(R.integer.overlay_pet_count));
+        flock = new PetFlock(petCount, petSize);
+        if (petCount > 1) {
+            // One full-screen window for all the other pets, below the draggable one.
+            flockView = new FlockView(this);
+            flockView.bind(flock, spriteCache);
+            WindowManager.LayoutParams flockParams = new WindowManager.LayoutParams(
+                    WindowManager.LayoutParams.MATCH_PARENT,
+                    WindowManager.LayoutParams.MATCH_PARENT,
+                    layoutFlag,
+                    WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
+                            | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
+                            | WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+                    PixelFormat.TRANSLUCENT);
+            flockParams.gravity = Gravity.TOP | Gravity.START;
+            windowManager.addView(flockView, flockParams);
+        }
+
+        overlayView.addOnLayoutChangeListener((v, left, top, right, bottom,
+                                               oldLeft, oldTop, oldRight, oldBottom) -> updatePhysicsBounds());
         windowManager.addView(overlayView, params);
+        appliedX = params.x;
+        appliedY = params.y;
+        updatePhysicsBounds();
+        flock.add(params.x, params.y);
+        // The others start spread along the top edge and drop in.
+        for (int i = 1; i < petCount; i++) {
+            flock.add((float) (screenWidth - petSize) * i / petCount, 0);
+        }
         setupDragAndDrop();
         if (accelerometer != null) {
-            sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_GAME);
+            stationaryController.start();
+        }
+        startFrameLoop();
+
+        powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        keyguardManager = (KeyguardManager) getSystemService(Context.KEYGUARD_SERVICE);
+        powerScheduler = new PowerScheduler(this);
+        activeScheduler = powerScheduler;
+        IntentFilter powerFilter = new IntentFilter();
+        powerFilter.addAction(Intent.ACTION_SCREEN_OFF);
+        powerFilter.addAction(Intent.ACTION_SCREEN_ON);
+        powerFilter.addAction(Intent.ACTION_USER_PRESENT);
+        powerFilter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        registerReceiver(powerReceiver, powerFilter);
+        powerScheduler.start(powerManager.isInteractive(), keyguardManager.isKeyguardLocked(),
+                powerManager.isPowerSaveMode(), System.nanoTime());
+
+        if (PerfHud.isEnabled(this)) {
+            perfHud = new PerfHud(this, windowManager, latencyStats);
+            perfHud.show();
         }
-        handler.post(updateRunnable);
     }
 
-    private final Runnable updateRunnable = new Runnable() {
+    private final StationaryController.SensorSource sensorSource = new StationaryController.SensorSource() {
+        @Override
+        public void registerAccelerometer(SensorRateGovernor.Tier tier) {
+            sensorManager.unregisterListener(OverlayService.this, accelerometer);
+            sensorManager.registerListener(OverlayService.this, accelerometer,
+                    tier.samplingPeriodUs, tier.maxReportLatencyUs);
+            sensorTier = tier;
+            sensorMode = stationaryController.getMode();
+        }
+
+        @Override
+        public void unregisterAccelerometer() {
+            sensorManager.unregisterListener(OverlayService.this, accelerometer);
+            sensorTier = null;
+            sensorMode = stationaryController.getMode();
+        }
+
+        @Override
+        public boolean requestWakeTrigger() {
+            return wakeTrigger != null && sensorManager.requestTriggerSensor(wakeListener, wakeTrigger);
+        }
+
         @Override
-        public void run() {
-            if (!isDragging) {
-                updateWindowPosition();
-                updatePetState();
-                stateImageUpdate();
+        public void cancelWakeTrigger() {
+            if (wakeTrigger != null) {
+                sensorManager.cancelTriggerSensor(wakeListener, wakeTrigger);
             }
-            handler.postDelayed(this, UPDATE_DELAY);
         }
     };
 
-    private void updateWindowPosition() {
-        params.x += (int) velocityX;
-        params.y += (int) velocityY;
+    private final TriggerEventListener wakeListener = new TriggerEventListener() {
+        @Override
+        public void onTrigger(TriggerEvent event) {
+            stationaryController.onWakeTrigger();
+            sensorMode = stationaryController.getMode();
+        }
+    };
 
-        int viewWidth = overlayView.getWidth();
-        int viewHeight = overlayView.getHeight();
+    private final BroadcastReceiver powerReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            long now = System.nanoTime();
+            String action = intent.getAction();
+            if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                powerScheduler.onScreenOff(now);
+            } else if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                powerScheduler.onScreenOn(keyguardManager.isKeyguardLocked(), now);
+            } else if (Intent.ACTION_USER_PRESENT.equals(action)) {
+                powerScheduler.onUserPresent(now);
+            } else if (PowerManager.ACTION_POWER_SAVE_MODE_CHANGED.equals(action)) {
+                powerScheduler.onPowerSaveChanged(powerManager.isPowerSaveMode(), now);
+            }
+        }
+    };
 
-        if (params.x < 0) {
-            params.x = 0;
-            velocityX = 0;
-        } else if (params.x > screenWidth - viewWidth) {
-            params.x = screenWidth - viewWidth;
-            velocityX = 0;
+    @Override
+    public void onModeChanged(PowerScheduler.Mode from, PowerScheduler.Mode to) {
+        if (to == PowerScheduler.Mode.SUSPENDED) {
+            suspend();
+        } else if (from == PowerScheduler.Mode.SUSPENDED) {
+            resume();
         }
+        // POWER_SAVE <-> NORMAL only changes how the running loop paces itself.
+    }
 
-        if (params.y < 0) {
-            params.y = 0;
-            velocityY = 0;
-        } else if (params.y > screenHeight - viewHeight) {
-            params.y = screenHeight - viewHeight;
-            velocityY = 0;
+    /**
+     * Stops all ticking and sensors. The pets are frozen where they were last drawn, velocities
+     * and states included, so {@link #resume} continues without a jump.
+     */
+    private void suspend() {
+        if (isDragging) {
+            // The touch stream ends with the screen; drop the pet where the finger left it.
+            isDragging = false;
+            flock.setPinned(0, false);
+        }
+        flock.holdAt(drawnAlpha);
+        drawnAlpha = 1f;
+        stopFrameLoop();
+        if (accelerometer != null) {
+            stationaryController.stop();
         }
+        PetData.flush();
+    }
 
-        windowManager.updateViewLayout(overlayView, params);
+    private void resume() {
+        if (accelerometer != null) {
+            stationaryController.start();
+        }
+        // The clock restarts from zero, so the suspended time is never simulated and the first
+        // frame draws the held positions.
+        startFrameLoop();
     }
 
     @Override
-    public void onSensorChanged(SensorEvent event) {
+    public double getWakeupsPerSecond() {
+        double rate = 0;
+        SensorRateGovernor.Tier tier = sensorTier;
+        if (tier != null) {
+            // Batched samples wake the CPU once per batch.
+            rate += 1_000_000.0 / Math.max(tier.samplingPeriodUs, tier.maxReportLatencyUs);
+        }
+        if (frameLoopRunning) {
+            rate += windowManager.getDefaultDisplay().getRefreshRate();
+        } else {
+            rate += spriteCache.getAnimationFrameRate();
+        }
+        return rate;
+    }
+
+    /**
+     * Milliseconds the overlay has spent suspended with the screen off or locked. For
+     * diagnostics; call from the main thread.
+     */
+    public static long getSuspendedMillis() {
+        PowerScheduler scheduler = activeScheduler;
+        return scheduler != null ? scheduler.getSuspendedNanos(System.nanoTime()) / 1_000_000 : 0;
+    }
+
+    /**
+     * Estimated frame and sensor wakeups avoided by suspending. For diagnostics; call from the
+     * main thread.
+     */
+    public static long getWakeupsAvoided() {
+        PowerScheduler scheduler = activeScheduler;
+        return scheduler != null ? scheduler.getWakeupsAvoided(System.nanoTime()) : 0;
+    }
+
+    /**
+     * Current accelerometer rate tier, or null while it is released. For diagnostics.
+     */
+    public static SensorRateGovernor.Tier getSensorTier() {
+        return sensorTier;
+    }
+
+    /**
+     * Whether the accelerometer is active, released or probing. For diagnostics.
+     */
+    public static StationaryController.Mode getSensorMode() {
+        return sensorMode;
+    }
+
+    private void startFrameLoop() {
+        if (frameLoopRunning) return;
+        frameLoopRunning = true;
+        choreographer.removeFrameCallback(animationCallback);
+        clock.reset();
+        choreographer.postFrameCallback(frameCallback);
+    }
+
+    private void stopFrameLoop() {
+        frameLoopRunning = false;
+        choreographer.removeFrameCallback(frameCallback);
+        choreographer.removeFrameCallback(animationCallback);
+    }
+
+    /**
+     * While the pets rest the frame loop sleeps, but an animated sprite still needs its next
+     * frame; wake only when it is due instead of every vsync.
+     */
+    private void scheduleAnimationFrame(long nowNanos) {
+        if (powerScheduler != null && powerScheduler.getMode() != PowerScheduler.Mode.NORMAL) return;
+        long delayNanos = spriteCache.nanosUntilNextFrame(nowNanos);
+        if (delayNanos >= 0) {
+            choreographer.postFrameCallbackDelayed(animationCallback, Math.max(1, delayNanos / 1_000_000));
+        }
+    }
+
+    private final Choreographer.FrameCallback animationCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (frameLoopRunning) return;
+            spriteCache.tick(frameTimeNanos);
+            scheduleAnimationFrame(frameTimeNanos);
+        }
+    };
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            long frameStart = System.nanoTime();
+            int steps = clock.advance(frameTimeNanos);
+            if (steps > 0) {
+                stepPhysics(steps);
+                long stateStart = System.nanoTime();
+                flock.updateStates();
+                latencyStats.record(LatencyStats.Metric.STATE_UPDATE, System.nanoTime() - stateStart);
+                if (!isDragging) {
+                    // While dragging, the touch listener picks the dragged pet's sprite.
+                    stateImageUpdate();
+                }
+            }
+
+            spriteCache.tick(frameTimeNanos);
+
+            // Draw on every vsync, not just on frames that ran a step, so 90/120 Hz panels get
+            // evenly spaced positions between the 60 Hz physics states.
+            // A dragged (pinned) pet counts as resting; ACTION_UP restarts the loop.
+            boolean atRest = flock.isAllAtRest();
+            float alpha = atRest ? 1f : clock.getAlpha();
+            drawnAlpha = alpha;
+            updateWindowPosition(alpha, frameTimeNanos);
+            if (flockView != null) {
+                flockView.setInterpolation(alpha);
+            }
+            latencyStats.record(LatencyStats.Metric.FRAME, System.nanoTime() - frameStart);
+
+            if (atRest) {
+                frameLoopRunning = false;
+                scheduleAnimationFrame(frameTimeNanos);
+                return;
+            }
+            if (powerScheduler != null && powerScheduler.getMode() == PowerScheduler.Mode.POWER_SAVE) {
+                choreographer.postFrameCallbackDelayed(this, POWER_SAVE_FRAME_DELAY_MILLIS);
+            } else {
+                choreographer.postFrameCallback(this);
+            }
+        }
+    };
+
+    private void updatePhysicsBounds() {
+        flock.setBounds(0, 0,
+                screenWidth - overlayView.getWidth(),
+                screenHeight - overlayView.getHeight());
+    }
+
+    /**
+     * Picks up the current pet type's damping and acceleration once per type change (the sprite
+     * version changes with the type).
+     */
+    private void applyPetTuning() {
+        PetSnapshot pet = PetData.snapshot();
+        if (pet.getSpriteVersion() == tunedVersion) return;
+        tunedVersion = pet.getSpriteVersion();
+        PetType type = PetData.getCatalog().get(pet.getPetType());
+        flock.setTuning(type.getDamping(), type.getAccelerationScale());
+    }
+
+    private void stepPhysics(int steps) {
+        applyPetTuning();
+        long physicsStart = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            flock.step();
+        }
+        latencyStats.record(LatencyStats.Metric.PHYSICS_STEP, System.nanoTime() - physicsStart);
+    }
+
+    /**
+     * Moves the window to pet 0's position alpha of the way through the last step. Window
+     * positions are whole pixels, so round the exact float position each frame instead of
+     * truncating: the fraction is kept in the physics state and never accumulates as drift.
+     */
+    private void updateWindowPosition(float alpha, long frameTimeNanos) {
         if (isDragging) return;
 
-        if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-            float accelX = -event.values[0];
-            float accelY = event.values[1];
+        params.x = Math.round(flock.getInterpolatedX(0, alpha));
+        params.y = Math.round(flock.getInterpolatedY(0, alpha));
+        applyWindowPosition(frameTimeNanos);
+    }
 
-            velocityX *= DAMPING;
-            velocityY *= DAMPING;
+    /**
+     * Moves the window from outside the frame loop (touch events can arrive several times per
+     * frame); the actual relayout happens once on the next frame.
+     */
+    private void requestWindowPosition(int x, int y) {
+        params.x = x;
+        params.y = y;
+        if (!relayoutScheduled) {
+            relayoutScheduled = true;
+            choreographer.postFrameCallback(relayoutCallback);
+        }
+    }
 
-            velocityX += accelX * ACCELERATION_SCALE;
-            velocityY += accelY * ACCELERATION_SCALE;
+    private final Choreographer.FrameCallback relayoutCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            relayoutScheduled = false;
+            applyWindowPosition(frameTimeNanos);
+        }
+    };
+
+    private void applyWindowPosition(long frameTimeNanos) {
+        if (params.x == appliedX && params.y == appliedY) return;
+
+        appliedX = params.x;
+        appliedY = params.y;
+        long relayoutStart = System.nanoTime();
+        windowManager.updateViewLayout(overlayView, params);
+        latencyStats.record(LatencyStats.Metric.RELAYOUT, System.nanoTime() - relayoutStart);
+        relayoutCounter.record(frameTimeNanos);
+    }
+
+    /**
+     * Window relayouts (WindowManager IPCs) in the last complete second, for diagnostics.
+     * Call from the main thread.
+     */
+    public static int getRelayoutsPerSecond() {
+        return relayoutCounter.getPerSecond(System.nanoTime());
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
+            // A sample queued before the listener was released must not restart the loop.
+            if (powerScheduler != null && powerScheduler.getMode() == PowerScheduler.Mode.SUSPENDED) return;
+            long eventStart = System.nanoTime();
+            // Only record the sample; the fixed-step loop decides when physics runs.
+            flock.setInput(-event.values[0], event.values[1]);
+
+            stationaryController.onAccelerometerSample(event.timestamp,
+                    event.values[0], event.values[1], event.values[2], !frameLoopRunning && !isDragging);
+            sensorMode = stationaryController.getMode();
+
+            // Wake as soon as the new tilt would get a pet moving, however small the change.
+            if (!frameLoopRunning && !flock.isAllAtRest()) {
+                startFrameLoop();
+            }
+            latencyStats.record(LatencyStats.Metric.SENSOR_EVENT, System.nanoTime() - eventStart);
         }
     }
 
@@ -153,172 +498,89 @@ public class OverlayService extends Service implements SensorEventListener {
             switch (event.getAction()) {
                 case MotionEvent.ACTION_DOWN:
                     isDragging = true;
-                    velocityX = 0;
-                    velocityY = 0;
+                    stationaryController.onTouch();
+                    flock.setPinned(0, true);
+                    flock.stop(0);
                     initialWindowX = params.x;
                     initialWindowY = params.y;
                     initialTouchX = event.getRawX();
                     initialTouchY = event.getRawY();
-                    petImageView.setImageResource(PetData.fallVertical);
+                    showSprite(PetState.FALLING_VERTICAL);
                     return true;
 
                 case MotionEvent.ACTION_MOVE:
                     if (isDragging) {
                         float deltaX = event.getRawX() - initialTouchX;
                         float deltaY = event.getRawY() - initialTouchY;
-                        params.x = initialWindowX + (int) deltaX;
-                        params.y = initialWindowY + (int) deltaY;
-                        windowManager.updateViewLayout(overlayView, params);
+                        flock.setPosition(0, initialWindowX + deltaX, initialWindowY + deltaY);
+                        requestWindowPosition(Math.round(flock.getX(0)), Math.round(flock.getY(0)));
+                        if (flock.getCount() > 1) {
+                            // The others get pushed out of the way.
+                            startFrameLoop();
+                        }
 
                         if (deltaX > DRAG_DIRECTION_THRESHOLD) {
-                            petImageView.setImageResource(PetData.fallHorizontalRight);
+                            showSprite(PetState.FALLING_RIGHT);
                         } else if (deltaX < -DRAG_DIRECTION_THRESHOLD) {
-                            petImageView.setImageResource(PetData.fallHorizontalLeft);
+                            showSprite(PetState.FALLING_LEFT);
                         } else {
-                            petImageView.setImageResource(PetData.fallVertical);
+                            showSprite(PetState.FALLING_VERTICAL);
                         }
                     }
                     return true;
 
                 case MotionEvent.ACTION_UP:
                     isDragging = false;
+                    flock.setPinned(0, false);
+                    startFrameLoop();
                     return true;
             }
             return false;
         });
     }
 
-    private boolean isOnWall() {
-        int tolerance = 5;
-        int viewWidth = overlayView.getWidth();
-        return params.x <= tolerance || params.x >= screenWidth - viewWidth - tolerance;
-    }
-
-    private boolean isOnGround() {
-        int tolerance = 5;
-        int viewHeight = overlayView.getHeight();
-        return params.y >= screenHeight - viewHeight - tolerance;
+    private void stateImageUpdate() {
+        showSprite(flock.getState(0));
     }
 
-    private void updatePetState() {
-        float absVelocityX = Math.abs(velocityX);
-        float absVelocityY = Math.abs(velocityY);
-
-        if (currentState == State.IDLE_LEFT || currentState == State.IDLE_RIGHT) {
-            lastIdleState = currentState;
-        }
-
-        switch (currentState) {
-            case IDLE_LEFT:
-                if (isOnWall()) {
-                    currentState = (params.x >= screenWidth - overlayView.getWidth() - 5) ? State.SMACK_RIGHT : State.SMACK_LEFT;
-                } else if (!isOnGround()) {
-                    if (absVelocityY > absVelocityX) {
-                        currentState = State.FALLING_VERTICAL;
-                    } else {
-                        currentState = (velocityX > 0) ? State.FALLING_RIGHT : State.FALLING_LEFT;
-                    }
-                }
-                break;
-
-            case IDLE_RIGHT:
-                if (isOnWall()) {
-                    currentState = (params.x <= 5) ? State.SMACK_LEFT : State.SMACK_RIGHT;
-                } else if (!isOnGround()) {
-                    if (absVelocityY > absVelocityX) {
-                        currentState = State.FALLING_VERTICAL;
-                    } else {
-                        currentState = (velocityX > 0) ? State.FALLING_RIGHT : State.FALLING_LEFT;
-                    }
-                }
-                break;
-
-            case FALLING_VERTICAL:
-                if (isOnWall()) {
-                    currentState = (params.x <= 5) ? State.SMACK_LEFT : State.SMACK_RIGHT;
-                } else if (isOnGround()) {
-                    currentState = lastIdleState;
-                } else if (absVelocityX > absVelocityY) {
-                    currentState = (velocityX > 0) ? State.FALLING_RIGHT : State.FALLING_LEFT;
-                }
-                break;
-
-            case FALLING_LEFT:
-                if (isOnWall()) {
-                    currentState = (params.x <= 5) ? State.SMACK_LEFT : State.SMACK_RIGHT;
-                } else if (isOnGround()) {
-                    currentState = State.IDLE_LEFT;
-                } else if (absVelocityY > absVelocityX) {
-                    currentState = State.FALLING_VERTICAL;
-                } else if (velocityX > 0) {
-                    currentState = State.FALLING_RIGHT;
-                }
-                break;
-
-            case FALLING_RIGHT:
-                if (isOnWall()) {
-                    currentState = (params.x <= 5) ? State.SMACK_LEFT : State.SMACK_RIGHT;
-                } else if (isOnGround()) {
-                    currentState = State.IDLE_RIGHT;
-                } else if (absVelocityY > absVelocityX) {
-                    currentState = State.FALLING_VERTICAL;
-                } else if (velocityX < 0) {
-                    currentState = State.FALLING_LEFT;
-                }
-                break;
-
-            case SMACK_LEFT:
-                if (!isOnWall()) {
-                    if (isOnGround()) {
-                        currentState = State.IDLE_LEFT;
-                    } else {
-                        currentState = State.FALLING_LEFT;
-                    }
-                }
-                break;
-
-            case SMACK_RIGHT:
-                if (!isOnWall()) {
-                    if (isOnGround()) {
-                        currentState = State.IDLE_RIGHT;
-                    } else {
-                        currentState = State.FALLING_RIGHT;
-                    }
-                }
-                break;
-
-            default:
-                currentState = State.IDLE_LEFT;
-                break;
-        }
+    private void showSprite(PetState state) {
+        long spriteStart = System.nanoTime();
+        spriteCache.show(state);
+        latencyStats.record(LatencyStats.Metric.SPRITE_SWAP, System.nanoTime() - spriteStart);
     }
 
-    private void stateImageUpdate() {
-        int imageResource = 0;
-        switch(currentState) {
-            case IDLE_LEFT: imageResource = PetData.idleLeft; break;
-            case IDLE_RIGHT: imageResource = PetData.idleRight; break;
-            case FALLING_VERTICAL: imageResource = PetData.fallVertical; break;
-            case FALLING_LEFT: imageResource = PetData.fallHorizontalLeft; break;
-            case FALLING_RIGHT: imageResource = PetData.fallHorizontalRight; break;
-            case SMACK_LEFT: imageResource = PetData.wallSmackLeft; break;
-            case SMACK_RIGHT: imageResource = PetData.wallSmackRight; break;
-        }
-        if (imageResource != 0) {
-            petImageView.setImageResource(imageResource);
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (spriteCache != null && spriteCache.trim(level) > 0 && flockView != null) {
+            flockView.invalidate();
         }
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        handler.removeCallbacks(updateRunnable);
+        unregisterReceiver(powerReceiver);
+        activeScheduler = null;
+        stopFrameLoop();
+        choreographer.removeFrameCallback(relayoutCallback);
+        spriteCache.releaseFrames();
+        if (perfHud != null) {
+            perfHud.hide();
+            PerfHud.dump(this, latencyStats);
+        }
         if (sensorManager != null) {
+            stationaryController.stop();
             sensorManager.unregisterListener(this);
         }
+        sensorMode = StationaryController.Mode.STOPPED;
+        PetData.flush();
         if (overlayView != null) {
             windowManager.removeView(overlayView);
         }
+        if (flockView != null) {
+            windowManager.removeView(flockView);
+        }
     }
 
     @Override
@@ -0,0 +1,112 @@
+package com.example.pocketpetv2;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.graphics.PixelFormat;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Gravity;
+import android.view.LayoutInflater;
+import android.view.WindowManager;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Debug-only overlay window showing the LatencyStats table, refreshed twice a second. Tapping it
+ * dumps the table to a file in app storage. It is a window of its own so its size changes never
+ * relayout the pet's window or change the pet's physics bounds.
+ */
+public class PerfHud {
+
+    private static final String TAG = "PerfHud";
+    private static final long REFRESH_MILLIS = 500;
+    private static final String DIR = "perf";
+
+    private final Context context;
+    private final WindowManager windowManager;
+    private final LatencyStats stats;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final StringBuilder text = new StringBuilder(512);
+    private TextView view;
+
+    public PerfHud(Context context, WindowManager windowManager, LatencyStats stats) {
+        this.context = context;
+        this.windowManager = windowManager;
+        this.stats = stats;
+    }
+
+    /** Only debuggable builds get the HUD. */
+    public static boolean isEnabled(Context context) {
+        return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    public void show() {
+        if (view != null) return;
+
+        view = (TextView) LayoutInflater.from(context).inflate(R.layout.perf_hud, null);
+        view.setOnClickListener(v -> {
+            File file = dump(context, stats);
+            if (file != null) {
+                Toast.makeText(context, file.getName(), Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        int layoutFlag = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
+                : WindowManager.LayoutParams.TYPE_PHONE;
+        WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.WRAP_CONTENT,
+                WindowManager.LayoutParams.WRAP_CONTENT,
+                layoutFlag,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,
+                PixelFormat.TRANSLUCENT);
+        params.gravity = Gravity.TOP | Gravity.START;
+        windowManager.addView(view, params);
+        handler.post(refresh);
+    }
+
+    public void hide() {
+        handler.removeCallbacks(refresh);
+        if (view != null) {
+            windowManager.removeView(view);
+            view = null;
+        }
+    }
+
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            text.setLength(0);
+            stats.format(text);
+            text.setLength(text.length() - 1); // trailing newline
+            view.setText(text);
+            handler.postDelayed(this, REFRESH_MILLIS);
+        }
+    };
+
+    /**
+     * Writes stats to files/perf/latency-&lt;time&gt;.txt. Returns the file, or null on failure.
+     */
+    public static File dump(Context context, LatencyStats stats) {
+        File dir = new File(context.getFilesDir(), DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Can't create " + dir);
+            return null;
+        }
+        File file = new File(dir, "latency-" + System.currentTimeMillis() + ".txt");
+        try (Writer out = new FileWriter(file)) {
+            stats.dump(out);
+            return file;
+        } catch (IOException e) {
+            Log.w(TAG, "Can't write " + file, e);
+            return null;
+        }
+    }
+}
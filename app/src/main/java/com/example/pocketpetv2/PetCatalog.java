@@ -0,0 +1,261 @@
+package com.example.pocketpetv2;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Every pet type the app knows, read once from the {@value #ASSET_NAME} manifest in assets, so
+ * adding a pet is a manifest entry plus its drawables and no Java. Lookup by id is a hash map
+ * hit; sprite resource ids are resolved per pet on first use (see PetType). Immutable after
+ * {@link #parse}, so any thread may read it.
+ *
+ * The manifest is one section per pet, in the order the customize screen lists them. The first
+ * pet is the default:
+ * <pre>
+ * [gator]
+ * name = Gator
+ * preview = gator_idle_left
+ * damping = 0.92
+ * acceleration_scale = 2.5
+ * IDLE_LEFT = gator_idle_left
+ * FALLING_VERTICAL = gator_fall_vertical 240, gator_fall_horizontal_left 100
+ * ... one line per PetState ...
+ * </pre>
+ * A state is one sprite, or an animation: comma separated frames, each a drawable name and how
+ * many milliseconds it shows ({@value #DEFAULT_FRAME_MILLIS} if left out). The first frame is the
+ * state's sprite. preview defaults to the IDLE_LEFT sprite, and the physics values to
+ * PetPhysics's defaults. Blank lines and lines starting with # are ignored.
+ *
+ * {@link #withPacks} adds the pets of imported PetPacks after the built-in ones. Built-in ids
+ * win; a pack pet is looked up in the pack index only when no built-in pet has its id.
+ */
+public class PetCatalog {
+
+    public static final String ASSET_NAME = "pets.manifest";
+    /** How long an animation frame shows when the manifest doesn't say. */
+    public static final int DEFAULT_FRAME_MILLIS = 120;
+    /** Most frames one state's animation may have. */
+    public static final int MAX_FRAMES = 32;
+
+    /** Turns a drawable name into a resource id, or 0 if there is none. */
+    public interface Resolver {
+        int drawable(String name);
+    }
+
+    private static final PetState[] STATES = PetState.values();
+
+    private final List<PetType> types;
+    private final HashMap<String, Integer> indexById;
+    private final PetPacks packs;
+
+    private PetCatalog(List<PetType> types) {
+        this.types = Collections.unmodifiableList(types);
+        indexById = new HashMap<>(types.size() * 2);
+        for (int i = 0; i < types.size(); i++) {
+            indexById.put(types.get(i).getId(), i);
+        }
+        packs = null;
+    }
+
+    private PetCatalog(PetCatalog builtIn, PetPacks packs) {
+        types = builtIn.types;
+        indexById = builtIn.indexById;
+        this.packs = packs;
+    }
+
+    /**
+     * Reads a manifest. Throws IllegalArgumentException, naming the line, for anything malformed
+     * or incomplete, and if there is no pet at all.
+     */
+    public static PetCatalog parse(Reader manifest, Resolver resolver) throws IOException {
+        BufferedReader reader = new BufferedReader(manifest);
+        List<PetType> types = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        Section section = null;
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            if (line.startsWith("[")) {
+                if (!line.endsWith("]") || line.length() < 3) {
+                    throw error(lineNumber, "bad section header " + line);
+                }
+                if (section != null) {
+                    types.add(section.build(resolver));
+                }
+                String id = line.substring(1, line.length() - 1).trim();
+                if (!seen.add(id)) {
+                    throw error(lineNumber, "pet " + id + " is listed twice");
+                }
+                section = new Section(id, lineNumber);
+                continue;
+            }
+
+            int equals = line.indexOf('=');
+            if (equals <= 0 || section == null) {
+                throw error(lineNumber, "expected [pet] or key = value, got " + line);
+            }
+            String key = line.substring(0, equals).trim();
+            String value = line.substring(equals + 1).trim();
+            section.set(key, value, lineNumber);
+        }
+        if (section != null) {
+            types.add(section.build(resolver));
+        }
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("Pet manifest lists no pets");
+        }
+        return new PetCatalog(types);
+    }
+
+    /**
+     * This catalog's pets followed by those in packs. Pets imported into packs later show up
+     * without building a new catalog.
+     */
+    public PetCatalog withPacks(PetPacks packs) {
+        return new PetCatalog(this, packs);
+    }
+
+    /** The pet with this id, or the default pet if the id is unknown (e.g. a removed pet). */
+    public PetType get(String id) {
+        PetType type = find(id);
+        return type != null ? type : types.get(0);
+    }
+
+    /** The pet with this id, or null. */
+    public PetType find(String id) {
+        Integer index = id != null ? indexById.get(id) : null;
+        if (index != null) return types.get(index);
+        return packs != null && id != null ? packs.find(id) : null;
+    }
+
+    /** Position of id in {@link #getTypes}, or -1. */
+    public int indexOf(String id) {
+        Integer index = id != null ? indexById.get(id) : null;
+        if (index != null) return index;
+        int packIndex = packs != null && id != null ? packs.indexOf(id) : -1;
+        return packIndex >= 0 ? types.size() + packIndex : -1;
+    }
+
+    public PetType getDefault() {
+        return types.get(0);
+    }
+
+    /**
+     * Every pet, in manifest order, then pack pets in import order. Lists the packs as they are
+     * now; call again after an import.
+     */
+    public List<PetType> getTypes() {
+        if (packs == null || packs.size() == 0) return types;
+        List<PetType> all = new ArrayList<>(types.size() + packs.size());
+        all.addAll(types);
+        for (int i = 0; i < packs.size(); i++) {
+            all.add(packs.getType(i));
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    private static IllegalArgumentException error(int lineNumber, String message) {
+        return new IllegalArgumentException("Pet manifest line " + lineNumber + ": " + message);
+    }
+
+    /** One [pet] section while it is being read. */
+    private static class Section {
+        final String id;
+        final int lineNumber;
+        String name;
+        String preview;
+        float damping = PetPhysics.DEFAULT_DAMPING;
+        float accelerationScale = PetPhysics.DEFAULT_ACCELERATION_SCALE;
+        final String[][] frames = new String[STATES.length][];
+        final int[][] frameMillis = new int[STATES.length][];
+
+        Section(String id, int lineNumber) {
+            this.id = id;
+            this.lineNumber = lineNumber;
+        }
+
+        void set(String key, String value, int line) {
+            switch (key) {
+                case "name":
+                    name = value;
+                    return;
+                case "preview":
+                    preview = value;
+                    return;
+                case "damping":
+                    damping = parseFloat(value, line);
+                    return;
+                case "acceleration_scale":
+                    accelerationScale = parseFloat(value, line);
+                    return;
+                default:
+                    for (PetState state : STATES) {
+                        if (state.name().equals(key)) {
+                            setFrames(state.ordinal(), value, line);
+                            return;
+                        }
+                    }
+                    throw error(line, "unknown key " + key);
+            }
+        }
+
+        /** Reads "name [millis], name [millis], ..." into state's frames. */
+        private void setFrames(int state, String value, int line) {
+            String[] parts = value.split(",", -1);
+            if (parts.length > MAX_FRAMES) {
+                throw error(line, "more than " + MAX_FRAMES + " frames");
+            }
+            String[] names = new String[parts.length];
+            int[] millis = new int[parts.length];
+            for (int f = 0; f < parts.length; f++) {
+                String[] words = parts[f].trim().split("\\s+");
+                if (words[0].isEmpty() || words.length > 2) {
+                    throw error(line, "expected a drawable name and optional milliseconds, got " + parts[f].trim());
+                }
+                names[f] = words[0];
+                millis[f] = words.length == 2 ? parseMillis(words[1], line) : DEFAULT_FRAME_MILLIS;
+            }
+            frames[state] = names;
+            frameMillis[state] = millis;
+        }
+
+        PetType build(Resolver resolver) {
+            for (PetState state : STATES) {
+                if (frames[state.ordinal()] == null) {
+                    throw error(lineNumber, "pet " + id + " has no " + state + " sprite");
+                }
+            }
+            String previewName = preview != null ? preview : frames[PetState.IDLE_LEFT.ordinal()][0];
+            return new PetType(id, name != null ? name : id, frames, frameMillis, previewName,
+                    damping, accelerationScale, resolver);
+        }
+
+        private static int parseMillis(String value, int line) {
+            try {
+                int millis = Integer.parseInt(value);
+                if (millis > 0) return millis;
+            } catch (NumberFormatException e) {
+                // Reported below.
+            }
+            throw error(line, "not a frame duration in milliseconds: " + value);
+        }
+
+        private static float parseFloat(String value, int line) {
+            try {
+                return Float.parseFloat(value);
+            } catch (NumberFormatException e) {
+                throw error(line, "not a number: " + value);
+            }
+        }
+    }
+}
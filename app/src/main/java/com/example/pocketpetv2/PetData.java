@@ -2,135 +2,213 @@ package com.example.pocketpetv2;
 
 import android.content.Context;
 import android.content.SharedPreferences;
-
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Static entry point for the pet. The state itself lives in a PetStore as an immutable
+ * PetSnapshot, so the UI, the overlay and WorkManager threads can all read it without locks and
+ * every change goes through one serialized writer. Persistence follows the store via PetRepository.
+ */
 public class PetData {
 
-    public static String name;
-    public static int idleLeft;
-    public static int idleRight;
-    public static int fallVertical;
-    public static int fallHorizontalLeft;
-    public static int fallHorizontalRight;
-    public static int wallSmackLeft;
-    public static int wallSmackRight;
-    public static int currentHunger;
-    public static final int maxHunger = 720;
+    public static final int maxHunger = HungerModel.MAX_HUNGER;
 
     private static final String PREFS_NAME = "PetPrefs";
     private static final String PET_NAME_KEY = "petName";
     private static final String PET_TYPE_KEY = "petType";
     private static final String CURRENT_HUNGER_KEY = "currentHunger";
     private static final String LAST_UPDATED_KEY = "lastUpdatedTime";
+    private static final String LEGACY_HUNGER_WORK = "HungerWorker";
+    private static final String STARVING_CHECK_WORK = "StarvingCheck";
+    private static final String PACKS_DIR = "pet_packs";
+    private static Context appContext;
     private static SharedPreferences sharedPreferences;
-
-    public static void init(Context context) {
-        if (sharedPreferences == null) {
+    private static PetRepository repository;
+    private static volatile PetPacks packs;
+    private static volatile PetCatalog catalog;
+    private static volatile PetStore store;
+
+    public static synchronized void init(Context context) {
+        if (store == null) {
+            appContext = context.getApplicationContext();
+            // Maps the pack index only; pack zips are opened when one of their pets is drawn.
+            packs = PetPacks.open(new File(appContext.getFilesDir(), PACKS_DIR));
+            catalog = loadCatalog(appContext).withPacks(packs);
             sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
 
-            name = sharedPreferences.getString(PET_NAME_KEY, "Pet");
-            String petType = sharedPreferences.getString(PET_TYPE_KEY, "gator");
-            setPetType(petType);
+            long now = System.currentTimeMillis();
+            repository = new PetRepository(PetData::writePrefs, mainThreadScheduler(),
+                    PetRepository.DEFAULT_COALESCE_MILLIS,
+                    sharedPreferences.getString(PET_NAME_KEY, "Pet"),
+                    sharedPreferences.getString(PET_TYPE_KEY, catalog.getDefault().getId()),
+                    sharedPreferences.getInt(CURRENT_HUNGER_KEY, maxHunger),
+                    sharedPreferences.getLong(LAST_UPDATED_KEY, now));
+
+            // A pet removed from the catalog falls back to the default one.
+            PetType petType = catalog.get(repository.getPetType());
+            PetSnapshot initial = new PetSnapshot(repository.getName(), petType.getId(), petType.getSprites(), 0,
+                    repository.getHunger(), repository.getLastUpdatedMillis());
+            store = new PetStore(initial, PetData::persist);
+
+            // Hunger is now computed on demand; the old 15 minute job only cost wakeups.
+            WorkManager.getInstance(appContext).cancelUniqueWork(LEGACY_HUNGER_WORK);
+            scheduleStarvingCheck(ExistingWorkPolicy.KEEP);
+        }
+    }
 
-            calculateOfflineHungerLoss();
+    /**
+     * Reads the pet manifest from assets. Only parses text; drawable ids are looked up per pet
+     * when it is first shown.
+     */
+    private static PetCatalog loadCatalog(Context context) {
+        String packageName = context.getPackageName();
+        PetCatalog.Resolver resolver = name -> context.getResources().getIdentifier(name, "drawable", packageName);
+        try (Reader reader = new InputStreamReader(context.getAssets().open(PetCatalog.ASSET_NAME),
+                StandardCharsets.UTF_8)) {
+            return PetCatalog.parse(reader, resolver);
+        } catch (IOException e) {
+            throw new IllegalStateException("Pet manifest missing from assets", e);
         }
     }
 
-    private static void calculateOfflineHungerLoss() {
-        long lastUpdatedTime = sharedPreferences.getLong(LAST_UPDATED_KEY, System.currentTimeMillis());
-        long currentTime = System.currentTimeMillis();
-        long timeElapsedMillis = currentTime - lastUpdatedTime;
-        int minutesElapsed = (int) (timeElapsedMillis / (1000 * 60));
+    /**
+     * Every pet type, from the manifest and imported packs. Available once {@link #init} has run.
+     */
+    public static PetCatalog getCatalog() {
+        return catalog;
+    }
 
-        int savedHunger = sharedPreferences.getInt(CURRENT_HUNGER_KEY, maxHunger);
+    /**
+     * The imported pet packs, for importing more and for decoding pack sprites.
+     */
+    public static PetPacks getPacks() {
+        return packs;
+    }
+
+    /**
+     * True once {@link #init} has finished on any thread. Startup runs init off the main thread,
+     * so the UI checks this before its first read.
+     */
+    public static boolean isInitialized() {
+        return store != null;
+    }
 
-        savedHunger = maxHunger / 2;
+    /**
+     * The current pet state. Lock-free; safe to call every frame from any thread.
+     */
+    public static PetSnapshot snapshot() {
+        return store.get();
+    }
 
-        if (minutesElapsed > 0) {
-            currentHunger = Math.max(0, savedHunger - minutesElapsed);
-        } else {
-            currentHunger = savedHunger;
+    /**
+     * Writes any changes still waiting in the coalescing window. Called from onPause/onDestroy.
+     */
+    public static void flush() {
+        if (store != null) {
+            repository.flush();
         }
+    }
+
+    private static void persist(PetSnapshot previous, PetSnapshot next) {
+        repository.setName(next.getName());
+        repository.setPetType(next.getPetType());
+        repository.setHunger(next.getStoredHunger(), next.getHungerUpdatedMillis());
+    }
 
+    private static void writePrefs(int fields, String name, String petType, int hunger, long lastUpdatedMillis) {
         SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putInt(CURRENT_HUNGER_KEY, currentHunger);
-        editor.putLong(LAST_UPDATED_KEY, currentTime);
+        if ((fields & PetRepository.FIELD_NAME) != 0) editor.putString(PET_NAME_KEY, name);
+        if ((fields & PetRepository.FIELD_PET_TYPE) != 0) editor.putString(PET_TYPE_KEY, petType);
+        if ((fields & PetRepository.FIELD_HUNGER) != 0) editor.putInt(CURRENT_HUNGER_KEY, hunger);
+        if ((fields & PetRepository.FIELD_LAST_UPDATED) != 0) editor.putLong(LAST_UPDATED_KEY, lastUpdatedMillis);
         editor.apply();
+
+        if ((fields & (PetRepository.FIELD_HUNGER | PetRepository.FIELD_LAST_UPDATED)) != 0) {
+            scheduleStarvingCheck(ExistingWorkPolicy.REPLACE);
+        }
+    }
+
+    /**
+     * Keeps exactly one one-shot job queued for the moment the pet will become starving.
+     */
+    private static void scheduleStarvingCheck(ExistingWorkPolicy policy) {
+        WorkManager workManager = WorkManager.getInstance(appContext);
+        PetSnapshot pet = store.get();
+        long delay = HungerModel.millisUntil(pet.getStoredHunger(), pet.getHungerUpdatedMillis(),
+                HungerModel.STARVING_THRESHOLD, System.currentTimeMillis());
+        if (delay <= 0) {
+            workManager.cancelUniqueWork(STARVING_CHECK_WORK);
+            return;
+        }
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(HungerWorker.class)
+                .setInitialDelay(delay, TimeUnit.MILLISECONDS)
+                .build();
+        workManager.enqueueUniqueWork(STARVING_CHECK_WORK, policy, request);
+    }
+
+    private static PetRepository.Scheduler mainThreadScheduler() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        return new PetRepository.Scheduler() {
+            @Override
+            public void schedule(Runnable task, long delayMillis) {
+                handler.postDelayed(task, delayMillis);
+            }
+
+            @Override
+            public void cancel(Runnable task) {
+                handler.removeCallbacks(task);
+            }
+        };
+    }
+
+    public static int getCurrentHunger() {
+        return store.get().hungerAt(System.currentTimeMillis());
     }
 
     public static void feedPet(int amount) {
-        currentHunger = Math.min(maxHunger, currentHunger + amount);
-        saveHungerState();
+        long now = System.currentTimeMillis();
+        store.update(pet -> pet.fed(amount, now));
     }
 
     public static int getHungerPercentage() {
         if (maxHunger <= 0) return 0;
-        return (int) (((float) currentHunger / maxHunger) * 100);
-    }
-
-    private static void saveHungerState() {
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putInt(CURRENT_HUNGER_KEY, currentHunger);
-        editor.putLong(LAST_UPDATED_KEY, System.currentTimeMillis());
-        editor.apply();
+        return (int) (((float) getCurrentHunger() / maxHunger) * 100);
     }
 
     public static void setPetName(String newName) {
-        name = newName;
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putString(PET_NAME_KEY, newName);
-        editor.apply();
+        store.update(pet -> newName.equals(pet.getName()) ? pet : pet.withName(newName));
     }
 
     public static String getPetName() {
-        return name;
+        return store.get().getName();
     }
 
     public static String getPetType() {
-        return sharedPreferences.getString(PET_TYPE_KEY, "gator");
+        return store.get().getPetType();
     }
 
     public static void setPetType(String petType) {
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putString(PET_TYPE_KEY, petType);
-        editor.apply();
+        PetType type = catalog.get(petType);
+        store.update(pet -> type.getId().equals(pet.getPetType()) ? pet : pet.withPetType(type.getId(), type.getSprites()));
+    }
 
-        switch (petType) {
-            case "gator":
-                idleLeft = R.drawable.gator_idle_left;
-                idleRight = R.drawable.gator_idle_right;
-                fallVertical = R.drawable.gator_fall_vertical;
-                fallHorizontalLeft = R.drawable.gator_fall_horizontal_left;
-                fallHorizontalRight = R.drawable.gator_fall_horizontal_right;
-                wallSmackLeft = R.drawable.gator_wallsmack_left;
-                wallSmackRight = R.drawable.gator_wallsmack_right;
-                break;
-            case "cat":
-                idleLeft = R.drawable.cat_idle_left;
-                idleRight = R.drawable.cat_idle_right;
-                fallVertical = R.drawable.cat_falling_vertical;
-                fallHorizontalLeft = R.drawable.cat_falling_left;
-                fallHorizontalRight = R.drawable.cat_falling_right;
-                wallSmackLeft = R.drawable.cat_smack_left;
-                wallSmackRight = R.drawable.cat_smack_right;
-                break;
-            case "penguin":
-                idleLeft = R.drawable.peng_idle_left;
-                idleRight = R.drawable.peng_idle_right;
-                fallVertical = R.drawable.peng_falling_vertical;
-                fallHorizontalLeft = R.drawable.peng_falling_left;
-                fallHorizontalRight = R.drawable.peng_falling_right;
-                wallSmackLeft = R.drawable.peng_smack_left;
-                wallSmackRight = R.drawable.peng_smack_right;
-                break;
-            default:
-                idleLeft = R.drawable.gator_idle_left;
-                idleRight = R.drawable.gator_idle_right;
-                fallVertical = R.drawable.gator_fall_vertical;
-                fallHorizontalLeft = R.drawable.gator_fall_horizontal_left;
-                fallHorizontalRight = R.drawable.gator_fall_horizontal_right;
-                wallSmackLeft = R.drawable.gator_wallsmack_left;
-                wallSmackRight = R.drawable.gator_wallsmack_right;
-                break;
-        }
+    public static int getSpriteVersion() {
+        return store.get().getSpriteVersion();
+    }
+
+    public static int getSpriteResource(PetState state) {
+        return store.get().getSpriteResource(state);
     }
 }
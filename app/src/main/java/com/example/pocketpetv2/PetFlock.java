@@ -0,0 +1,397 @@
+package com.example.pocketpetv2;
+
+/**
+ * Several pets sharing one accelerometer, stored as parallel primitive arrays (structure of
+ * arrays) so one loop steps them all without allocating. Each pet is integrated, clamped and
+ * judged at rest by PetPhysics' own static helpers, so one pet behaves exactly like a
+ * PetPhysics. On top of that pets are squares one pet wide that bump into each other: a
+ * UniformGrid finds nearby pairs and overlaps are pushed apart along the axis they met on. A pet
+ * resting on another counts as grounded. This is meant for a handful of pets, not piles: deep
+ * crowds can be left slightly overlapping, and a pet moving more than its own size per step can
+ * pass through another. Not thread safe; step and read on one thread.
+ */
+public class PetFlock implements UniformGrid.PairVisitor {
+
+    /** Bounciness of pet-on-pet hits. Slow contacts use 0 so stacked pets can come to rest. */
+    public static final float DEFAULT_RESTITUTION = 0.5f;
+    /** Closing speed (px per step) below which a contact is treated as resting. */
+    public static final float RESTING_CONTACT_SPEED = 30f;
+
+    /** Passes over the nearby pairs per step, so a stack a few pets high settles in one step. */
+    public static final int SOLVER_PASSES = 3;
+
+    private static final PetState[] STATES = PetState.values();
+
+    private float damping;
+    private float accelerationScale;
+    private final float size;
+    private final float restitution;
+    private final int capacity;
+
+    private final float[] x, y;
+    // Positions before the last step, for drawing between steps.
+    private final float[] previousX, previousY;
+    private final float[] velocityX, velocityY;
+    private final byte[] state;
+    private final boolean[] lastIdleRight;
+    private final boolean[] pinned;
+    private final boolean[] supported;
+    private final boolean[] wasSupported;
+    private int count;
+
+    private float inputX, inputY;
+    private float minX, minY, maxX, maxY;
+    private final UniformGrid grid = new UniformGrid();
+    private long contacts;
+
+    public PetFlock(int capacity, float size) {
+        this(capacity, size, PetPhysics.DEFAULT_DAMPING, PetPhysics.DEFAULT_ACCELERATION_SCALE,
+                DEFAULT_RESTITUTION);
+    }
+
+    public PetFlock(int capacity, float size, float damping, float accelerationScale,
+            float restitution) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.capacity = capacity;
+        this.size = size;
+        this.damping = damping;
+        this.accelerationScale = accelerationScale;
+        this.restitution = restitution;
+        x = new float[capacity];
+        y = new float[capacity];
+        previousX = new float[capacity];
+        previousY = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        state = new byte[capacity];
+        lastIdleRight = new boolean[capacity];
+        pinned = new boolean[capacity];
+        supported = new boolean[capacity];
+        wasSupported = new boolean[capacity];
+        grid.configure(0, 0, 0, 0, size, capacity);
+    }
+
+    /**
+     * Adds a resting, idle pet at the given position (clamped) and returns its index.
+     */
+    public int add(float petX, float petY) {
+        if (count == capacity) {
+            throw new IllegalStateException("flock is full (" + capacity + ")");
+        }
+        int i = count++;
+        x[i] = petX;
+        y[i] = petY;
+        velocityX[i] = 0;
+        velocityY[i] = 0;
+        state[i] = (byte) PetState.IDLE_LEFT.ordinal();
+        lastIdleRight[i] = false;
+        pinned[i] = false;
+        supported[i] = false;
+        wasSupported[i] = false;
+        clamp(i);
+        previousX[i] = x[i];
+        previousY[i] = y[i];
+        return i;
+    }
+
+    /**
+     * Removes pet index by moving the last pet into its slot, so indices above it don't shift but
+     * the last pet's index changes to index.
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        int last = --count;
+        x[index] = x[last];
+        y[index] = y[last];
+        previousX[index] = previousX[last];
+        previousY[index] = previousY[last];
+        velocityX[index] = velocityX[last];
+        velocityY[index] = velocityY[last];
+        state[index] = state[last];
+        lastIdleRight[index] = lastIdleRight[last];
+        pinned[index] = pinned[last];
+        supported[index] = supported[last];
+        wasSupported[index] = wasSupported[last];
+    }
+
+    /**
+     * Sets the area every pet may move in. Max values are already reduced by the pet's size.
+     */
+    public void setBounds(float minX, float minY, float maxX, float maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = Math.max(minX, maxX);
+        this.maxY = Math.max(minY, maxY);
+        grid.configure(this.minX, this.minY, this.maxX, this.maxY, size, capacity);
+        for (int i = 0; i < count; i++) {
+            clamp(i);
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+        }
+    }
+
+    /** Like PetPhysics.setTuning, for every pet. */
+    public void setTuning(float damping, float accelerationScale) {
+        this.damping = damping;
+        this.accelerationScale = accelerationScale;
+    }
+
+    /** Latest accelerometer sample in screen orientation, used by every pet from the next step. */
+    public void setInput(float accelX, float accelY) {
+        inputX = accelX;
+        inputY = accelY;
+    }
+
+    /** Moves a pet without interpolating the move. */
+    public void setPosition(int index, float petX, float petY) {
+        checkIndex(index);
+        x[index] = petX;
+        y[index] = petY;
+        clamp(index);
+        previousX[index] = x[index];
+        previousY[index] = y[index];
+    }
+
+    /**
+     * Moves every pet to where it was last drawn, alpha of the way through the last step, and
+     * drops the interpolation. For when the clock is about to be reset (which draws at alpha 0):
+     * the next frame then starts exactly where the last one ended. Velocities are kept.
+     */
+    public void holdAt(float alpha) {
+        for (int i = 0; i < count; i++) {
+            x[i] = getInterpolatedX(i, alpha);
+            y[i] = getInterpolatedY(i, alpha);
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+        }
+    }
+
+    public void stop(int index) {
+        checkIndex(index);
+        velocityX[index] = 0;
+        velocityY[index] = 0;
+    }
+
+    /**
+     * A pinned pet (one being dragged) doesn't move by itself but others still bump into it.
+     */
+    public void setPinned(int index, boolean isPinned) {
+        checkIndex(index);
+        pinned[index] = isPinned;
+    }
+
+    /**
+     * One fixed step for every pet: integrate, clamp to the bounds, then push apart overlapping
+     * pets.
+     */
+    public void step() {
+        float pushX = inputX * accelerationScale;
+        float pushY = inputY * accelerationScale;
+        for (int i = 0; i < count; i++) {
+            wasSupported[i] = supported[i];
+            supported[i] = false;
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+            if (pinned[i]) continue;
+            PetPhysics.accelerate(velocityX, velocityY, i, pushX, pushY, damping);
+            PetPhysics.move(x, y, velocityX, velocityY, i, minX, minY, maxX, maxY);
+        }
+
+        if (count > 1) {
+            grid.build(x, y, count);
+            for (int pass = 0; pass < SOLVER_PASSES; pass++) {
+                grid.forEachNearbyPair(this);
+            }
+        }
+    }
+
+    /**
+     * Advances every pet's PetStateMachine state from its contacts and velocity.
+     */
+    public void updateStates() {
+        for (int i = 0; i < count; i++) {
+            int current = state[i];
+            if (current == PetState.IDLE_LEFT.ordinal()) {
+                lastIdleRight[i] = false;
+            } else if (current == PetState.IDLE_RIGHT.ordinal()) {
+                lastIdleRight[i] = true;
+            }
+            int flags = PetStateMachine.flags(isOnLeftWall(i), isOnRightWall(i), isGrounded(i),
+                    velocityX[i], velocityY[i]);
+            state[i] = (byte) PetStateMachine.next(current, lastIdleRight[i], flags);
+        }
+    }
+
+    /** Narrow phase, called by the grid for each nearby pair. */
+    @Override
+    public void visit(int a, int b) {
+        float dx = x[b] - x[a];
+        float dy = y[b] - y[a];
+        float overlapX = size - Math.abs(dx);
+        float overlapY = size - Math.abs(dy);
+        if (overlapX <= 0 || overlapY <= 0) return;
+
+        // Separate along the axis the pair came together on this step, so a fast fall that sinks
+        // more than half a pet deep still lands on top; otherwise along the axis of least overlap.
+        boolean wereApartX = size - Math.abs(dx - (velocityX[b] - velocityX[a])) <= 0;
+        boolean wereApartY = size - Math.abs(dy - (velocityY[b] - velocityY[a])) <= 0;
+        boolean horizontal = wereApartX != wereApartY ? wereApartX : overlapX < overlapY;
+        float nx = 0, ny = 0, depth;
+        if (horizontal) {
+            nx = dx < 0 ? -1 : 1;
+            depth = overlapX;
+        } else {
+            ny = dy < 0 ? -1 : 1;
+            depth = overlapY;
+        }
+
+        // A pinned pet, or one standing on the floor or a pet being pushed down, can't give way.
+        float inverseA = pinned[a] || (ny < 0 && isStanding(a)) ? 0 : 1;
+        float inverseB = pinned[b] || (ny > 0 && isStanding(b)) ? 0 : 1;
+        if (inverseA + inverseB == 0) return;
+        float share = 1f / (inverseA + inverseB);
+
+        float push = depth * share;
+        x[a] -= nx * push * inverseA;
+        y[a] -= ny * push * inverseA;
+        x[b] += nx * push * inverseB;
+        y[b] += ny * push * inverseB;
+
+        // Remove (and partly reflect) the closing velocity.
+        float closing = (velocityX[b] - velocityX[a]) * nx + (velocityY[b] - velocityY[a]) * ny;
+        if (closing < 0) {
+            float bounce = -closing < RESTING_CONTACT_SPEED ? 0 : restitution;
+            float impulse = -(1 + bounce) * closing * share;
+            velocityX[a] -= impulse * nx * inverseA;
+            velocityY[a] -= impulse * ny * inverseA;
+            velocityX[b] += impulse * nx * inverseB;
+            velocityY[b] += impulse * ny * inverseB;
+        }
+
+        // Screen y points down: the upper pet of a vertical contact rests on the lower one.
+        if (ny > 0) {
+            supported[a] = true;
+        } else if (ny < 0) {
+            supported[b] = true;
+        }
+        clamp(a);
+        clamp(b);
+        contacts++;
+    }
+
+    private boolean isStanding(int i) {
+        return wasSupported[i] || isOnGround(i);
+    }
+
+    private void clamp(int i) {
+        PetPhysics.clamp(x, y, velocityX, velocityY, i, minX, minY, maxX, maxY);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("pet " + index + " of " + count);
+        }
+    }
+
+    public boolean isOnLeftWall(int i) {
+        return x[i] <= minX + PetPhysics.CONTACT_TOLERANCE;
+    }
+
+    public boolean isOnRightWall(int i) {
+        return x[i] >= maxX - PetPhysics.CONTACT_TOLERANCE;
+    }
+
+    public boolean isOnGround(int i) {
+        return y[i] >= maxY - PetPhysics.CONTACT_TOLERANCE;
+    }
+
+    /** On the floor or resting on another pet. */
+    public boolean isGrounded(int i) {
+        return supported[i] || isOnGround(i);
+    }
+
+    public boolean isOnCeiling(int i) {
+        return y[i] <= minY + PetPhysics.CONTACT_TOLERANCE;
+    }
+
+    /** PetPhysics' rest rule, with a pet below counting as floor; a pinned pet always counts. */
+    public boolean isAtRest(int i) {
+        if (pinned[i]) {
+            return Math.abs(velocityX[i]) < PetPhysics.REST_VELOCITY_THRESHOLD
+                    && Math.abs(velocityY[i]) < PetPhysics.REST_VELOCITY_THRESHOLD;
+        }
+        return PetPhysics.isAtRest(velocityX[i], velocityY[i],
+                inputX * accelerationScale, inputY * accelerationScale, damping,
+                isOnLeftWall(i), isOnRightWall(i), isOnCeiling(i), isGrounded(i));
+    }
+
+    /**
+     * True when no pet would get moving under the current input, so the host can stop ticking
+     * until a new sample makes this false.
+     */
+    public boolean isAllAtRest() {
+        for (int i = 0; i < count; i++) {
+            if (!isAtRest(i)) return false;
+        }
+        return true;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public float getSize() {
+        return size;
+    }
+
+    public float getX(int i) {
+        return x[i];
+    }
+
+    public float getY(int i) {
+        return y[i];
+    }
+
+    /** Like PetPhysics.getInterpolatedX: pet i alpha of the way through the last step. */
+    public float getInterpolatedX(int i, float alpha) {
+        return previousX[i] + (x[i] - previousX[i]) * alpha;
+    }
+
+    public float getInterpolatedY(int i, float alpha) {
+        return previousY[i] + (y[i] - previousY[i]) * alpha;
+    }
+
+    public float getVelocityX(int i) {
+        return velocityX[i];
+    }
+
+    public float getVelocityY(int i) {
+        return velocityY[i];
+    }
+
+    public PetState getState(int i) {
+        return STATES[state[i]];
+    }
+
+    public float getInputX() {
+        return inputX;
+    }
+
+    public float getInputY() {
+        return inputY;
+    }
+
+    /** Pet-on-pet contacts resolved so far, for tests and diagnostics. */
+    public long getContactCount() {
+        return contacts;
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.pocketpetv2;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * On-disk index of the pets in installed pet packs, so startup never opens a zip. The file is
+ * memory-mapped and read in place: opening it checks the header and that every slot and string
+ * offset lies inside the file, without decoding any string, and finding a pet by id is one probe
+ * into an open-addressing hash table stored in the file, which stays constant time however many
+ * packs are installed. Only listing every pet decodes every record.
+ *
+ * Layout, all big-endian:
+ * <pre>
+ * header   magic, version, record count, slot count              4 ints
+ * slots    record index + 1 per slot, 0 for empty               slot count ints
+ * records  id, name, pack file, 8 entry names (string offsets),
+ *          damping, acceleration scale                          RECORD_BYTES each
+ * strings  unsigned short length + UTF-8 bytes each
+ * </pre>
+ * Entry slots 0 to 6 are the PetState sprites, slot {@link #PREVIEW_SLOT} the preview. Immutable
+ * once opened; safe to read from any thread.
+ */
+public class PetPackIndex {
+
+    public static final int PREVIEW_SLOT = PetState.values().length;
+    public static final int ENTRY_SLOTS = PREVIEW_SLOT + 1;
+
+    private static final int MAGIC = 0x50504931; // "PPI1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = (3 + ENTRY_SLOTS) * 4 + 8;
+
+    /** One pet as written to the index. */
+    public static final class Record {
+        final String id;
+        final String name;
+        final String packFile;
+        final String[] entries;
+        final float damping;
+        final float accelerationScale;
+
+        /**
+         * entries holds the zip entry name of each PetState sprite, then the preview's, and
+         * packFile is the zip's name inside the packs directory.
+         */
+        public Record(String id, String name, String packFile, String[] entries,
+                      float damping, float accelerationScale) {
+            if (entries.length != ENTRY_SLOTS) {
+                throw new IllegalArgumentException("need " + ENTRY_SLOTS + " entries");
+            }
+            this.id = id;
+            this.name = name;
+            this.packFile = packFile;
+            this.entries = entries.clone();
+            this.damping = damping;
+            this.accelerationScale = accelerationScale;
+        }
+    }
+
+    static final PetPackIndex EMPTY = new PetPackIndex(null, 0, 0);
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int slots;
+
+    private PetPackIndex(ByteBuffer buffer, int count, int slots) {
+        this.buffer = buffer;
+        this.count = count;
+        this.slots = slots;
+    }
+
+    /**
+     * Maps the index at file. A missing file is an empty index. A file that is truncated or
+     * corrupt anywhere a later read would go throws IOException, so no lookup can run off the
+     * end of the buffer.
+     */
+    public static PetPackIndex open(File file) throws IOException {
+        if (!file.isFile()) return EMPTY;
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int size = buffer.capacity();
+        if (size < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a pack index");
+        }
+        int count = buffer.getInt(8);
+        int slots = Integer.highestOneBit(Math.max(1, buffer.getInt(12)));
+        long recordsEnd = HEADER_BYTES + 4L * slots + (long) RECORD_BYTES * count;
+        if (count < 0 || slots != buffer.getInt(12) || recordsEnd > size) {
+            throw new IOException(file + " is truncated");
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            int entry = buffer.getInt(HEADER_BYTES + 4 * slot);
+            if (entry < 0 || entry > count) {
+                throw new IOException(file + " has a bad slot " + slot);
+            }
+        }
+        for (int record = 0; record < count; record++) {
+            int at = HEADER_BYTES + 4 * slots + RECORD_BYTES * record;
+            for (int field = 0; field < 3 + ENTRY_SLOTS; field++) {
+                int offset = buffer.getInt(at + 4 * field);
+                if (offset < recordsEnd || offset > size - 2
+                        || offset + 2 + (buffer.getShort(offset) & 0xffff) > size) {
+                    throw new IOException(file + " record " + record + " has a string past the end");
+                }
+            }
+        }
+        return new PetPackIndex(buffer, count, slots);
+    }
+
+    /**
+     * Writes records to file, replacing it atomically (temp file, then rename). Record order is
+     * kept, so record numbers stay stable when records are only ever appended.
+     */
+    public static void write(File file, List<Record> records) throws IOException {
+        int count = records.size();
+        int slots = Integer.highestOneBit(Math.max(1, count * 2 - 1)) << 1;
+        int stringsStart = HEADER_BYTES + 4 * slots + RECORD_BYTES * count;
+
+        int stringBytes = 0;
+        for (Record record : records) {
+            stringBytes += stringBytes(record.id) + stringBytes(record.name) + stringBytes(record.packFile);
+            for (String entry : record.entries) {
+                stringBytes += stringBytes(entry);
+            }
+        }
+        ByteBuffer out = ByteBuffer.allocate(stringsStart + stringBytes);
+        out.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(slots);
+
+        int stringOffset = stringsStart;
+        for (int r = 0; r < count; r++) {
+            Record record = records.get(r);
+            int slot = record.id.hashCode() & (slots - 1);
+            while (out.getInt(HEADER_BYTES + 4 * slot) != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            out.putInt(HEADER_BYTES + 4 * slot, r + 1);
+
+            int at = HEADER_BYTES + 4 * slots + RECORD_BYTES * r;
+            stringOffset = putString(out, at, stringOffset, record.id);
+            stringOffset = putString(out, at + 4, stringOffset, record.name);
+            stringOffset = putString(out, at + 8, stringOffset, record.packFile);
+            for (int e = 0; e < ENTRY_SLOTS; e++) {
+                stringOffset = putString(out, at + 12 + 4 * e, stringOffset, record.entries[e]);
+            }
+            out.putFloat(at + 12 + 4 * ENTRY_SLOTS, record.damping);
+            out.putFloat(at + 16 + 4 * ENTRY_SLOTS, record.accelerationScale);
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        out.position(0);
+        try (FileOutputStream stream = new FileOutputStream(tmp);
+             FileChannel channel = stream.getChannel()) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Record number of the pet with this id, or -1. */
+    public int find(String id) {
+        if (count == 0 || id == null) return -1;
+        int slot = id.hashCode() & (slots - 1);
+        for (int probes = 0; probes < slots; probes++) {
+            int entry = buffer.getInt(HEADER_BYTES + 4 * slot);
+            if (entry == 0) return -1;
+            int record = entry - 1;
+            if (record < count && id.equals(getId(record))) return record;
+            slot = (slot + 1) & (slots - 1);
+        }
+        return -1;
+    }
+
+    public String getId(int record) {
+        return string(record, 0);
+    }
+
+    public String getName(int record) {
+        return string(record, 4);
+    }
+
+    public String getPackFile(int record) {
+        return string(record, 8);
+    }
+
+    /** Zip entry name for a PetState ordinal or {@link #PREVIEW_SLOT}. */
+    public String getEntry(int record, int slot) {
+        return string(record, 12 + 4 * slot);
+    }
+
+    public float getDamping(int record) {
+        return buffer.getFloat(recordStart(record) + 12 + 4 * ENTRY_SLOTS);
+    }
+
+    public float getAccelerationScale(int record) {
+        return buffer.getFloat(recordStart(record) + 16 + 4 * ENTRY_SLOTS);
+    }
+
+    /** The record as written, e.g. to carry it over into a rewritten index. */
+    public Record getRecord(int record) {
+        String[] entries = new String[ENTRY_SLOTS];
+        for (int e = 0; e < ENTRY_SLOTS; e++) {
+            entries[e] = getEntry(record, e);
+        }
+        return new Record(getId(record), getName(record), getPackFile(record), entries,
+                getDamping(record), getAccelerationScale(record));
+    }
+
+    private int recordStart(int record) {
+        if (record < 0 || record >= count) {
+            throw new IndexOutOfBoundsException("record " + record + " of " + count);
+        }
+        return HEADER_BYTES + 4 * slots + RECORD_BYTES * record;
+    }
+
+    // Absolute reads only, so concurrent readers never share a buffer position.
+    private String string(int record, int field) {
+        int offset = buffer.getInt(recordStart(record) + field);
+        int length = buffer.getShort(offset) & 0xffff;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int stringBytes(String value) {
+        int length = value.getBytes(StandardCharsets.UTF_8).length;
+        if (length > 0xffff) {
+            throw new IllegalArgumentException("string too long for the pack index");
+        }
+        return 2 + length;
+    }
+
+    private static int putString(ByteBuffer out, int field, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(field, offset);
+        out.putShort(offset, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            out.put(offset + 2 + i, bytes[i]);
+        }
+        return offset + 2 + bytes.length;
+    }
+}
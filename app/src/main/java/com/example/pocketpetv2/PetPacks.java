@@ -0,0 +1,351 @@
+package com.example.pocketpetv2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Pet packs the user imported: zip files kept as they are in one directory, each holding a
+ * {@value #MANIFEST_ENTRY} in the PetCatalog format, except that sprites and previews name zip
+ * entries instead of drawables. Nothing is unpacked. Importing checks the manifest and every image
+ * once and records each pet in a PetPackIndex; after that, startup only maps the index, and a
+ * pet's images are read straight out of its zip when it is first drawn.
+ *
+ * Pack sprites get negative sprite ids ({@link #isPackSprite}), which can't clash with resource
+ * ids, so they travel through PetSnapshot and SpriteDecoder like drawables do; the decoder opens
+ * them with {@link #openSprite}. A pack's zip stays open while any of its sprites is being read,
+ * and the last few packs read stay open after that, so animating a pack pet doesn't reopen its
+ * zip per frame. Packs are only ever added, so an id stays valid for the life of the process.
+ * A corrupt index reads as no packs; they can be imported again. A pack state that the manifest animates keeps only its first frame. Plain Java;
+ * safe to use from any thread.
+ */
+public class PetPacks {
+
+    public static final String MANIFEST_ENTRY = PetCatalog.ASSET_NAME;
+    static final String INDEX_NAME = "packs.index";
+
+    private static final int MAX_MANIFEST_BYTES = 64 * 1024;
+    private static final int SLOT_BITS = 3;
+    /** Pack zips kept open with no sprite being read from them. */
+    static final int MAX_IDLE_ZIPS = 2;
+    // Pet ids end up in file names (the pack's and SpriteDiskCache's).
+    private static final Pattern PET_ID = Pattern.compile("[a-z0-9_]{1,64}");
+
+    /** Checks that an image can be decoded, e.g. by reading its bounds with BitmapFactory. */
+    public interface ImageCheck {
+        boolean canDecode(InputStream image) throws IOException;
+    }
+
+    /** An open pack zip and how many of its sprite streams are still open. */
+    private static final class OpenZip {
+        final ZipFile zip;
+        int streams;
+
+        OpenZip(ZipFile zip) {
+            this.zip = zip;
+        }
+    }
+
+    private final File dir;
+    private volatile PetPackIndex index;
+    // Guarded by itself. Built per record on first use, like the catalog's own PetTypes.
+    private final HashMap<Integer, PetType> types = new HashMap<>();
+    // Guarded by itself; by pack file name. Access ordered, so idle zips close oldest first.
+    private final LinkedHashMap<String, OpenZip> zips = new LinkedHashMap<>(4, 0.75f, true);
+
+    private PetPacks(File dir) {
+        this.dir = dir;
+        PetPackIndex opened;
+        try {
+            opened = PetPackIndex.open(new File(dir, INDEX_NAME));
+        } catch (IOException e) {
+            opened = PetPackIndex.EMPTY;
+        }
+        index = opened;
+    }
+
+    /**
+     * The packs installed in dir. Only maps the index; no zip is opened.
+     */
+    public static PetPacks open(File dir) {
+        return new PetPacks(dir);
+    }
+
+    /** True for the sprite ids handed out for pack images, false for resource ids. */
+    public static boolean isPackSprite(int spriteId) {
+        return spriteId < 0;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /** The pack pet with this id, or null. */
+    public PetType find(String id) {
+        int record = index.find(id);
+        return record >= 0 ? getType(record) : null;
+    }
+
+    /** Position of id among the pack pets, in import order, or -1. */
+    public int indexOf(String id) {
+        return index.find(id);
+    }
+
+    /** The pack pet at position, in import order. */
+    public PetType getType(int position) {
+        synchronized (types) {
+            PetType type = types.get(position);
+            if (type == null) {
+                type = buildType(index, position);
+                types.put(position, type);
+            }
+            return type;
+        }
+    }
+
+    /**
+     * Opens the image behind a pack sprite id. The caller closes the stream; the zip is shared
+     * and stays open.
+     */
+    public InputStream openSprite(int spriteId) throws IOException {
+        if (!isPackSprite(spriteId)) {
+            throw new IllegalArgumentException("not a pack sprite: " + spriteId);
+        }
+        int record = (spriteId & Integer.MAX_VALUE) >>> SLOT_BITS;
+        int slot = spriteId & ((1 << SLOT_BITS) - 1);
+        PetPackIndex current = index;
+        if (record >= current.size()) {
+            throw new FileNotFoundException("no pack sprite " + spriteId);
+        }
+        String entryName = current.getEntry(record, slot);
+        String packFile = current.getPackFile(record);
+        OpenZip open = acquireZip(packFile);
+        InputStream in;
+        try {
+            ZipEntry entry = open.zip.getEntry(entryName);
+            if (entry == null) {
+                throw new FileNotFoundException(packFile + " has no " + entryName);
+            }
+            in = open.zip.getInputStream(entry);
+        } catch (IOException | RuntimeException e) {
+            releaseZip(open);
+            throw e;
+        }
+        return new FilterInputStream(in) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) return;
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    releaseZip(open);
+                }
+            }
+        };
+    }
+
+    /** Pack zips open right now, whether or not a sprite is being read. For tests. */
+    int getOpenZipCount() {
+        synchronized (zips) {
+            return zips.size();
+        }
+    }
+
+    private OpenZip acquireZip(String packFile) throws IOException {
+        synchronized (zips) {
+            OpenZip open = zips.get(packFile);
+            if (open == null) {
+                open = new OpenZip(new ZipFile(new File(dir, packFile)));
+                zips.put(packFile, open);
+            }
+            open.streams++;
+            return open;
+        }
+    }
+
+    /** Ends one stream's use of its zip and closes idle zips beyond {@link #MAX_IDLE_ZIPS}. */
+    private void releaseZip(OpenZip released) {
+        synchronized (zips) {
+            released.streams--;
+            int idle = 0;
+            for (OpenZip open : zips.values()) {
+                if (open.streams == 0) idle++;
+            }
+            Iterator<OpenZip> iterator = zips.values().iterator();
+            while (idle > MAX_IDLE_ZIPS && iterator.hasNext()) {
+                OpenZip open = iterator.next();
+                if (open.streams > 0) continue;
+                iterator.remove();
+                idle--;
+                try {
+                    open.zip.close();
+                } catch (IOException e) {
+                    // Read only; nothing to lose.
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a pack zip into the packs directory and indexes its pets, which are returned in
+     * manifest order. The manifest is checked first, then every image it names must pass
+     * images; a pack that fails (IllegalArgumentException, naming the problem) or whose pet ids
+     * are already in catalog leaves nothing behind. Runs off the main thread; imports are
+     * serialized.
+     */
+    public synchronized List<PetType> importPack(InputStream in, PetCatalog catalog, ImageCheck images)
+            throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        File tmp = File.createTempFile("import", ".tmp", dir);
+        try {
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            List<PetPackIndex.Record> added = new ArrayList<>();
+            try (ZipFile zip = new ZipFile(tmp)) {
+                PetCatalog manifest = readManifest(zip);
+                String packFile = manifest.getDefault().getId() + ".zip";
+                HashSet<String> seen = new HashSet<>();
+                for (PetType type : manifest.getTypes()) {
+                    String id = type.getId();
+                    if (!PET_ID.matcher(id).matches()) {
+                        throw new IllegalArgumentException("Pet id " + id + " must be lower case letters, digits or _");
+                    }
+                    if (catalog.find(id) != null || index.find(id) >= 0 || !seen.add(id)) {
+                        throw new IllegalArgumentException("Pet " + id + " is already installed");
+                    }
+                    try {
+                        type.getSprites();
+                        type.getPreviewResource();
+                    } catch (IllegalStateException e) {
+                        throw new IllegalArgumentException(e.getMessage(), e);
+                    }
+                    String[] entries = new String[PetPackIndex.ENTRY_SLOTS];
+                    for (PetState state : PetState.values()) {
+                        entries[state.ordinal()] = type.getSpriteName(state);
+                    }
+                    entries[PetPackIndex.PREVIEW_SLOT] = type.getPreviewName();
+                    added.add(new PetPackIndex.Record(id, type.getName(), packFile, entries,
+                            type.getDamping(), type.getAccelerationScale()));
+                }
+                checkImages(zip, added, images);
+                if (new File(dir, packFile).exists()) {
+                    throw new IllegalArgumentException("Pet " + manifest.getDefault().getId() + " is already installed");
+                }
+            }
+
+            File target = new File(dir, added.get(0).packFile);
+            if (!tmp.renameTo(target)) {
+                throw new IOException("Could not move the pack to " + target);
+            }
+            PetPackIndex current = index;
+            List<PetPackIndex.Record> records = new ArrayList<>(current.size() + added.size());
+            for (int r = 0; r < current.size(); r++) {
+                records.add(current.getRecord(r));
+            }
+            records.addAll(added);
+            try {
+                PetPackIndex.write(new File(dir, INDEX_NAME), records);
+            } catch (IOException e) {
+                target.delete();
+                throw e;
+            }
+            index = PetPackIndex.open(new File(dir, INDEX_NAME));
+
+            List<PetType> imported = new ArrayList<>(added.size());
+            for (int r = current.size(); r < records.size(); r++) {
+                imported.add(getType(r));
+            }
+            return imported;
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    /** Reads each named image once, so a corrupt one fails the import instead of the first draw. */
+    private static void checkImages(ZipFile zip, List<PetPackIndex.Record> records, ImageCheck images)
+            throws IOException {
+        HashSet<String> checked = new HashSet<>();
+        for (PetPackIndex.Record record : records) {
+            for (String name : record.entries) {
+                if (!checked.add(name)) continue;
+                boolean ok;
+                try (InputStream image = zip.getInputStream(zip.getEntry(name))) {
+                    ok = images.canDecode(image);
+                }
+                if (!ok) {
+                    throw new IllegalArgumentException("Pet " + record.id + " image " + name + " can't be decoded");
+                }
+            }
+        }
+    }
+
+    private static PetCatalog readManifest(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(MANIFEST_ENTRY);
+        if (entry == null) {
+            throw new IllegalArgumentException("Pet pack has no " + MANIFEST_ENTRY);
+        }
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        try (InputStream in = zip.getInputStream(entry)) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                text.write(buffer, 0, read);
+                if (text.size() > MAX_MANIFEST_BYTES) {
+                    throw new IllegalArgumentException("Pet pack " + MANIFEST_ENTRY + " is too large");
+                }
+            }
+        }
+        // Only used to check that entries exist; the index stores names.
+        PetCatalog.Resolver entries = name -> {
+            ZipEntry image = zip.getEntry(name);
+            return image != null && !image.isDirectory() ? 1 : 0;
+        };
+        return PetCatalog.parse(new StringReader(new String(text.toByteArray(), StandardCharsets.UTF_8)), entries);
+    }
+
+    private static PetType buildType(PetPackIndex index, int record) {
+        String[] sprites = new String[PetState.values().length];
+        for (int s = 0; s < sprites.length; s++) {
+            sprites[s] = index.getEntry(record, s);
+        }
+        // Same entry name, same image: the first slot naming it stands for all of them.
+        PetCatalog.Resolver resolver = name -> {
+            for (int slot = 0; slot < PetPackIndex.ENTRY_SLOTS; slot++) {
+                if (name.equals(index.getEntry(record, slot))) {
+                    return Integer.MIN_VALUE | (record << SLOT_BITS) | slot;
+                }
+            }
+            return 0;
+        };
+        return new PetType(index.getId(record), index.getName(record), sprites,
+                index.getEntry(record, PetPackIndex.PREVIEW_SLOT),
+                index.getDamping(record), index.getAccelerationScale(record), resolver);
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.pocketpetv2;
+
+/**
+ * Gravity and damping integration for a single pet, used by MainActivity. The per-body rules
+ * (integrate, clamp, rest) are static helpers over array slots that PetFlock calls for each of
+ * its pets, so the overlay's flock and this class can't drift apart; here the state is slot 0 of
+ * one-element arrays. Plain Java, so a step never allocates and the whole thing can be unit
+ * tested and benchmarked on the JVM.
+ */
+public class PetPhysics {
+
+    public static final float DEFAULT_DAMPING = 0.92f;
+    public static final float DEFAULT_ACCELERATION_SCALE = 2.5f;
+    public static final float CONTACT_TOLERANCE = 1.0f;
+    /**
+     * Below this speed (px per step) on both axes a pet the input can't speed up past it counts
+     * as resting.
+     */
+    public static final float REST_VELOCITY_THRESHOLD = 0.5f;
+
+    private float damping;
+    private float accelerationScale;
+
+    // Slot 0 holds this pet, so the static helpers below serve it and PetFlock alike.
+    private final float[] x = new float[1], y = new float[1];
+    private final float[] velocityX = new float[1], velocityY = new float[1];
+    // Position before the last integrate(), for drawing between steps.
+    private float previousX, previousY;
+    private float inputX, inputY;
+    private float minX, minY, maxX, maxY;
+
+    public PetPhysics() {
+        this(DEFAULT_DAMPING, DEFAULT_ACCELERATION_SCALE);
+    }
+
+    public PetPhysics(float damping, float accelerationScale) {
+        this.damping = damping;
+        this.accelerationScale = accelerationScale;
+    }
+
+    /**
+     * Changes how the pet responds to tilt, e.g. when the user picks another pet type. Takes
+     * effect from the next step; position and velocity are kept.
+     */
+    public void setTuning(float damping, float accelerationScale) {
+        this.damping = damping;
+        this.accelerationScale = accelerationScale;
+    }
+
+    /**
+     * Sets the area the pet may move in. Max values are already reduced by the pet's own size.
+     */
+    public void setBounds(float minX, float minY, float maxX, float maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = Math.max(minX, maxX);
+        this.maxY = Math.max(minY, maxY);
+        clamp();
+        previousX = x[0];
+        previousY = y[0];
+    }
+
+    /**
+     * Moves the pet to the given position (clamped to the bounds) without touching velocity.
+     * The move is not interpolated.
+     */
+    public void setPosition(float x, float y) {
+        this.x[0] = x;
+        this.y[0] = y;
+        clamp();
+        previousX = this.x[0];
+        previousY = this.y[0];
+    }
+
+    public void stop() {
+        velocityX[0] = 0;
+        velocityY[0] = 0;
+    }
+
+    /**
+     * Stores the latest accelerometer sample, in the same orientation as applyAcceleration().
+     * It is used by every following {@link #step()} until a newer sample arrives.
+     */
+    public void setInput(float accelX, float accelY) {
+        inputX = accelX;
+        inputY = accelY;
+    }
+
+    /**
+     * Feeds one accelerometer sample into the velocity. accelX/accelY are already in screen
+     * orientation (x to the right, y down).
+     */
+    public void applyAcceleration(float accelX, float accelY) {
+        accelerate(velocityX, velocityY, 0,
+                accelX * accelerationScale, accelY * accelerationScale, damping);
+    }
+
+    /**
+     * Advances the position by the current velocity and stops the pet at the bounds.
+     */
+    public void integrate() {
+        previousX = x[0];
+        previousY = y[0];
+        move(x, y, velocityX, velocityY, 0, minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Runs one fixed step using the sample last passed to {@link #setInput(float, float)}.
+     */
+    public void step() {
+        step(inputX, inputY);
+    }
+
+    public void step(float accelX, float accelY) {
+        applyAcceleration(accelX, accelY);
+        integrate();
+    }
+
+    private void clamp() {
+        clamp(x, y, velocityX, velocityY, 0, minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Velocity update for body i: damps it, then adds push (the input times the acceleration
+     * scale, px per step).
+     */
+    static void accelerate(float[] velocityX, float[] velocityY, int i,
+            float pushX, float pushY, float damping) {
+        velocityX[i] = velocityX[i] * damping + pushX;
+        velocityY[i] = velocityY[i] * damping + pushY;
+    }
+
+    /** Moves body i by its velocity and stops it at the bounds. */
+    static void move(float[] x, float[] y, float[] velocityX, float[] velocityY, int i,
+            float minX, float minY, float maxX, float maxY) {
+        x[i] += velocityX[i];
+        y[i] += velocityY[i];
+        clamp(x, y, velocityX, velocityY, i, minX, minY, maxX, maxY);
+    }
+
+    /** Puts body i back inside the bounds, dropping its velocity along any axis it hit. */
+    static void clamp(float[] x, float[] y, float[] velocityX, float[] velocityY, int i,
+            float minX, float minY, float maxX, float maxY) {
+        if (x[i] < minX) {
+            x[i] = minX;
+            velocityX[i] = 0;
+        } else if (x[i] > maxX) {
+            x[i] = maxX;
+            velocityX[i] = 0;
+        }
+
+        if (y[i] < minY) {
+            y[i] = minY;
+            velocityY[i] = 0;
+        } else if (y[i] > maxY) {
+            y[i] = maxY;
+            velocityY[i] = 0;
+        }
+    }
+
+    public boolean isOnLeftWall() {
+        return x[0] <= minX + CONTACT_TOLERANCE;
+    }
+
+    public boolean isOnRightWall() {
+        return x[0] >= maxX - CONTACT_TOLERANCE;
+    }
+
+    public boolean isOnWall() {
+        return isOnLeftWall() || isOnRightWall();
+    }
+
+    public boolean isOnGround() {
+        return y[0] >= maxY - CONTACT_TOLERANCE;
+    }
+
+    public boolean isOnCeiling() {
+        return y[0] <= minY + CONTACT_TOLERANCE;
+    }
+
+    /**
+     * True when the pet is barely moving and the current input can't get it going again, so hosts
+     * can stop ticking until the input changes. That covers lying on the floor, but also being
+     * pressed into a wall or the ceiling, or floating with the phone flat on a desk.
+     */
+    public boolean isAtRest() {
+        return isAtRest(velocityX[0], velocityY[0],
+                inputX * accelerationScale, inputY * accelerationScale, damping,
+                isOnLeftWall(), isOnRightWall(), isOnCeiling(), isOnGround());
+    }
+
+    /**
+     * The rest rule for one body, given its velocity, the push on it (px per step), the damping
+     * and which edges it touches; PetFlock counts a pet standing on another as touching the floor.
+     */
+    static boolean isAtRest(float velocityX, float velocityY, float pushX, float pushY,
+            float damping, boolean onLeft, boolean onRight, boolean onCeiling, boolean onFloor) {
+        return Math.abs(velocityX) < REST_VELOCITY_THRESHOLD
+                && Math.abs(velocityY) < REST_VELOCITY_THRESHOLD
+                && isHeld(pushX, damping, onLeft, onRight)
+                && isHeld(pushY, damping, onCeiling, onFloor);
+    }
+
+    /**
+     * True if a push along one axis (px per step) can't move the pet: held for ever, it would
+     * only build up to push / (1 - damping), which stays under the rest threshold, or it presses
+     * the pet into an edge it already touches. Judging the single step instead would let a slight
+     * tilt count as rest while it still slides the pet several px per step.
+     */
+    private static boolean isHeld(float push, float damping, boolean atMin, boolean atMax) {
+        return Math.abs(push) < REST_VELOCITY_THRESHOLD * (1 - damping)
+                || (push < 0 && atMin) || (push > 0 && atMax);
+    }
+
+    public float getX() {
+        return x[0];
+    }
+
+    public float getY() {
+        return y[0];
+    }
+
+    /**
+     * Where to draw the pet alpha of the way (see FixedStepClock.getAlpha()) from the previous
+     * step's position to the current one. Unrounded, so slow motion still moves a little each frame.
+     */
+    public float getInterpolatedX(float alpha) {
+        return previousX + (x[0] - previousX) * alpha;
+    }
+
+    public float getInterpolatedY(float alpha) {
+        return previousY + (y[0] - previousY) * alpha;
+    }
+
+    public float getVelocityX() {
+        return velocityX[0];
+    }
+
+    public float getVelocityY() {
+        return velocityY[0];
+    }
+
+    public float getInputX() {
+        return inputX;
+    }
+
+    public float getInputY() {
+        return inputY;
+    }
+
+    public float getMinX() {
+        return minX;
+    }
+
+    public float getMinY() {
+        return minY;
+    }
+
+    public float getMaxX() {
+        return maxX;
+    }
+
+    public float getMaxY() {
+        return maxY;
+    }
+}
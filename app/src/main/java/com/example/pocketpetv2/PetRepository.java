@@ -0,0 +1,147 @@
+package com.example.pocketpetv2;
+
+/**
+ * In-memory copy of the persisted pet fields that batches writes. Setters only mark fields dirty
+ * and schedule one flush COALESCE window later, so a burst of feeds or edits becomes a single
+ * write. At flush time only the fields that really differ from what was last written go to storage,
+ * and nothing is written at all if none do. Hosts call {@link #flush()} from onPause/onDestroy.
+ * Plain Java; storage and timing are injected so tests can count writes. Methods are
+ * synchronized because the store's writer and the scheduled flush can run on different threads.
+ */
+public class PetRepository {
+
+    public static final int FIELD_NAME = 1;
+    public static final int FIELD_PET_TYPE = 1 << 1;
+    public static final int FIELD_HUNGER = 1 << 2;
+    public static final int FIELD_LAST_UPDATED = 1 << 3;
+
+    public static final long DEFAULT_COALESCE_MILLIS = 1000;
+
+    public interface Storage {
+        /**
+         * Persists the fields whose bits are set in {@code fields}; the other arguments are ignored.
+         */
+        void write(int fields, String name, String petType, int hunger, long lastUpdatedMillis);
+    }
+
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMillis);
+
+        void cancel(Runnable task);
+    }
+
+    private final Storage storage;
+    private final Scheduler scheduler;
+    private final long coalesceMillis;
+    private final Runnable flushTask = this::flush;
+
+    private String name, petType;
+    private int hunger;
+    private long lastUpdatedMillis;
+
+    private String savedName, savedPetType;
+    private int savedHunger;
+    private long savedLastUpdatedMillis;
+
+    private int dirty;
+    private boolean flushScheduled;
+    private int writeCount;
+
+    public PetRepository(Storage storage, Scheduler scheduler, long coalesceMillis,
+                         String name, String petType, int hunger, long lastUpdatedMillis) {
+        this.storage = storage;
+        this.scheduler = scheduler;
+        this.coalesceMillis = coalesceMillis;
+        this.name = savedName = name;
+        this.petType = savedPetType = petType;
+        this.hunger = savedHunger = hunger;
+        this.lastUpdatedMillis = savedLastUpdatedMillis = lastUpdatedMillis;
+    }
+
+    public synchronized String getName() {
+        return name;
+    }
+
+    public synchronized String getPetType() {
+        return petType;
+    }
+
+    public synchronized int getHunger() {
+        return hunger;
+    }
+
+    public synchronized long getLastUpdatedMillis() {
+        return lastUpdatedMillis;
+    }
+
+    public synchronized void setName(String name) {
+        if (equal(this.name, name)) return;
+        this.name = name;
+        markDirty(FIELD_NAME);
+    }
+
+    public synchronized void setPetType(String petType) {
+        if (equal(this.petType, petType)) return;
+        this.petType = petType;
+        markDirty(FIELD_PET_TYPE);
+    }
+
+    public synchronized void setHunger(int hunger, long lastUpdatedMillis) {
+        if (this.hunger != hunger) {
+            this.hunger = hunger;
+            markDirty(FIELD_HUNGER);
+        }
+        if (this.lastUpdatedMillis != lastUpdatedMillis) {
+            this.lastUpdatedMillis = lastUpdatedMillis;
+            markDirty(FIELD_LAST_UPDATED);
+        }
+    }
+
+    /**
+     * Writes any pending changes now. Safe to call when nothing is pending.
+     */
+    public synchronized void flush() {
+        if (flushScheduled) {
+            scheduler.cancel(flushTask);
+            flushScheduled = false;
+        }
+
+        int fields = 0;
+        if ((dirty & FIELD_NAME) != 0 && !equal(name, savedName)) fields |= FIELD_NAME;
+        if ((dirty & FIELD_PET_TYPE) != 0 && !equal(petType, savedPetType)) fields |= FIELD_PET_TYPE;
+        if ((dirty & FIELD_HUNGER) != 0 && hunger != savedHunger) fields |= FIELD_HUNGER;
+        if ((dirty & FIELD_LAST_UPDATED) != 0 && lastUpdatedMillis != savedLastUpdatedMillis) {
+            fields |= FIELD_LAST_UPDATED;
+        }
+        dirty = 0;
+        if (fields == 0) return;
+
+        storage.write(fields, name, petType, hunger, lastUpdatedMillis);
+        writeCount++;
+        savedName = name;
+        savedPetType = petType;
+        savedHunger = hunger;
+        savedLastUpdatedMillis = lastUpdatedMillis;
+    }
+
+    public synchronized boolean hasPendingChanges() {
+        return dirty != 0;
+    }
+
+    /** Number of storage writes so far, for tests and diagnostics. */
+    public synchronized int getWriteCount() {
+        return writeCount;
+    }
+
+    private void markDirty(int field) {
+        dirty |= field;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(flushTask, coalesceMillis);
+        }
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.pocketpetv2;
+
+/**
+ * Immutable view of everything about the pet that more than one thread reads: name, type, the
+ * sprite resources for that type and the stored hunger pair. Changes produce a new snapshot,
+ * which PetStore publishes atomically.
+ */
+public final class PetSnapshot {
+
+    private final String name;
+    private final String petType;
+    private final int[] spriteResources;
+    private final int spriteVersion;
+    private final int storedHunger;
+    private final long hungerUpdatedMillis;
+
+    public PetSnapshot(String name, String petType, int[] spriteResources, int spriteVersion,
+                       int storedHunger, long hungerUpdatedMillis) {
+        this.name = name;
+        this.petType = petType;
+        this.spriteResources = spriteResources.clone();
+        this.spriteVersion = spriteVersion;
+        this.storedHunger = storedHunger;
+        this.hungerUpdatedMillis = hungerUpdatedMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPetType() {
+        return petType;
+    }
+
+    /** Drawable resource for the given state, indexed by PetState ordinal. */
+    public int getSpriteResource(PetState state) {
+        return spriteResources[state.ordinal()];
+    }
+
+    /** Changes whenever the sprites do, so caches know to reload. */
+    public int getSpriteVersion() {
+        return spriteVersion;
+    }
+
+    public int getStoredHunger() {
+        return storedHunger;
+    }
+
+    public long getHungerUpdatedMillis() {
+        return hungerUpdatedMillis;
+    }
+
+    public int hungerAt(long nowMillis) {
+        return HungerModel.hungerAt(storedHunger, hungerUpdatedMillis, nowMillis);
+    }
+
+    public PetSnapshot withName(String name) {
+        return new PetSnapshot(name, petType, spriteResources, spriteVersion, storedHunger, hungerUpdatedMillis);
+    }
+
+    public PetSnapshot withPetType(String petType, int[] spriteResources) {
+        return new PetSnapshot(name, petType, spriteResources, spriteVersion + 1, storedHunger, hungerUpdatedMillis);
+    }
+
+    public PetSnapshot withHunger(int storedHunger, long hungerUpdatedMillis) {
+        return new PetSnapshot(name, petType, spriteResources, spriteVersion, storedHunger, hungerUpdatedMillis);
+    }
+
+    public PetSnapshot fed(int amount, long nowMillis) {
+        int hunger = Math.min(HungerModel.MAX_HUNGER, hungerAt(nowMillis) + amount);
+        return withHunger(hunger, HungerModel.rebaseTimestamp(storedHunger, hungerUpdatedMillis, nowMillis));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.pocketpetv2;
+
+/**
+ * The poses a pet can be in. Each one maps to one sprite per pet type in the PetCatalog.
+ */
+public enum PetState {
+    IDLE_LEFT, IDLE_RIGHT, FALLING_VERTICAL, FALLING_LEFT,
+    FALLING_RIGHT, SMACK_LEFT, SMACK_RIGHT
+}
@@ -0,0 +1,209 @@
+package com.example.pocketpetv2;
+
+/**
+ * Picks the pet's pose from its contacts and velocity. The contact/velocity checks are packed into
+ * a small bitmask once per tick, and the next state is a single lookup in a table built once from
+ * the transition rules in {@link #decide}.
+ */
+public class PetStateMachine {
+
+    public static final int ON_LEFT_WALL = 1;
+    public static final int ON_RIGHT_WALL = 1 << 1;
+    public static final int ON_GROUND = 1 << 2;
+    /** |velocityY| > |velocityX| */
+    public static final int MOSTLY_VERTICAL = 1 << 3;
+    /** |velocityX| > |velocityY| */
+    public static final int MOSTLY_HORIZONTAL = 1 << 4;
+    public static final int MOVING_RIGHT = 1 << 5;
+    public static final int MOVING_LEFT = 1 << 6;
+    public static final int FLAG_COUNT = 1 << 7;
+
+    private static final PetState[] STATES = PetState.values();
+    private static final int STATE_COUNT = STATES.length;
+
+    // Indexed by (state, whether the last idle pose faced right, flags).
+    private static final byte[] TABLE = buildTable();
+
+    private PetState state;
+    private boolean lastIdleRight;
+
+    public PetStateMachine() {
+        this(PetState.IDLE_LEFT);
+    }
+
+    public PetStateMachine(PetState initialState) {
+        reset(initialState);
+    }
+
+    public void reset(PetState initialState) {
+        reset(initialState, initialState == PetState.IDLE_RIGHT ? PetState.IDLE_RIGHT : PetState.IDLE_LEFT);
+    }
+
+    /**
+     * Restores a state together with the idle pose a vertical fall should land in.
+     */
+    public void reset(PetState state, PetState lastIdleState) {
+        this.state = state;
+        lastIdleRight = lastIdleState == PetState.IDLE_RIGHT;
+    }
+
+    public PetState getLastIdleState() {
+        return lastIdleRight ? PetState.IDLE_RIGHT : PetState.IDLE_LEFT;
+    }
+
+    /**
+     * Collects the flags for the current physics state. Each check runs exactly once.
+     */
+    public static int flags(PetPhysics physics) {
+        return flags(physics.isOnLeftWall(), physics.isOnRightWall(), physics.isOnGround(),
+                physics.getVelocityX(), physics.getVelocityY());
+    }
+
+    /**
+     * Same as {@link #flags(PetPhysics)} from raw contacts and velocity, for PetFlock's arrays.
+     */
+    public static int flags(boolean onLeftWall, boolean onRightWall, boolean onGround,
+                            float velocityX, float velocityY) {
+        float absVelocityX = Math.abs(velocityX);
+        float absVelocityY = Math.abs(velocityY);
+
+        int flags = 0;
+        if (onLeftWall) flags |= ON_LEFT_WALL;
+        if (onRightWall) flags |= ON_RIGHT_WALL;
+        if (onGround) flags |= ON_GROUND;
+        if (absVelocityY > absVelocityX) flags |= MOSTLY_VERTICAL;
+        if (absVelocityX > absVelocityY) flags |= MOSTLY_HORIZONTAL;
+        if (velocityX > 0) flags |= MOVING_RIGHT;
+        if (velocityX < 0) flags |= MOVING_LEFT;
+        return flags;
+    }
+
+    public PetState update(PetPhysics physics) {
+        return update(flags(physics));
+    }
+
+    public PetState update(int flags) {
+        if (state == PetState.IDLE_LEFT) {
+            lastIdleRight = false;
+        } else if (state == PetState.IDLE_RIGHT) {
+            lastIdleRight = true;
+        }
+        state = STATES[TABLE[index(state, lastIdleRight, flags)]];
+        return state;
+    }
+
+    public PetState getState() {
+        return state;
+    }
+
+    /**
+     * The table lookup on its own, for callers that keep many pets' states in arrays. Takes and
+     * returns PetState ordinals; the caller tracks lastIdleRight the way {@link #update(int)} does.
+     */
+    public static int next(int stateOrdinal, boolean lastIdleRight, int flags) {
+        return TABLE[index(stateOrdinal, lastIdleRight, flags)];
+    }
+
+    /**
+     * The transition rules, run once per table entry when the class loads. Not called per tick.
+     */
+    static PetState decide(PetState state, PetState lastIdleState, int flags) {
+        boolean onLeftWall = (flags & ON_LEFT_WALL) != 0;
+        boolean onWall = onLeftWall || (flags & ON_RIGHT_WALL) != 0;
+        boolean onGround = (flags & ON_GROUND) != 0;
+        boolean mostlyVertical = (flags & MOSTLY_VERTICAL) != 0;
+        boolean mostlyHorizontal = (flags & MOSTLY_HORIZONTAL) != 0;
+        boolean movingRight = (flags & MOVING_RIGHT) != 0;
+        boolean movingLeft = (flags & MOVING_LEFT) != 0;
+        PetState wallSmack = onLeftWall ? PetState.SMACK_LEFT : PetState.SMACK_RIGHT;
+        PetState fallSideways = movingRight ? PetState.FALLING_RIGHT : PetState.FALLING_LEFT;
+
+        switch (state) {
+            case IDLE_LEFT:
+                if (onWall) {
+                    return (flags & ON_RIGHT_WALL) != 0 ? PetState.SMACK_RIGHT : PetState.SMACK_LEFT;
+                } else if (!onGround) {
+                    return mostlyVertical ? PetState.FALLING_VERTICAL : fallSideways;
+                }
+                return state;
+
+            case IDLE_RIGHT:
+                if (onWall) {
+                    return wallSmack;
+                } else if (!onGround) {
+                    return mostlyVertical ? PetState.FALLING_VERTICAL : fallSideways;
+                }
+                return state;
+
+            case FALLING_VERTICAL:
+                if (onWall) {
+                    return wallSmack;
+                } else if (onGround) {
+                    return lastIdleState;
+                } else if (mostlyHorizontal) {
+                    return fallSideways;
+                }
+                return state;
+
+            case FALLING_LEFT:
+                if (onWall) {
+                    return wallSmack;
+                } else if (onGround) {
+                    return PetState.IDLE_LEFT;
+                } else if (mostlyVertical) {
+                    return PetState.FALLING_VERTICAL;
+                } else if (movingRight) {
+                    return PetState.FALLING_RIGHT;
+                }
+                return state;
+
+            case FALLING_RIGHT:
+                if (onWall) {
+                    return wallSmack;
+                } else if (onGround) {
+                    return PetState.IDLE_RIGHT;
+                } else if (mostlyVertical) {
+                    return PetState.FALLING_VERTICAL;
+                } else if (movingLeft) {
+                    return PetState.FALLING_LEFT;
+                }
+                return state;
+
+            case SMACK_LEFT:
+                if (!onWall) {
+                    return onGround ? PetState.IDLE_LEFT : PetState.FALLING_LEFT;
+                }
+                return state;
+
+            case SMACK_RIGHT:
+                if (!onWall) {
+                    return onGround ? PetState.IDLE_RIGHT : PetState.FALLING_RIGHT;
+                }
+                return state;
+
+            default:
+                return PetState.IDLE_LEFT;
+        }
+    }
+
+    private static int index(PetState state, boolean lastIdleRight, int flags) {
+        return index(state.ordinal(), lastIdleRight, flags);
+    }
+
+    private static int index(int stateOrdinal, boolean lastIdleRight, int flags) {
+        return ((stateOrdinal << 1 | (lastIdleRight ? 1 : 0)) * FLAG_COUNT) + (flags & (FLAG_COUNT - 1));
+    }
+
+    private static byte[] buildTable() {
+        byte[] table = new byte[STATE_COUNT * 2 * FLAG_COUNT];
+        for (PetState state : STATES) {
+            for (int lastIdle = 0; lastIdle < 2; lastIdle++) {
+                PetState lastIdleState = lastIdle == 1 ? PetState.IDLE_RIGHT : PetState.IDLE_LEFT;
+                for (int flags = 0; flags < FLAG_COUNT; flags++) {
+                    table[index(state, lastIdle == 1, flags)] = (byte) decide(state, lastIdleState, flags).ordinal();
+                }
+            }
+        }
+        return table;
+    }
+}
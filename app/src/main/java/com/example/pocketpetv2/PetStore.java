@@ -0,0 +1,53 @@
+package com.example.pocketpetv2;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single source of truth for the pet, safe to use from the UI thread, the overlay and WorkManager
+ * threads at once. Reads are a lock-free volatile load of the current {@link PetSnapshot}. Writes
+ * are serialized: each mutation sees the latest snapshot, so concurrent updates can't overwrite
+ * each other, and the listener (persistence) sees changes in the order they were published.
+ */
+public class PetStore {
+
+    public interface Mutation {
+        PetSnapshot apply(PetSnapshot current);
+    }
+
+    public interface Listener {
+        /** Called on the writing thread while writes are still serialized. */
+        void onChanged(PetSnapshot previous, PetSnapshot next);
+    }
+
+    private final AtomicReference<PetSnapshot> current;
+    private final Object writeLock = new Object();
+    private final Listener listener;
+
+    public PetStore(PetSnapshot initial, Listener listener) {
+        this.current = new AtomicReference<>(initial);
+        this.listener = listener;
+    }
+
+    public PetSnapshot get() {
+        return current.get();
+    }
+
+    /**
+     * Applies mutation to the latest snapshot and publishes the result. Returning the same
+     * snapshot from the mutation means "no change" and skips the listener.
+     */
+    public PetSnapshot update(Mutation mutation) {
+        synchronized (writeLock) {
+            PetSnapshot previous = current.get();
+            PetSnapshot next = mutation.apply(previous);
+            if (next == previous || next == null) {
+                return previous;
+            }
+            current.set(next);
+            if (listener != null) {
+                listener.onChanged(previous, next);
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.pocketpetv2;
+
+/**
+ * One entry of the PetCatalog: a pet's id, display name, animation per PetState, preview image
+ * and physics tuning. An animation is a list of frames with a duration each; its first frame is
+ * the state's sprite, and most states have only that one. Frames and preview are kept as
+ * drawable names and only turned into resource ids the first time they are asked for, so a long
+ * catalog costs nothing for pets never shown. A pack pet's sprites are zip entries and resolve to
+ * PetPacks sprite ids instead. Safe to share between threads.
+ */
+public final class PetType {
+
+    private final String id;
+    private final String name;
+    private final String[] spriteNames;
+    // Per state: every frame's name (the first is spriteNames') and how long it shows.
+    private final String[][] frameNames;
+    private final int[][] frameMillis;
+    private final String previewName;
+    private final float damping;
+    private final float accelerationScale;
+    private final PetCatalog.Resolver resolver;
+
+    // Resolved on first use; a race only resolves twice to the same ids.
+    private volatile int[] sprites;
+    private volatile SpriteAnimation[] animations;
+    private volatile int preview;
+
+    /** A pet whose every state is a single still sprite. */
+    PetType(String id, String name, String[] spriteNames, String previewName,
+            float damping, float accelerationScale, PetCatalog.Resolver resolver) {
+        this(id, name, stills(spriteNames), new int[spriteNames.length][], previewName,
+                damping, accelerationScale, resolver);
+    }
+
+    /**
+     * frameNames and frameMillis hold one array per PetState ordinal; a state with a single
+     * frame may leave its durations null.
+     */
+    PetType(String id, String name, String[][] frameNames, int[][] frameMillis, String previewName,
+            float damping, float accelerationScale, PetCatalog.Resolver resolver) {
+        this.id = id;
+        this.name = name;
+        this.frameNames = frameNames.clone();
+        this.frameMillis = frameMillis.clone();
+        spriteNames = new String[frameNames.length];
+        for (int s = 0; s < frameNames.length; s++) {
+            spriteNames[s] = frameNames[s][0];
+        }
+        this.previewName = previewName;
+        this.damping = damping;
+        this.accelerationScale = accelerationScale;
+        this.resolver = resolver;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public float getDamping() {
+        return damping;
+    }
+
+    public float getAccelerationScale() {
+        return accelerationScale;
+    }
+
+    /**
+     * Drawable resources indexed by PetState ordinal: each animation's first frame. Shared; don't
+     * modify. Resolves the animations' other frames too, so whoever builds the PetSnapshot pays for
+     * every lookup and the sprite cache doesn't.
+     */
+    public int[] getSprites() {
+        int[] resolved = sprites;
+        if (resolved == null) {
+            resolved = new int[spriteNames.length];
+            SpriteAnimation[] resolvedAnimations = new SpriteAnimation[spriteNames.length];
+            for (int s = 0; s < spriteNames.length; s++) {
+                String[] names = frameNames[s];
+                int[] frames = new int[names.length];
+                for (int f = 0; f < names.length; f++) {
+                    frames[f] = resolve(names[f]);
+                }
+                resolved[s] = frames[0];
+                resolvedAnimations[s] = frames.length == 1
+                        ? SpriteAnimation.still(frames[0])
+                        : new SpriteAnimation(frames, frameMillis[s]);
+            }
+            animations = resolvedAnimations;
+            sprites = resolved;
+        }
+        return resolved;
+    }
+
+    /** The frames shown in state, starting with {@link #getSpriteResource}. */
+    public SpriteAnimation getAnimation(PetState state) {
+        getSprites();
+        return animations[state.ordinal()];
+    }
+
+    public int getSpriteResource(PetState state) {
+        return getSprites()[state.ordinal()];
+    }
+
+    public int getPreviewResource() {
+        int resolved = preview;
+        if (resolved == 0) {
+            resolved = resolve(previewName);
+            preview = resolved;
+        }
+        return resolved;
+    }
+
+    /** The unresolved name behind a sprite, e.g. a drawable or a pack's zip entry. */
+    String getSpriteName(PetState state) {
+        return spriteNames[state.ordinal()];
+    }
+
+    String getPreviewName() {
+        return previewName;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static String[][] stills(String[] spriteNames) {
+        String[][] frames = new String[spriteNames.length][];
+        for (int s = 0; s < spriteNames.length; s++) {
+            frames[s] = new String[]{spriteNames[s]};
+        }
+        return frames;
+    }
+
+    private int resolve(String drawableName) {
+        int id = resolver.drawable(drawableName);
+        if (id == 0) {
+            throw new IllegalStateException("Pet " + this.id + " names missing drawable " + drawableName);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.pocketpetv2;
+
+/**
+ * Decides how much work the overlay pet may do from the screen and power state. While the screen
+ * is off, or on but still behind the lock screen (overlay windows aren't shown there), the pet is
+ * SUSPENDED: no frame loop, no sensors. Power-save mode keeps it running at a lower cost.
+ *
+ * Also keeps diagnostics: total time suspended and an estimate of the wakeups that saved, from
+ * the rate the host was waking up at when it was suspended.
+ *
+ * Plain Java and main thread only; the broadcasts are translated by the host.
+ */
+public class PowerScheduler {
+
+    public enum Mode {
+        NORMAL,
+        /** Battery saver is on: run, but at a lower frame rate and without idle animation. */
+        POWER_SAVE,
+        /** Nobody can see the pet: stop ticking and release the sensors. */
+        SUSPENDED
+    }
+
+    public interface Host {
+        void onModeChanged(Mode from, Mode to);
+
+        /** Frame, sensor and animation wakeups per second the pet is causing right now. */
+        double getWakeupsPerSecond();
+    }
+
+    private final Host host;
+    private Mode mode = Mode.NORMAL;
+    private boolean screenOn = true;
+    private boolean locked;
+    private boolean powerSave;
+
+    private long suspendedSinceNanos;
+    private double suspendedWakeupRate;
+    private long suspendedNanos;
+    private double wakeupsAvoided;
+    private int suspendCount;
+
+    public PowerScheduler(Host host) {
+        this.host = host;
+    }
+
+    /** Initial state, without counting it as a change of mode if it matches. */
+    public void start(boolean screenOn, boolean locked, boolean powerSave, long nowNanos) {
+        this.screenOn = screenOn;
+        this.locked = locked;
+        this.powerSave = powerSave;
+        update(nowNanos);
+    }
+
+    public void onScreenOff(long nowNanos) {
+        screenOn = false;
+        update(nowNanos);
+    }
+
+    /**
+     * The screen came on. If the keyguard is showing the pet stays suspended until
+     * {@link #onUserPresent}.
+     */
+    public void onScreenOn(boolean keyguardLocked, long nowNanos) {
+        screenOn = true;
+        locked = keyguardLocked;
+        update(nowNanos);
+    }
+
+    public void onUserPresent(long nowNanos) {
+        screenOn = true;
+        locked = false;
+        update(nowNanos);
+    }
+
+    public void onPowerSaveChanged(boolean enabled, long nowNanos) {
+        powerSave = enabled;
+        update(nowNanos);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** Total time spent suspended, including a suspension still going on at nowNanos. */
+    public long getSuspendedNanos(long nowNanos) {
+        long total = suspendedNanos;
+        if (mode == Mode.SUSPENDED) {
+            total += nowNanos - suspendedSinceNanos;
+        }
+        return total;
+    }
+
+    /**
+     * Estimated wakeups avoided by suspending: each suspension's length times the wakeup rate
+     * just before it.
+     */
+    public long getWakeupsAvoided(long nowNanos) {
+        double total = wakeupsAvoided;
+        if (mode == Mode.SUSPENDED) {
+            total += (nowNanos - suspendedSinceNanos) / 1e9 * suspendedWakeupRate;
+        }
+        return Math.round(total);
+    }
+
+    public int getSuspendCount() {
+        return suspendCount;
+    }
+
+    private void update(long nowNanos) {
+        Mode next = !screenOn || locked ? Mode.SUSPENDED : powerSave ? Mode.POWER_SAVE : Mode.NORMAL;
+        if (next == mode) return;
+
+        if (next == Mode.SUSPENDED) {
+            // Sample the rate before the host stops everything.
+            suspendedWakeupRate = host.getWakeupsPerSecond();
+            suspendedSinceNanos = nowNanos;
+            suspendCount++;
+        } else if (mode == Mode.SUSPENDED) {
+            long elapsed = nowNanos - suspendedSinceNanos;
+            suspendedNanos += elapsed;
+            wakeupsAvoided += elapsed / 1e9 * suspendedWakeupRate;
+        }
+        Mode from = mode;
+        mode = next;
+        host.onModeChanged(from, next);
+    }
+}
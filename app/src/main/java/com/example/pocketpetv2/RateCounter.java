@@ -0,0 +1,65 @@
+package com.example.pocketpetv2;
+
+/**
+ * Counts events per one-second window without allocating, for cheap on-device diagnostics.
+ * Timestamps are System.nanoTime() (or Choreographer frame time) readings. Not thread safe;
+ * record and read from the same thread.
+ */
+public class RateCounter {
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private boolean started = false;
+    private long windowStartNanos;
+    private int windowCount;
+    private int lastWindowCount;
+    private long total;
+
+    public void record(long nowNanos) {
+        roll(nowNanos);
+        windowCount++;
+        total++;
+    }
+
+    /**
+     * Events counted in the last complete one-second window, or 0 if nothing was recorded
+     * during it.
+     */
+    public int getPerSecond(long nowNanos) {
+        if (!started) {
+            return 0;
+        }
+        long elapsed = nowNanos - windowStartNanos;
+        if (elapsed >= 2 * WINDOW_NANOS) {
+            return 0;
+        }
+        if (elapsed >= WINDOW_NANOS) {
+            return windowCount;
+        }
+        return lastWindowCount;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    private void roll(long nowNanos) {
+        if (!started) {
+            started = true;
+            windowStartNanos = nowNanos;
+            return;
+        }
+        long elapsed = nowNanos - windowStartNanos;
+        if (elapsed < WINDOW_NANOS) {
+            return;
+        }
+        if (elapsed < 2 * WINDOW_NANOS) {
+            lastWindowCount = windowCount;
+            windowStartNanos += WINDOW_NANOS;
+        } else {
+            lastWindowCount = 0;
+            windowStartNanos = nowNanos;
+        }
+        windowCount = 0;
+    }
+}
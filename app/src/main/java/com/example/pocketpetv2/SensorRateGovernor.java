@@ -0,0 +1,96 @@
+package com.example.pocketpetv2;
+
+/**
+ * Decides how fast the accelerometer should report. While the pet is resting and the readings
+ * stay within CHANGE_THRESHOLD of each other for STEADY_NANOS, it drops to a low rate with
+ * hardware batching; the first reading that moves past the threshold switches back to game rate.
+ * Plain Java; the host does the actual (re)registration when {@link #onSample} reports a change.
+ */
+public class SensorRateGovernor {
+
+    public enum Tier {
+        /** Same as SENSOR_DELAY_GAME, delivered immediately. */
+        GAME(20_000, 0),
+        /** Same as SENSOR_DELAY_NORMAL, batched in the sensor FIFO so the CPU can stay asleep. */
+        LOW(200_000, 400_000),
+        /**
+         * Used by StationaryController when the accelerometer is otherwise released but the device
+         * has no wake-up trigger sensor. Never chosen by the governor itself.
+         */
+        PROBE(500_000, 0);
+
+        public final int samplingPeriodUs;
+        public final int maxReportLatencyUs;
+
+        Tier(int samplingPeriodUs, int maxReportLatencyUs) {
+            this.samplingPeriodUs = samplingPeriodUs;
+            this.maxReportLatencyUs = maxReportLatencyUs;
+        }
+    }
+
+    public static final float CHANGE_THRESHOLD = 0.5f; // m/s^2 on any axis
+    public static final long STEADY_NANOS = 2_000_000_000L;
+
+    private Tier tier = Tier.GAME;
+    private boolean hasReference = false;
+    private float referenceX, referenceY, referenceZ;
+    private long steadySinceNanos;
+    private long tierChanges;
+
+    /**
+     * Feeds one accelerometer reading. Returns true if the tier changed and the listener needs
+     * to be registered again with the new rate.
+     */
+    public boolean onSample(long timestampNanos, float x, float y, float z, boolean petResting) {
+        if (!hasReference
+                || Math.abs(x - referenceX) > CHANGE_THRESHOLD
+                || Math.abs(y - referenceY) > CHANGE_THRESHOLD
+                || Math.abs(z - referenceZ) > CHANGE_THRESHOLD) {
+            hasReference = true;
+            referenceX = x;
+            referenceY = y;
+            referenceZ = z;
+            steadySinceNanos = timestampNanos;
+            return setTier(Tier.GAME);
+        }
+
+        if (!petResting) {
+            return setTier(Tier.GAME);
+        }
+        if (timestampNanos - steadySinceNanos >= STEADY_NANOS) {
+            return setTier(Tier.LOW);
+        }
+        return false;
+    }
+
+    /**
+     * Wakes back up to game rate, e.g. on touch, without waiting for a sensor reading.
+     * Returns true if the tier changed.
+     */
+    public boolean boost() {
+        hasReference = false;
+        return setTier(Tier.GAME);
+    }
+
+    public void reset() {
+        hasReference = false;
+        tier = Tier.GAME;
+    }
+
+    public Tier getTier() {
+        return tier;
+    }
+
+    public long getTierChanges() {
+        return tierChanges;
+    }
+
+    private boolean setTier(Tier newTier) {
+        if (newTier == tier) {
+            return false;
+        }
+        tier = newTier;
+        tierChanges++;
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.pocketpetv2;
+
+/**
+ * One state's looping animation: a sequence of frames (sprite resource ids) with a duration each.
+ * A single frame is a still sprite. Immutable, plain Java.
+ */
+public final class SpriteAnimation {
+
+    private final int[] frames;
+    private final int[] durationsMillis;
+    // End of each frame within the loop, for a binary search per lookup.
+    private final long[] endMillis;
+
+    public SpriteAnimation(int[] frames, int[] durationsMillis) {
+        if (frames.length == 0 || frames.length != durationsMillis.length) {
+            throw new IllegalArgumentException("need one duration per frame and at least one frame");
+        }
+        this.frames = frames.clone();
+        this.durationsMillis = durationsMillis.clone();
+        endMillis = new long[frames.length];
+        long end = 0;
+        for (int i = 0; i < frames.length; i++) {
+            if (durationsMillis[i] <= 0) {
+                throw new IllegalArgumentException("frame durations must be positive");
+            }
+            end += durationsMillis[i];
+            endMillis[i] = end;
+        }
+    }
+
+    public static SpriteAnimation still(int frame) {
+        return new SpriteAnimation(new int[]{frame}, new int[]{1});
+    }
+
+    public int getFrameCount() {
+        return frames.length;
+    }
+
+    public int getFrame(int index) {
+        return frames[index];
+    }
+
+    public int getDurationMillis(int index) {
+        return durationsMillis[index];
+    }
+
+    public long getLoopMillis() {
+        return endMillis[endMillis.length - 1];
+    }
+
+    /**
+     * Index of the frame showing elapsedMillis after the animation started, looping forever.
+     */
+    public int frameAt(long elapsedMillis) {
+        if (frames.length == 1) return 0;
+        long t = Math.floorMod(elapsedMillis, getLoopMillis());
+        int low = 0, high = endMillis.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (endMillis[mid] <= t) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Milliseconds from elapsedMillis until the next frame starts, or -1 for a still sprite.
+     */
+    public long millisUntilNextFrame(long elapsedMillis) {
+        if (frames.length == 1) return -1;
+        long t = Math.floorMod(elapsedMillis, getLoopMillis());
+        return endMillis[frameAt(t)] - t;
+    }
+
+    /**
+     * This animation with at most maxFrames frames, for when there isn't memory to keep them all.
+     * Keeps evenly spaced frames, each lasting until the next kept one, so the loop stays the
+     * same length.
+     */
+    public SpriteAnimation reduce(int maxFrames) {
+        if (maxFrames < 1) {
+            throw new IllegalArgumentException("maxFrames must be at least 1");
+        }
+        int count = frames.length;
+        if (count <= maxFrames) return this;
+
+        int[] keptFrames = new int[maxFrames];
+        int[] keptDurations = new int[maxFrames];
+        for (int k = 0; k < maxFrames; k++) {
+            int from = (int) ((long) k * count / maxFrames);
+            int to = (int) ((long) (k + 1) * count / maxFrames);
+            keptFrames[k] = frames[from];
+            for (int i = from; i < to; i++) {
+                keptDurations[k] += durationsMillis[i];
+            }
+        }
+        return new SpriteAnimation(keptFrames, keptDurations);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.pocketpetv2;
+
+/**
+ * Region table for a sprite atlas: equally sized cells packed into a grid that is as close to
+ * square as the maximum texture size allows. Cell i holds the sprite for PetState ordinal i.
+ * Plain Java so the layout can be unit tested.
+ */
+public class SpriteAtlasLayout {
+
+    /** Safe lower bound for GL_MAX_TEXTURE_SIZE on the devices we support. */
+    public static final int DEFAULT_MAX_TEXTURE_SIZE = 4096;
+
+    private final int cellWidth, cellHeight;
+    private final int columns, rows;
+    // left, top, right, bottom per cell
+    private final int[] regions;
+
+    public SpriteAtlasLayout(int cellWidth, int cellHeight, int count) {
+        this(cellWidth, cellHeight, count, DEFAULT_MAX_TEXTURE_SIZE);
+    }
+
+    public SpriteAtlasLayout(int cellWidth, int cellHeight, int count, int maxTextureSize) {
+        if (cellWidth <= 0 || cellHeight <= 0 || count <= 0) {
+            throw new IllegalArgumentException("Atlas needs a positive cell size and count");
+        }
+        // Use the fewest cells (least wasted memory), then the squarest atlas, within the limit.
+        int bestColumns = -1;
+        int bestCells = Integer.MAX_VALUE;
+        int bestSide = Integer.MAX_VALUE;
+        for (int c = count; c >= 1; c--) {
+            int r = (count + c - 1) / c;
+            int width = c * cellWidth;
+            int height = r * cellHeight;
+            if (width > maxTextureSize || height > maxTextureSize) {
+                continue;
+            }
+            int cells = c * r;
+            int side = Math.max(width, height);
+            if (cells < bestCells || (cells == bestCells && side < bestSide)) {
+                bestColumns = c;
+                bestCells = cells;
+                bestSide = side;
+            }
+        }
+        if (bestColumns < 0) {
+            throw new IllegalArgumentException("Sprites don't fit in a " + maxTextureSize + "px atlas");
+        }
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.columns = bestColumns;
+        this.rows = (count + bestColumns - 1) / bestColumns;
+
+        regions = new int[count * 4];
+        for (int i = 0; i < count; i++) {
+            int left = (i % this.columns) * cellWidth;
+            int top = (i / this.columns) * cellHeight;
+            regions[i * 4] = left;
+            regions[i * 4 + 1] = top;
+            regions[i * 4 + 2] = left + cellWidth;
+            regions[i * 4 + 3] = top + cellHeight;
+        }
+    }
+
+    public int getCount() {
+        return regions.length / 4;
+    }
+
+    public int getAtlasWidth() {
+        return columns * cellWidth;
+    }
+
+    public int getAtlasHeight() {
+        return rows * cellHeight;
+    }
+
+    public int getCellWidth() {
+        return cellWidth;
+    }
+
+    public int getCellHeight() {
+        return cellHeight;
+    }
+
+    public int getLeft(int index) {
+        return regions[index * 4];
+    }
+
+    public int getTop(int index) {
+        return regions[index * 4 + 1];
+    }
+
+    public int getRight(int index) {
+        return regions[index * 4 + 2];
+    }
+
+    public int getBottom(int index) {
+        return regions[index * 4 + 3];
+    }
+}
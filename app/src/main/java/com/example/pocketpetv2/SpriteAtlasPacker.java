@@ -0,0 +1,47 @@
+package com.example.pocketpetv2;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * Builds a pet's sprite atlas on first run: decodes each state's drawable at cell size and draws
+ * it centred into its cell of one shared bitmap.
+ */
+public final class SpriteAtlasPacker {
+
+    private SpriteAtlasPacker() {
+    }
+
+    /**
+     * Returns a software atlas of pet's sprites, or null if none of them could be decoded.
+     */
+    public static Bitmap pack(SpriteDecoder decoder, SpriteAtlasLayout layout, Bitmap.Config config,
+                              PetSnapshot pet) {
+        Bitmap atlas = Bitmap.createBitmap(layout.getAtlasWidth(), layout.getAtlasHeight(), config);
+        Canvas canvas = new Canvas(atlas);
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        int cellWidth = layout.getCellWidth();
+        int cellHeight = layout.getCellHeight();
+        boolean any = false;
+
+        for (PetState state : PetState.values()) {
+            int index = state.ordinal();
+            Bitmap sprite = decoder.decode(pet.getSpriteResource(state), cellWidth, cellHeight);
+            if (sprite == null) {
+                continue;
+            }
+            float left = layout.getLeft(index) + (cellWidth - sprite.getWidth()) / 2f;
+            float top = layout.getTop(index) + (cellHeight - sprite.getHeight()) / 2f;
+            canvas.drawBitmap(sprite, left, top, paint);
+            sprite.recycle();
+            any = true;
+        }
+
+        if (!any) {
+            atlas.recycle();
+            return null;
+        }
+        return atlas;
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.pocketpetv2;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds the current pet type's sprites as one atlas bitmap, so the frame loop never goes back to
+ * resources and a state change only moves the drawable's source rect. Each host keeps its own
+ * instance because a Drawable should only be attached to one view. The cache reloads itself after
+ * PetData.setPetType changes the sprites.
+ *
+ * The atlas is decoded at the size it is shown at and kept in a SpriteDiskCache, so only the very
+ * first start pays for the PNG decodes.
+ *
+ * A state can also be animated, with frames and durations declared in the pet manifest (see
+ * PetType.getAnimation). The atlas holds frame 0; the rest are decoded ahead on a worker into a
+ * FrameRing, within the process-wide R.integer.animation_budget_kb. {@link #tick} advances them.
+ *
+ * Under memory pressure {@link #trim} gives back, tier by tier, the animation frames, then
+ * everything but the current state's sprite, then that sprite's full resolution (see
+ * SpriteMemory). What was dropped comes back lazily from {@link #show}.
+ */
+public class SpriteCache {
+
+    /** Most frames one host keeps decoded; longer animations stream through this many. */
+    public static final int MAX_FRAME_SLOTS = 4;
+    /** Fewer slots than this can't stream smoothly, so the animation is cut down to fit instead. */
+    public static final int MIN_STREAMING_SLOTS = 3;
+
+    private static final ExecutorService frameDecoder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sprite-frames");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static AnimationBudget animationBudget;
+
+    private final SpriteDecoder decoder;
+    private final SpriteDiskCache diskCache;
+    private final SpriteAtlasLayout layout;
+    private final Bitmap.Config config;
+    private final AtlasDrawable drawable = new AtlasDrawable();
+    private final SpriteMemory<Bitmap> memory;
+    private PetSnapshot loadedPet;
+    private int loadedVersion = -1;
+    private PetState shownState;
+
+    private final long frameBytes;
+    private final FrameRing<Bitmap> frames;
+    private SpriteAnimation[] animations;
+    private PetState animatedState;
+    private SpriteAnimation playing;
+    // Read by the decode worker; stale decodes are dropped by the ring.
+    private volatile SpriteAnimation decoding;
+    private int reservedFrames;
+    private long animationStartNanos = -1;
+
+    public SpriteCache(Context context, int widthPx, int heightPx) {
+        this(context, widthPx, heightPx, SpriteDecoder.Mode.ARGB_8888);
+    }
+
+    public SpriteCache(Context context, int widthPx, int heightPx, SpriteDecoder.Mode mode) {
+        Resources resources = context.getResources();
+        this.decoder = new SpriteDecoder(resources, mode);
+        this.diskCache = new SpriteDiskCache(context);
+        this.layout = new SpriteAtlasLayout(widthPx, heightPx, PetState.values().length);
+        this.config = mode == SpriteDecoder.Mode.RGB_565 ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        this.frameBytes = (long) widthPx * heightPx * (config == Bitmap.Config.RGB_565 ? 2 : 4);
+        this.frames = new FrameRing<>(MAX_FRAME_SLOTS, frameDecoder, this::decodeFrame);
+        this.memory = new SpriteMemory<>(new BitmapImages(), layout);
+        synchronized (SpriteCache.class) {
+            if (animationBudget == null) {
+                animationBudget = new AnimationBudget(resources.getInteger(R.integer.animation_budget_kb) * 1024L);
+            }
+        }
+    }
+
+    /**
+     * The drawable to attach to the pet's ImageView once; {@link #show} changes what it draws.
+     */
+    public Drawable getDrawable() {
+        return drawable;
+    }
+
+    /**
+     * The image sprites are drawn from, or null before the first load. For views that draw several
+     * pets: use {@link #getLayout} and {@link #getRegion} with it, since after a trim it holds
+     * only the current state's sprite, possibly at a lower resolution.
+     */
+    public Bitmap getAtlas() {
+        return memory.getImage();
+    }
+
+    public SpriteAtlasLayout getLayout() {
+        return memory.getImageLayout();
+    }
+
+    public int getRegion(PetState state) {
+        return memory.getRegion(state.ordinal());
+    }
+
+    /** The size sprites are shown at, whatever resolution is currently loaded. */
+    public int getSpriteWidth() {
+        return layout.getCellWidth();
+    }
+
+    public int getSpriteHeight() {
+        return layout.getCellHeight();
+    }
+
+    /**
+     * Points the drawable at the sprite for state and restarts its animation if the state
+     * changed. Returns false if nothing changed.
+     */
+    public boolean show(PetState state) {
+        boolean reloaded = false;
+        PetSnapshot pet = PetData.snapshot();
+        if (loadedVersion != pet.getSpriteVersion()) {
+            setPet(pet);
+            reloaded = true;
+        }
+        shownState = state;
+        // Loads the atlas (or, while trimmed, just this state's sprite) if it isn't resident.
+        if (memory.select(pet.getPetType(), state.ordinal(), SystemClock.uptimeMillis())) {
+            drawable.setAtlas(memory.getImage(), memory.getImageLayout());
+            reloaded = true;
+        }
+        boolean restarted = (state != animatedState || reloaded) && startAnimation(state);
+        return drawable.setRegion(memory.getRegion(state.ordinal())) || reloaded || restarted;
+    }
+
+    /**
+     * Handles a ComponentCallbacks2.onTrimMemory level and returns roughly how many bytes of
+     * decoded sprites it released. Main thread only.
+     */
+    public long trim(int level) {
+        long released = memory.trim(level, SystemClock.uptimeMillis());
+        // Frames go first: states keep changing for free from the atlas, just without animating.
+        if (!memory.keepsAnimationFrames() && reservedFrames > 0) {
+            released += reservedFrames * frameBytes;
+            releaseFrames();
+        }
+        if (released > 0) {
+            drawable.setAtlas(memory.getImage(), memory.getImageLayout());
+            if (shownState != null) {
+                drawable.setRegion(memory.getRegion(shownState.ordinal()));
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Advances the current state's animation to frameTimeNanos. Only picks up frames the worker
+     * has already decoded. Returns true if the drawable changed.
+     */
+    public boolean tick(long frameTimeNanos) {
+        if (playing == null) return false;
+        if (animationStartNanos < 0) {
+            animationStartNanos = frameTimeNanos;
+        }
+        int index = playing.frameAt((frameTimeNanos - animationStartNanos) / 1_000_000);
+        Bitmap frame = frames.frame(index);
+        return frame != null && drawable.setFrame(frame);
+    }
+
+    /**
+     * Nanoseconds from nowNanos until the animation's next frame, or -1 if the sprite is still.
+     * Lets a sleeping frame loop wake just for the animation.
+     */
+    public long nanosUntilNextFrame(long nowNanos) {
+        if (playing == null) return -1;
+        long elapsedMillis = animationStartNanos < 0 ? 0 : (nowNanos - animationStartNanos) / 1_000_000;
+        return playing.millisUntilNextFrame(elapsedMillis) * 1_000_000;
+    }
+
+    /** Frames per second of the animation playing now, or 0 for a still sprite. For diagnostics. */
+    public double getAnimationFrameRate() {
+        return playing == null ? 0 : playing.getFrameCount() * 1000.0 / playing.getLoopMillis();
+    }
+
+    /**
+     * Drops the decoded animation frames and gives their memory back to the budget. The next
+     * {@link #show} starts them again. Main thread only.
+     */
+    public void releaseFrames() {
+        frames.clear();
+        drawable.setFrame(null);
+        animationBudget.release(reservedFrames * frameBytes);
+        reservedFrames = 0;
+        playing = null;
+        decoding = null;
+        animatedState = null;
+    }
+
+    /**
+     * Reads or builds the atlas for pet. Touches only disk and resources, so startup calls it on a
+     * worker thread and hands the result to {@link #install} on the main thread.
+     */
+    public Bitmap loadAtlas(PetSnapshot pet) {
+        String key = SpriteDiskCache.atlasKey(pet.getPetType(), layout.getCellWidth(), layout.getCellHeight(), config);
+
+        Bitmap bitmap = diskCache.get(key, config);
+        if (bitmap == null) {
+            bitmap = SpriteAtlasPacker.pack(decoder, layout, config, pet);
+            if (bitmap == null) {
+                return null;
+            }
+            diskCache.put(key, bitmap);
+        }
+        return decoder.finish(bitmap);
+    }
+
+    /**
+     * Makes atlas, loaded for pet, the one the drawable draws from. Main thread only.
+     */
+    public void install(PetSnapshot pet, Bitmap atlas) {
+        // Old atlases may still be referenced by a pending frame, so they are left to the GC.
+        setPet(pet);
+        memory.install(pet.getPetType(), atlas);
+        Bitmap image = memory.getImage();
+        drawable.setAtlas(image, image != null ? memory.getImageLayout() : null);
+    }
+
+    private void setPet(PetSnapshot pet) {
+        loadedPet = pet;
+        loadedVersion = pet.getSpriteVersion();
+        releaseFrames();
+        animations = animationsFor(pet);
+    }
+
+    /**
+     * Starts state's animation within the memory budget. Returns true if the drawable changed.
+     */
+    private boolean startAnimation(PetState state) {
+        boolean hadFrame = playing != null;
+        releaseFrames();
+        animatedState = state;
+        animationStartNanos = -1;
+        SpriteAnimation animation = animations != null ? animations[state.ordinal()] : null;
+        if (animation == null || animation.getFrameCount() == 1 || !memory.keepsAnimationFrames()) {
+            return hadFrame;
+        }
+
+        int wanted = Math.min(animation.getFrameCount(), MAX_FRAME_SLOTS);
+        reservedFrames = animationBudget.reserveFrames(frameBytes, wanted);
+        if (reservedFrames < animation.getFrameCount() && reservedFrames < MIN_STREAMING_SLOTS) {
+            // Not enough memory to stream: play fewer frames, all kept decoded.
+            animation = reservedFrames >= 2 ? animation.reduce(reservedFrames) : null;
+        }
+        if (animation == null) {
+            animationBudget.release(reservedFrames * frameBytes);
+            reservedFrames = 0;
+            return hadFrame;
+        }
+        playing = animation;
+        decoding = animation;
+        frames.play(animation.getFrameCount(), reservedFrames);
+        return hadFrame;
+    }
+
+    /**
+     * SpriteMemory's access to bitmaps. Reloads always go through the disk cache first, which
+     * can hand back a single sprite without the rest of the atlas.
+     */
+    private class BitmapImages implements SpriteMemory.Images<Bitmap> {
+
+        @Override
+        public long byteCount(Bitmap image) {
+            return image.getAllocationByteCount();
+        }
+
+        @Override
+        public Bitmap loadAtlas(String petType) {
+            return loadedPet != null && petType.equals(loadedPet.getPetType())
+                    ? SpriteCache.this.loadAtlas(loadedPet) : null;
+        }
+
+        @Override
+        public Bitmap loadSprite(String petType, int state, int width, int height) {
+            if (loadedPet == null || !petType.equals(loadedPet.getPetType())) return null;
+            String key = SpriteDiskCache.atlasKey(petType, layout.getCellWidth(), layout.getCellHeight(), config);
+            Bitmap sprite = diskCache.getRegion(key, config, layout.getLeft(state), layout.getTop(state),
+                    layout.getCellWidth(), layout.getCellHeight());
+            if (sprite == null) {
+                sprite = decoder.decode(loadedPet.getSpriteResource(PetState.values()[state]), width, height);
+                if (sprite == null) return null;
+            }
+            if (sprite.getWidth() != width || sprite.getHeight() != height) {
+                sprite = Bitmap.createScaledBitmap(sprite, width, height, true);
+            }
+            return decoder.finish(sprite);
+        }
+
+        @Override
+        public Bitmap crop(Bitmap atlas, int left, int top, int right, int bottom) {
+            return Bitmap.createBitmap(atlas, left, top, right - left, bottom - top);
+        }
+
+        @Override
+        public Bitmap scale(Bitmap image, int width, int height) {
+            return Bitmap.createScaledBitmap(image, width, height, true);
+        }
+    }
+
+    /** Runs on the frame decoder thread. */
+    private Bitmap decodeFrame(int index) {
+        SpriteAnimation animation = decoding;
+        if (animation == null || index >= animation.getFrameCount()) return null;
+        Bitmap frame = decoder.decode(animation.getFrame(index), layout.getCellWidth(), layout.getCellHeight());
+        return frame != null ? decoder.finish(frame) : null;
+    }
+
+    /**
+     * Each state's animation from the pet's manifest entry. PetType resolved the frames when the
+     * snapshot was built, so this is only lookups.
+     */
+    private static SpriteAnimation[] animationsFor(PetSnapshot pet) {
+        PetType type = PetData.getCatalog().get(pet.getPetType());
+        PetState[] states = PetState.values();
+        SpriteAnimation[] result = new SpriteAnimation[states.length];
+        for (PetState state : states) {
+            SpriteAnimation animation = type.getAnimation(state);
+            int sprite = pet.getSpriteResource(state);
+            // The atlas was packed from the snapshot; don't animate frames it doesn't start with.
+            result[state.ordinal()] = animation.getFrame(0) == sprite ? animation : SpriteAnimation.still(sprite);
+        }
+        return result;
+    }
+}
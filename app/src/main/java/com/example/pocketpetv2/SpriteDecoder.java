@@ -0,0 +1,120 @@
+package com.example.pocketpetv2;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes sprite resources at the size they are drawn at instead of their (much larger) source
+ * size. The raw resource stream is used so Android doesn't density-scale the PNG up first. Pack
+ * sprites are streamed out of their zip the same way (see PetPacks).
+ */
+public class SpriteDecoder {
+
+    private static final String TAG = "SpriteDecoder";
+
+    public enum Mode {
+        /** Full colour with transparency. */
+        ARGB_8888,
+        /** Half the memory, but no alpha channel, so transparent areas turn black. */
+        RGB_565,
+        /** Pixels live in GPU memory only (API 26+, falls back to ARGB_8888 below that). */
+        HARDWARE
+    }
+
+    private final Resources resources;
+    private final Mode mode;
+
+    public SpriteDecoder(Resources resources, Mode mode) {
+        this.resources = resources;
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the sprite scaled to fit inside reqWidth x reqHeight, or null if it can't be read.
+     */
+    public Bitmap decode(int resId, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        if (!decodeStream(resId, options)) {
+            return null;
+        }
+        int srcWidth = options.outWidth;
+        int srcHeight = options.outHeight;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = SpriteSizing.calculateInSampleSize(srcWidth, srcHeight, reqWidth, reqHeight);
+        options.inPreferredConfig = mode == Mode.RGB_565 ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        Bitmap sampled = null;
+        try (InputStream in = open(resId)) {
+            sampled = BitmapFactory.decodeStream(in, null, options);
+        } catch (IOException | Resources.NotFoundException e) {
+            Log.w(TAG, "Could not decode sprite " + resId, e);
+        }
+        if (sampled == null) {
+            return null;
+        }
+
+        int width = SpriteSizing.fitWidth(srcWidth, srcHeight, reqWidth, reqHeight);
+        int height = SpriteSizing.fitHeight(srcWidth, srcHeight, reqWidth, reqHeight);
+        Bitmap scaled = sampled;
+        if (sampled.getWidth() != width || sampled.getHeight() != height) {
+            scaled = Bitmap.createScaledBitmap(sampled, width, height, true);
+            if (scaled != sampled) {
+                sampled.recycle();
+            }
+        }
+        return scaled;
+    }
+
+    /**
+     * True if image is a bitmap BitmapFactory can read, going by its header; no pixels are
+     * decoded. Used to vet pet pack images on import.
+     */
+    public static boolean canDecode(InputStream image) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeStream(image, null, options);
+        return options.outWidth > 0 && options.outHeight > 0;
+    }
+
+    /**
+     * Converts a software bitmap to the configured final form. Only HARDWARE mode changes anything.
+     */
+    public Bitmap finish(Bitmap bitmap) {
+        if (mode == Mode.HARDWARE && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            Bitmap hardware = bitmap.copy(Bitmap.Config.HARDWARE, false);
+            if (hardware != null) {
+                bitmap.recycle();
+                return hardware;
+            }
+        }
+        return bitmap;
+    }
+
+    private InputStream open(int resId) throws IOException {
+        if (PetPacks.isPackSprite(resId)) {
+            return PetData.getPacks().openSprite(resId);
+        }
+        return resources.openRawResource(resId);
+    }
+
+    private boolean decodeStream(int resId, BitmapFactory.Options options) {
+        try (InputStream in = open(resId)) {
+            BitmapFactory.decodeStream(in, null, options);
+            return options.outWidth > 0 && options.outHeight > 0;
+        } catch (IOException | Resources.NotFoundException e) {
+            Log.w(TAG, "Could not read sprite " + resId, e);
+            return false;
+        }
+    }
+}
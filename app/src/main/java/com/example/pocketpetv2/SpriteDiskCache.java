@@ -0,0 +1,192 @@
+package com.example.pocketpetv2;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Stores already-downsampled sprites as raw pixels in the app's cache dir, so later cold starts
+ * copy pixels straight into a Bitmap instead of decoding the PNG again. Each pet type's atlas
+ * is one entry, keyed by pet type, cell size and pixel format. The folder is tied to the app's
+ * install time, so an update with new artwork starts from an empty cache.
+ */
+public class SpriteDiskCache {
+
+    private static final String TAG = "SpriteDiskCache";
+    private static final String DIR_PREFIX = "sprites-";
+    private static final int MAGIC = 0x50505331; // "PPS1"
+    private static final int HEADER_BYTES = 16;
+
+    private final Context context;
+    private File dir;
+
+    public SpriteDiskCache(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Resolves the versioned directory on first use rather than in the constructor, since the
+     * package lookup and stale-dir sweep touch disk and hosts create the cache on the main thread.
+     */
+    private synchronized File dir() {
+        if (dir != null) {
+            return dir;
+        }
+        long stamp = 0;
+        try {
+            stamp = context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Package info unavailable, using unversioned sprite cache", e);
+        }
+        File root = context.getCacheDir();
+        dir = new File(root, DIR_PREFIX + stamp);
+        deleteStaleDirs(root, dir.getName());
+        return dir;
+    }
+
+    public static String atlasKey(String petType, int cellWidth, int cellHeight, Bitmap.Config config) {
+        return petType + "_atlas_" + cellWidth + "x" + cellHeight + "_" + config.name();
+    }
+
+    /**
+     * Returns the cached bitmap for key, or null on a miss or an unreadable file.
+     */
+    public Bitmap get(String key, Bitmap.Config config) {
+        File file = new File(dir(), key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                return null;
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (buffer.getInt() != config.ordinal() || width <= 0 || height <= 0) {
+                return null;
+            }
+            Bitmap bitmap = Bitmap.createBitmap(width, height, config);
+            if (buffer.remaining() < bitmap.getByteCount()) {
+                bitmap.recycle();
+                return null;
+            }
+            bitmap.copyPixelsFromBuffer(buffer);
+            return bitmap;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Dropping unreadable sprite cache entry " + key, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Returns one width x height region of the cached bitmap for key, copied row by row out of the
+     * mapped file, or null on a miss. Lets a trimmed SpriteCache reload a single sprite without
+     * allocating the whole atlas again.
+     */
+    public Bitmap getRegion(String key, Bitmap.Config config, int left, int top, int width, int height) {
+        File file = new File(dir(), key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                return null;
+            }
+            int atlasWidth = buffer.getInt();
+            int atlasHeight = buffer.getInt();
+            if (buffer.getInt() != config.ordinal() || left < 0 || top < 0
+                    || left + width > atlasWidth || top + height > atlasHeight) {
+                return null;
+            }
+            int bytesPerPixel = config == Bitmap.Config.RGB_565 ? 2 : 4;
+            long atlasRowBytes = (long) atlasWidth * bytesPerPixel;
+            if (buffer.capacity() < HEADER_BYTES + atlasRowBytes * atlasHeight) {
+                return null;
+            }
+            Bitmap bitmap = Bitmap.createBitmap(width, height, config);
+            ByteBuffer pixels = ByteBuffer.allocateDirect(bitmap.getByteCount());
+            int rowBytes = width * bytesPerPixel;
+            for (int row = 0; row < height; row++) {
+                int start = (int) (HEADER_BYTES + (top + row) * atlasRowBytes + (long) left * bytesPerPixel);
+                buffer.limit(start + rowBytes).position(start);
+                pixels.put(buffer);
+            }
+            pixels.flip();
+            bitmap.copyPixelsFromBuffer(pixels);
+            return bitmap;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Dropping unreadable sprite cache entry " + key, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Writes a software bitmap under key. Written to a temp file first so a crash never leaves a
+     * half-written entry behind.
+     */
+    public void put(String key, Bitmap bitmap) {
+        File dir = dir();
+        if (bitmap.getConfig() == null || (!dir.isDirectory() && !dir.mkdirs())) {
+            return;
+        }
+        File tmp = new File(dir, key + ".tmp");
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(bitmap.getWidth()).putInt(bitmap.getHeight())
+                .putInt(bitmap.getConfig().ordinal());
+        header.flip();
+        ByteBuffer pixels = ByteBuffer.allocateDirect(bitmap.getByteCount());
+        bitmap.copyPixelsToBuffer(pixels);
+        pixels.flip();
+
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             FileChannel channel = out.getChannel()) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (pixels.hasRemaining()) {
+                channel.write(pixels);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write sprite cache entry " + key, e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(new File(dir, key))) {
+            tmp.delete();
+        }
+    }
+
+    private static void deleteStaleDirs(File root, String keep) {
+        File[] children = root.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory() && child.getName().startsWith(DIR_PREFIX) && !child.getName().equals(keep)) {
+                File[] entries = child.listFiles();
+                if (entries != null) {
+                    for (File entry : entries) {
+                        entry.delete();
+                    }
+                }
+                child.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.pocketpetv2;
+
+/**
+ * What one SpriteCache keeps decoded, and how much of it goes under memory pressure. Normally
+ * that is the current pet type's atlas and nothing else: switching pets drops the old one, since
+ * pets change rarely and an atlas is several MB. Each onTrimMemory level maps to a {@link Tier},
+ * and each tier drops more:
+ * <ol>
+ *     <li>ANIMATION_FRAMES: the host's decoded animation frames ({@link #keepsAnimationFrames});
+ *     the atlas stays, so states still change for free.</li>
+ *     <li>OTHER_STATES: the atlas itself; only the current state's sprite is kept, copied out.</li>
+ *     <li>LOW_RES: that sprite at half size (a quarter of the bytes), drawn scaled up.</li>
+ * </ol>
+ * A state change while trimmed loads just that state's sprite. Once no trim has arrived for
+ * recoverAfterMillis the pressure is taken to be over and the next {@link #select} reloads the
+ * full atlas. Nothing reloads eagerly.
+ *
+ * Plain Java over an image type B so the byte accounting can be unit tested; main thread only.
+ */
+public class SpriteMemory<B> {
+
+    // ComponentCallbacks2 levels, repeated here to keep this class free of Android.
+    public static final int TRIM_MEMORY_RUNNING_MODERATE = 5;
+    public static final int TRIM_MEMORY_RUNNING_LOW = 10;
+    public static final int TRIM_MEMORY_RUNNING_CRITICAL = 15;
+    public static final int TRIM_MEMORY_UI_HIDDEN = 20;
+    public static final int TRIM_MEMORY_BACKGROUND = 40;
+    public static final int TRIM_MEMORY_MODERATE = 60;
+    public static final int TRIM_MEMORY_COMPLETE = 80;
+
+    public static final long DEFAULT_RECOVER_AFTER_MILLIS = 60_000;
+
+    public enum Tier {
+        NONE, ANIMATION_FRAMES, OTHER_STATES, LOW_RES
+    }
+
+    public interface Images<B> {
+        long byteCount(B image);
+
+        /** The full atlas for petType, laid out like the layout passed in, or null. */
+        B loadAtlas(String petType);
+
+        /** One state's sprite for petType at width x height, or null. */
+        B loadSprite(String petType, int state, int width, int height);
+
+        /** A copy of one region of atlas. */
+        B crop(B atlas, int left, int top, int right, int bottom);
+
+        B scale(B image, int width, int height);
+    }
+
+    private final Images<B> images;
+    private final SpriteAtlasLayout atlasLayout;
+    private final SpriteAtlasLayout spriteLayout;
+    private final SpriteAtlasLayout lowResLayout;
+    private final long recoverAfterMillis;
+
+    // currentType's atlas, or null while it isn't loaded or a trim dropped it.
+    private B atlas;
+    private String currentType;
+    private int currentState = -1;
+    private Tier tier = Tier.NONE;
+    private long lastTrimMillis;
+    // While trimmed to one state: that state's sprite, full or low resolution.
+    private B sprite;
+    private int spriteState = -1;
+
+    public SpriteMemory(Images<B> images, SpriteAtlasLayout atlasLayout) {
+        this(images, atlasLayout, DEFAULT_RECOVER_AFTER_MILLIS);
+    }
+
+    public SpriteMemory(Images<B> images, SpriteAtlasLayout atlasLayout, long recoverAfterMillis) {
+        this.images = images;
+        this.atlasLayout = atlasLayout;
+        this.recoverAfterMillis = recoverAfterMillis;
+        int width = atlasLayout.getCellWidth();
+        int height = atlasLayout.getCellHeight();
+        spriteLayout = new SpriteAtlasLayout(width, height, 1);
+        lowResLayout = new SpriteAtlasLayout(Math.max(1, width / 2), Math.max(1, height / 2), 1);
+    }
+
+    public static Tier tierFor(int level) {
+        if (level >= TRIM_MEMORY_COMPLETE) return Tier.LOW_RES;
+        if (level >= TRIM_MEMORY_MODERATE) return Tier.OTHER_STATES;
+        if (level >= TRIM_MEMORY_UI_HIDDEN) return Tier.ANIMATION_FRAMES;
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) return Tier.LOW_RES;
+        if (level >= TRIM_MEMORY_RUNNING_LOW) return Tier.OTHER_STATES;
+        if (level >= TRIM_MEMORY_RUNNING_MODERATE) return Tier.ANIMATION_FRAMES;
+        return Tier.NONE;
+    }
+
+    /**
+     * Adds an atlas loaded elsewhere (e.g. on the startup worker) and makes petType current.
+     */
+    public void install(String petType, B atlas) {
+        if (atlas == null) return;
+        if (!petType.equals(currentType)) {
+            currentType = petType;
+            dropSprite();
+        }
+        this.atlas = atlas;
+        apply();
+    }
+
+    /**
+     * Makes sure what's needed to draw state of petType is loaded, reloading lazily whatever a
+     * trim dropped. Returns true if {@link #getImage} changed.
+     */
+    public boolean select(String petType, int state, long nowMillis) {
+        B before = getImage();
+        if (tier != Tier.NONE && nowMillis - lastTrimMillis >= recoverAfterMillis) {
+            tier = Tier.NONE;
+            dropSprite();
+        }
+        if (!petType.equals(currentType)) {
+            currentType = petType;
+            atlas = null;
+            dropSprite();
+        }
+        currentState = state;
+
+        if (tier.compareTo(Tier.OTHER_STATES) < 0) {
+            if (atlas == null) {
+                atlas = images.loadAtlas(petType);
+            }
+        } else if (sprite == null || spriteState != state) {
+            SpriteAtlasLayout layout = getImageLayout();
+            sprite = images.loadSprite(petType, state, layout.getCellWidth(), layout.getCellHeight());
+            spriteState = sprite != null ? state : -1;
+        }
+        return getImage() != before;
+    }
+
+    /**
+     * Handles one onTrimMemory level and returns the bytes it released. Levels at or below the
+     * current tier only restart the recovery timer.
+     */
+    public long trim(int level, long nowMillis) {
+        Tier next = tierFor(level);
+        if (next == Tier.NONE) return 0;
+        lastTrimMillis = nowMillis;
+        if (next.compareTo(tier) <= 0) return 0;
+
+        long before = getResidentBytes();
+        tier = next;
+        apply();
+        return before - getResidentBytes();
+    }
+
+    /** Drops everything, e.g. when the host goes away. */
+    public long clear() {
+        long before = getResidentBytes();
+        atlas = null;
+        dropSprite();
+        return before;
+    }
+
+    /** The image to draw from: the atlas, or the current state's sprite while trimmed. */
+    public B getImage() {
+        return tier.compareTo(Tier.OTHER_STATES) >= 0 ? sprite : atlas;
+    }
+
+    public SpriteAtlasLayout getImageLayout() {
+        switch (tier) {
+            case OTHER_STATES:
+                return spriteLayout;
+            case LOW_RES:
+                return lowResLayout;
+            default:
+                return atlasLayout;
+        }
+    }
+
+    /**
+     * Region of {@link #getImage} to draw for state. While trimmed the image holds only the
+     * current state, so every state maps to it.
+     */
+    public int getRegion(int state) {
+        return tier.compareTo(Tier.OTHER_STATES) >= 0 ? 0 : state;
+    }
+
+    public Tier getTier() {
+        return tier;
+    }
+
+    /** False from the first trim tier on: the host should drop its animation frames and play none. */
+    public boolean keepsAnimationFrames() {
+        return tier.compareTo(Tier.ANIMATION_FRAMES) < 0;
+    }
+
+    public long getResidentBytes() {
+        long bytes = 0;
+        if (atlas != null) {
+            bytes += images.byteCount(atlas);
+        }
+        if (sprite != null) {
+            bytes += images.byteCount(sprite);
+        }
+        return bytes;
+    }
+
+    private void apply() {
+        if (tier.compareTo(Tier.OTHER_STATES) < 0) return;
+
+        if (atlas != null && currentState >= 0) {
+            sprite = images.crop(atlas, atlasLayout.getLeft(currentState), atlasLayout.getTop(currentState),
+                    atlasLayout.getRight(currentState), atlasLayout.getBottom(currentState));
+            spriteState = currentState;
+        }
+        atlas = null;
+        if (tier == Tier.LOW_RES && sprite != null) {
+            long fullBytes = images.byteCount(sprite);
+            B scaled = images.scale(sprite, lowResLayout.getCellWidth(), lowResLayout.getCellHeight());
+            if (images.byteCount(scaled) < fullBytes) {
+                sprite = scaled;
+            }
+        }
+    }
+
+    private void dropSprite() {
+        sprite = null;
+        spriteState = -1;
+    }
+}
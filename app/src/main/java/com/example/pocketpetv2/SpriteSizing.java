@@ -0,0 +1,48 @@
+package com.example.pocketpetv2;
+
+/**
+ * Size math for decoding sprites straight to their on-screen size. Plain Java so it can be unit
+ * tested without a device.
+ */
+public final class SpriteSizing {
+
+    private SpriteSizing() {
+    }
+
+    public static int dpToPx(float dp, float density) {
+        return Math.max(1, Math.round(dp * density));
+    }
+
+    /**
+     * Largest power-of-two subsample that still leaves the decoded image at least as big as the
+     * requested size, so the final scale step only ever shrinks.
+     */
+    public static int calculateInSampleSize(int srcWidth, int srcHeight, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (srcWidth <= 0 || srcHeight <= 0 || reqWidth <= 0 || reqHeight <= 0) {
+            return inSampleSize;
+        }
+        while (srcWidth / (inSampleSize * 2) >= reqWidth && srcHeight / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Width of the source once it is scaled to fit inside the requested box, keeping its aspect ratio.
+     */
+    public static int fitWidth(int srcWidth, int srcHeight, int reqWidth, int reqHeight) {
+        return Math.max(1, Math.round(srcWidth * fitScale(srcWidth, srcHeight, reqWidth, reqHeight)));
+    }
+
+    public static int fitHeight(int srcWidth, int srcHeight, int reqWidth, int reqHeight) {
+        return Math.max(1, Math.round(srcHeight * fitScale(srcWidth, srcHeight, reqWidth, reqHeight)));
+    }
+
+    private static float fitScale(int srcWidth, int srcHeight, int reqWidth, int reqHeight) {
+        if (srcWidth <= 0 || srcHeight <= 0) {
+            return 1f;
+        }
+        return Math.min((float) reqWidth / srcWidth, (float) reqHeight / srcHeight);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.pocketpetv2;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the disk-bound part of a cold start on a worker while the main thread inflates the layout.
+ * The worker loads pet state first and then the sprites for that state, and each result is handed
+ * back on the main executor as soon as it is ready, so the UI can draw before either has finished.
+ * A loader that throws is reported there too, instead of dying silently on the worker. Plain Java; both executors are injected so tests can run the phases in any interleaving.
+ */
+public class StartupLoader<T> {
+
+    public interface StateLoader {
+        PetSnapshot load();
+    }
+
+    public interface SpriteLoader<T> {
+        /** May return null if nothing could be loaded; the host then falls back to loading lazily. */
+        T load(PetSnapshot pet);
+    }
+
+    public interface Callback<T> {
+        void onStateReady(PetSnapshot pet);
+
+        void onSpritesReady(PetSnapshot pet, T sprites);
+
+        /**
+         * A loader threw. pet is null if it was the state loader, and nothing else follows;
+         * otherwise the state was delivered and only the sprites are missing.
+         */
+        void onFailed(PetSnapshot pet, Throwable error);
+    }
+
+    private final Executor worker;
+    private final Executor main;
+    private final StartupTrace trace;
+    private volatile boolean cancelled = false;
+    private boolean started = false;
+
+    public StartupLoader(Executor worker, Executor main, StartupTrace trace) {
+        this.worker = worker;
+        this.main = main;
+        this.trace = trace;
+    }
+
+    /**
+     * Queues the prefetch. Call once, from the main thread, before inflating.
+     */
+    public void start(StateLoader stateLoader, SpriteLoader<T> spriteLoader, Callback<T> callback) {
+        if (started) {
+            throw new IllegalStateException("already started");
+        }
+        started = true;
+        trace.mark(StartupTrace.Phase.PREFETCH_START);
+        worker.execute(() -> {
+            if (cancelled) return;
+            PetSnapshot pet;
+            try {
+                pet = stateLoader.load();
+            } catch (Throwable e) {
+                fail(callback, null, e);
+                return;
+            }
+            trace.mark(StartupTrace.Phase.STATE_READY);
+            main.execute(() -> {
+                if (!cancelled) callback.onStateReady(pet);
+            });
+
+            if (cancelled) return;
+            T sprites;
+            try {
+                sprites = spriteLoader.load(pet);
+            } catch (Throwable e) {
+                fail(callback, pet, e);
+                return;
+            }
+            trace.mark(StartupTrace.Phase.SPRITES_READY);
+            main.execute(() -> {
+                if (!cancelled) callback.onSpritesReady(pet, sprites);
+            });
+        });
+    }
+
+    private void fail(Callback<T> callback, PetSnapshot pet, Throwable error) {
+        main.execute(() -> {
+            if (!cancelled) callback.onFailed(pet, error);
+        });
+    }
+
+    /**
+     * Drops any results that haven't been delivered yet, e.g. when the activity is destroyed
+     * before the worker finishes. Work already running completes but is not delivered.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+}
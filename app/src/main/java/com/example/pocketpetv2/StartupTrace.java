@@ -0,0 +1,94 @@
+package com.example.pocketpetv2;
+
+import java.util.Arrays;
+
+/**
+ * Timestamps for each phase of a cold start, so the time to the first pet frame can be read in
+ * logs and asserted in tests. Each phase is recorded once; later marks for the same phase are
+ * ignored, so a recreated activity doesn't overwrite the numbers from the real start.
+ * Marks may come from the main thread and the startup worker, so they are synchronized.
+ */
+public class StartupTrace {
+
+    public enum Phase {
+        /** MainActivity.onCreate entered. */
+        CREATE,
+        /** Background load of prefs and sprites handed to the worker. */
+        PREFETCH_START,
+        /** Layout inflated and set; the first (pet-less) frame can be drawn. */
+        CONTENT_VIEW,
+        /** PetData initialized off the main thread. */
+        STATE_READY,
+        /** Current pet's sprite atlas decoded or read from the disk cache, off the main thread. */
+        SPRITES_READY,
+        /** First frame drawn with the pet in it. */
+        FIRST_PET_FRAME
+    }
+
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private static final long UNSET = -1;
+
+    private final Clock clock;
+    private final long[] marks = new long[Phase.values().length];
+
+    public StartupTrace() {
+        this(System::nanoTime);
+    }
+
+    public StartupTrace(Clock clock) {
+        this.clock = clock;
+        Arrays.fill(marks, UNSET);
+    }
+
+    /**
+     * Records phase at the current time. Returns false if it was already recorded.
+     */
+    public synchronized boolean mark(Phase phase) {
+        if (marks[phase.ordinal()] != UNSET) {
+            return false;
+        }
+        marks[phase.ordinal()] = clock.nanoTime();
+        return true;
+    }
+
+    public synchronized boolean isMarked(Phase phase) {
+        return marks[phase.ordinal()] != UNSET;
+    }
+
+    /**
+     * Nanos from CREATE to phase, or -1 if either hasn't been recorded.
+     */
+    public long sinceCreateNanos(Phase phase) {
+        return elapsedNanos(Phase.CREATE, phase);
+    }
+
+    /**
+     * Nanos between two recorded phases, or -1 if either hasn't been recorded.
+     */
+    public synchronized long elapsedNanos(Phase from, Phase to) {
+        long start = marks[from.ordinal()];
+        long end = marks[to.ordinal()];
+        if (start == UNSET || end == UNSET) {
+            return UNSET;
+        }
+        return end - start;
+    }
+
+    /** One line per recorded phase, in ms since CREATE, for logcat. */
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("startup");
+        for (Phase phase : Phase.values()) {
+            long nanos = elapsedNanos(Phase.CREATE, phase);
+            if (nanos >= 0) {
+                builder.append(' ').append(phase.name()).append('=')
+                        .append(nanos / 1_000_000).append('.')
+                        .append((nanos / 100_000) % 10).append("ms");
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.pocketpetv2;
+
+/**
+ * Releases the accelerometer entirely once the device has been still for a while, on top of the
+ * rate tiers SensorRateGovernor picks while it is registered. While released it waits for a
+ * one-shot wake-up trigger (significant motion / motion detect) if the device has one, or else
+ * keeps a slow PROBE-rate accelerometer registration and wakes on the first real change.
+ * Plain Java; the sensor calls go through {@link SensorSource} so tests can use a fake.
+ */
+public class StationaryController {
+
+    public interface SensorSource {
+        void registerAccelerometer(SensorRateGovernor.Tier tier);
+
+        void unregisterAccelerometer();
+
+        /**
+         * Arms a one-shot wake-up trigger. Returns false if the device has none.
+         */
+        boolean requestWakeTrigger();
+
+        void cancelWakeTrigger();
+    }
+
+    public enum Mode {
+        /** Accelerometer registered at the governor's tier. */
+        ACTIVE,
+        /** Accelerometer released, waiting for the wake-up trigger. */
+        TRIGGER_WAIT,
+        /** Accelerometer at PROBE rate, waiting for the readings to move. */
+        PROBING,
+        STOPPED
+    }
+
+    public static final long DEFAULT_STILL_TIMEOUT_NANOS = 30_000_000_000L;
+
+    private final SensorSource source;
+    private final SensorRateGovernor governor = new SensorRateGovernor();
+    private final long stillTimeoutNanos;
+
+    private Mode mode = Mode.STOPPED;
+    private long stillSinceNanos = -1;
+    private boolean hasProbeReference;
+    private float probeX, probeY, probeZ;
+    private long sleeps, wakes;
+
+    public StationaryController(SensorSource source) {
+        this(source, DEFAULT_STILL_TIMEOUT_NANOS);
+    }
+
+    public StationaryController(SensorSource source, long stillTimeoutNanos) {
+        this.source = source;
+        this.stillTimeoutNanos = stillTimeoutNanos;
+    }
+
+    public void start() {
+        governor.reset();
+        stillSinceNanos = -1;
+        mode = Mode.ACTIVE;
+        source.registerAccelerometer(governor.getTier());
+    }
+
+    public void stop() {
+        if (mode == Mode.TRIGGER_WAIT) {
+            source.cancelWakeTrigger();
+        }
+        source.unregisterAccelerometer();
+        mode = Mode.STOPPED;
+    }
+
+    public void onAccelerometerSample(long timestampNanos, float x, float y, float z, boolean petResting) {
+        if (mode == Mode.PROBING) {
+            if (!hasProbeReference) {
+                hasProbeReference = true;
+                probeX = x;
+                probeY = y;
+                probeZ = z;
+            } else if (Math.abs(x - probeX) > SensorRateGovernor.CHANGE_THRESHOLD
+                    || Math.abs(y - probeY) > SensorRateGovernor.CHANGE_THRESHOLD
+                    || Math.abs(z - probeZ) > SensorRateGovernor.CHANGE_THRESHOLD) {
+                wake();
+            }
+            return;
+        }
+        if (mode != Mode.ACTIVE) {
+            return;
+        }
+
+        if (governor.onSample(timestampNanos, x, y, z, petResting)) {
+            source.registerAccelerometer(governor.getTier());
+        }
+
+        if (governor.getTier() != SensorRateGovernor.Tier.LOW) {
+            stillSinceNanos = -1;
+        } else if (stillSinceNanos < 0) {
+            stillSinceNanos = timestampNanos;
+        } else if (timestampNanos - stillSinceNanos >= stillTimeoutNanos) {
+            sleep();
+        }
+    }
+
+    public void onWakeTrigger() {
+        if (mode == Mode.TRIGGER_WAIT) {
+            wake();
+        }
+    }
+
+    /**
+     * The user touched the pet: go straight back to game rate.
+     */
+    public void onTouch() {
+        if (mode == Mode.ACTIVE) {
+            if (governor.boost()) {
+                source.registerAccelerometer(governor.getTier());
+            }
+            stillSinceNanos = -1;
+        } else if (mode != Mode.STOPPED) {
+            wake();
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public SensorRateGovernor.Tier getTier() {
+        switch (mode) {
+            case ACTIVE: return governor.getTier();
+            case PROBING: return SensorRateGovernor.Tier.PROBE;
+            default: return null;
+        }
+    }
+
+    public long getSleeps() {
+        return sleeps;
+    }
+
+    public long getWakes() {
+        return wakes;
+    }
+
+    private void sleep() {
+        sleeps++;
+        source.unregisterAccelerometer();
+        if (source.requestWakeTrigger()) {
+            mode = Mode.TRIGGER_WAIT;
+        } else {
+            mode = Mode.PROBING;
+            hasProbeReference = false;
+            source.registerAccelerometer(SensorRateGovernor.Tier.PROBE);
+        }
+    }
+
+    private void wake() {
+        wakes++;
+        if (mode == Mode.TRIGGER_WAIT) {
+            source.cancelWakeTrigger();
+        }
+        governor.boost();
+        stillSinceNanos = -1;
+        mode = Mode.ACTIVE;
+        source.registerAccelerometer(governor.getTier());
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.pocketpetv2;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Decodes preview thumbnails on a worker and keeps the most recently used ones in a small LRU, so
+ * flipping through pets is a map lookup on the main thread. A thumbnail the user is waiting for
+ * ({@link #request}) jumps ahead of prefetched ones, and each key is decoded at most once while
+ * it is queued. Evicted thumbnails are only dropped, since an ImageView may still show one.
+ *
+ * Call everything but the decoder from the main thread. Plain Java; both executors are injected so
+ * tests can control the order.
+ */
+public class ThumbnailLoader<T> {
+
+    public interface Decoder<T> {
+        /** Runs on the worker. May return null if the thumbnail can't be decoded. */
+        T decode(String key);
+    }
+
+    public interface Listener<T> {
+        /** A thumbnail finished decoding and is now cached. Main thread. */
+        void onThumbnailReady(String key, T thumbnail);
+    }
+
+    private final int capacity;
+    private final Executor worker;
+    private final Executor main;
+    private final Decoder<T> decoder;
+    private final Listener<T> listener;
+    // Access ordered: the first entry is the least recently used. Main thread only.
+    private final LinkedHashMap<String, T> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Guarded by this: keys waiting for the worker, and those plus the one it is decoding.
+    private final ArrayDeque<String> queue = new ArrayDeque<>();
+    private final HashSet<String> pending = new HashSet<>();
+    private boolean draining;
+    private boolean closed;
+    private long decodeCount;
+
+    public ThumbnailLoader(int capacity, Executor worker, Executor main, Decoder<T> decoder, Listener<T> listener) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.worker = worker;
+        this.main = main;
+        this.decoder = decoder;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the cached thumbnail for key, or null after queueing it ahead of any prefetches;
+     * the listener gets it once decoded.
+     */
+    public T request(String key) {
+        T cached = cache.get(key);
+        if (cached == null) {
+            enqueue(key, true);
+        }
+        return cached;
+    }
+
+    /**
+     * Queues the keys that aren't cached yet, in order, behind anything requested.
+     */
+    public void prefetch(Iterable<String> keys) {
+        for (String key : keys) {
+            if (!cache.containsKey(key)) {
+                enqueue(key, false);
+            }
+        }
+    }
+
+    /** The cached thumbnail for key without queueing anything, or null. */
+    public T peek(String key) {
+        return cache.get(key);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Thumbnails decoded so far, for tests and diagnostics. */
+    public synchronized long getDecodeCount() {
+        return decodeCount;
+    }
+
+    /**
+     * Drops everything queued and stops delivering results, e.g. in onDestroy. A decode already
+     * running finishes but is not delivered.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            queue.clear();
+            pending.clear();
+        }
+        cache.clear();
+    }
+
+    private synchronized void enqueue(String key, boolean first) {
+        if (closed) return;
+        if (!pending.add(key)) {
+            // Already waiting: a request moves it to the front. Already decoding: nothing to do.
+            if (first && queue.remove(key)) {
+                queue.addFirst(key);
+            }
+            return;
+        }
+        if (first) {
+            queue.addFirst(key);
+        } else {
+            queue.addLast(key);
+        }
+        if (!draining) {
+            draining = true;
+            worker.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            String key;
+            synchronized (this) {
+                key = closed ? null : queue.pollFirst();
+                if (key == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            T thumbnail = decoder.decode(key);
+            synchronized (this) {
+                decodeCount++;
+            }
+            main.execute(() -> deliver(key, thumbnail));
+        }
+    }
+
+    private void deliver(String key, T thumbnail) {
+        synchronized (this) {
+            if (closed) return;
+            pending.remove(key);
+        }
+        if (thumbnail == null) return;
+        cache.put(key, thumbnail);
+        Iterator<Map.Entry<String, T>> eldest = cache.entrySet().iterator();
+        while (cache.size() > capacity) {
+            eldest.next();
+            eldest.remove();
+        }
+        listener.onThumbnailReady(key, thumbnail);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.pocketpetv2;
+
+import java.io.IOException;
+
+/**
+ * Feeds a recorded {@link InputTrace} through PetPhysics, FixedStepClock and PetStateMachine the
+ * way MainActivity's loop does, as fast as the CPU allows instead of in real time. Sensor samples
+ * only set the input, TUNING records switch the pet type's damping and acceleration, touches drag
+ * the pet, and each FRAME record advances the clock and reports
+ * the resulting position and state. Used for golden-file tests and for profiling real workloads
+ * off-device.
+ */
+public class TraceReplayer {
+
+    public interface FrameListener {
+        void onFrame(long timeNanos, float x, float y, PetState state);
+    }
+
+    private final PetPhysics physics = new PetPhysics();
+    private final FixedStepClock clock = new FixedStepClock();
+    private final PetStateMachine stateMachine = new PetStateMachine();
+
+    private boolean dragging;
+    private float touchStartX, touchStartY;
+    private float petStartX, petStartY;
+
+    private long frames;
+    private long steps;
+    private long stateChanges;
+    private long simulatedNanos;
+
+    /**
+     * Replays every record from reader, reporting each frame to listener (which may be null).
+     * Can be called again to continue with another log on the same pet.
+     */
+    public void replay(InputTraceReader reader, FrameListener listener) throws IOException {
+        long firstTime = -1;
+        long lastTime = 0;
+        while (reader.next()) {
+            long time = reader.getTimeNanos();
+            if (firstTime < 0) firstTime = time;
+            lastTime = time;
+
+            switch (reader.getType()) {
+                case InputTrace.BOUNDS:
+                    physics.setBounds(reader.getX(), reader.getY(), reader.getMaxX(), reader.getMaxY());
+                    break;
+                case InputTrace.POSITION:
+                    physics.setPosition(reader.getX(), reader.getY());
+                    break;
+                case InputTrace.TUNING:
+                    physics.setTuning(reader.getDamping(), reader.getAccelerationScale());
+                    break;
+                case InputTrace.SENSOR:
+                    physics.setInput(-reader.getX(), reader.getY());
+                    break;
+                case InputTrace.TOUCH:
+                    onTouch(reader.getAction(), reader.getX(), reader.getY());
+                    break;
+                case InputTrace.FRAME:
+                    onFrame(time, listener);
+                    break;
+            }
+        }
+        if (firstTime >= 0) {
+            simulatedNanos += lastTime - firstTime;
+        }
+    }
+
+    private void onTouch(int action, float rawX, float rawY) {
+        switch (action) {
+            case InputTrace.ACTION_DOWN:
+                dragging = true;
+                touchStartX = rawX;
+                touchStartY = rawY;
+                petStartX = physics.getX();
+                petStartY = physics.getY();
+                break;
+            case InputTrace.ACTION_MOVE:
+                if (dragging) {
+                    physics.setPosition(petStartX + rawX - touchStartX, petStartY + rawY - touchStartY);
+                }
+                break;
+            case InputTrace.ACTION_UP:
+                dragging = false;
+                physics.stop();
+                break;
+        }
+    }
+
+    private void onFrame(long timeNanos, FrameListener listener) {
+        int frameSteps = clock.advance(timeNanos);
+        if (!dragging && frameSteps > 0) {
+            for (int i = 0; i < frameSteps; i++) {
+                physics.step();
+            }
+            steps += frameSteps;
+            PetState previous = stateMachine.getState();
+            if (stateMachine.update(physics) != previous) {
+                stateChanges++;
+            }
+        }
+        frames++;
+        if (listener != null) {
+            listener.onFrame(timeNanos, physics.getX(), physics.getY(), stateMachine.getState());
+        }
+    }
+
+    public PetPhysics getPhysics() {
+        return physics;
+    }
+
+    public PetState getState() {
+        return stateMachine.getState();
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getStateChanges() {
+        return stateChanges;
+    }
+
+    /** Span of recorded time replayed so far, first record to last. */
+    public long getSimulatedNanos() {
+        return simulatedNanos;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.pocketpetv2;
+
+/**
+ * Broad phase for PetFlock: buckets points into square cells one pet wide with a counting sort,
+ * so only pets in the same or neighbouring cells are tested against each other. Rebuilt every
+ * step from the position arrays; arrays only grow, in {@link #configure}, never per frame.
+ */
+public class UniformGrid {
+
+    public interface PairVisitor {
+        void visit(int a, int b);
+    }
+
+    private float originX, originY;
+    private float inverseCellSize;
+    private int columns, rows;
+
+    private int[] cellStart = new int[1];
+    private int[] cellOf = new int[0];
+    private int[] items = new int[0];
+
+    /**
+     * Covers [minX, maxX] x [minY, maxY] with cells of cellSize and makes room for capacity points.
+     */
+    public void configure(float minX, float minY, float maxX, float maxY, float cellSize, int capacity) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive");
+        }
+        originX = minX;
+        originY = minY;
+        inverseCellSize = 1f / cellSize;
+        columns = (int) ((maxX - minX) * inverseCellSize) + 1;
+        rows = (int) ((maxY - minY) * inverseCellSize) + 1;
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        }
+        if (items.length < capacity) {
+            items = new int[capacity];
+            cellOf = new int[capacity];
+        }
+    }
+
+    /**
+     * Sorts the first count points into cells. Points outside the configured area go to the
+     * nearest edge cell.
+     */
+    public void build(float[] x, float[] y, int count) {
+        int cells = columns * rows;
+        for (int c = 0; c <= cells; c++) {
+            cellStart[c] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int cell = cellIndex(x[i], y[i]);
+            cellOf[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        // Fill using cellStart as a cursor, then shift it back to the starts.
+        for (int i = 0; i < count; i++) {
+            items[cellStart[cellOf[i]]++] = i;
+        }
+        for (int c = cells; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /**
+     * Calls visitor once for every pair of points in the same or adjacent cells. Each unordered
+     * pair is visited exactly once.
+     */
+    public void forEachNearbyPair(PairVisitor visitor) {
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int cell = row * columns + column;
+                int start = cellStart[cell];
+                int end = cellStart[cell + 1];
+                if (start == end) continue;
+
+                for (int i = start; i < end; i++) {
+                    for (int j = i + 1; j < end; j++) {
+                        visitor.visit(items[i], items[j]);
+                    }
+                }
+                // Half of the neighbourhood, so no pair is seen twice.
+                visitCells(visitor, start, end, column + 1, row);
+                visitCells(visitor, start, end, column - 1, row + 1);
+                visitCells(visitor, start, end, column, row + 1);
+                visitCells(visitor, start, end, column + 1, row + 1);
+            }
+        }
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    private void visitCells(PairVisitor visitor, int start, int end, int column, int row) {
+        if (column < 0 || column >= columns || row >= rows) return;
+        int other = row * columns + column;
+        int otherStart = cellStart[other];
+        int otherEnd = cellStart[other + 1];
+        for (int i = start; i < end; i++) {
+            for (int j = otherStart; j < otherEnd; j++) {
+                visitor.visit(items[i], items[j]);
+            }
+        }
+    }
+
+    private int cellIndex(float x, float y) {
+        int column = (int) ((x - originX) * inverseCellSize);
+        int row = (int) ((y - originY) * inverseCellSize);
+        if (column < 0) column = 0;
+        else if (column >= columns) column = columns - 1;
+        if (row < 0) row = 0;
+        else if (row >= rows) row = rows - 1;
+        return row * columns + column;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FixedStepClockTest {
+
+    private static final long STEP = FixedStepClock.DEFAULT_STEP_NANOS;
+
+    @Test
+    public void firstAdvance_onlyRecordsTime() {
+        FixedStepClock clock = new FixedStepClock();
+        assertEquals(0, clock.advance(1_000_000_000L));
+        assertEquals(1, clock.advance(1_000_000_000L + STEP));
+    }
+
+    @Test
+    public void sameSimulatedTime_atAnyTickRate() {
+        long sixtySteps = STEP * 60;
+        assertEquals(60, stepsOver(sixtySteps, sixtySteps / 60));
+        assertEquals(60, stepsOver(sixtySteps, sixtySteps / 90));
+        assertEquals(60, stepsOver(sixtySteps, sixtySteps / 120));
+        assertEquals(60, stepsOver(sixtySteps, sixtySteps / 200));
+    }
+
+    @Test
+    public void remainderCarriesToNextAdvance() {
+        FixedStepClock clock = new FixedStepClock();
+        clock.advance(0);
+        assertEquals(0, clock.advance(STEP / 2));
+        assertEquals(0.5f, clock.getAlpha(), 0.01f);
+        assertEquals(1, clock.advance(STEP));
+        assertEquals(0f, clock.getAlpha(), 0.01f);
+    }
+
+    @Test
+    public void stall_isCappedAndCounted() {
+        FixedStepClock clock = new FixedStepClock();
+        clock.advance(0);
+        assertEquals(FixedStepClock.DEFAULT_MAX_STEPS, clock.advance(STEP * 100));
+        assertEquals(100 - FixedStepClock.DEFAULT_MAX_STEPS, clock.getDroppedSteps());
+        assertEquals(1, clock.advance(STEP * 101));
+    }
+
+    @Test
+    public void timeGoingBackwards_runsNoSteps() {
+        FixedStepClock clock = new FixedStepClock();
+        clock.advance(STEP * 10);
+        assertEquals(0, clock.advance(STEP * 5));
+    }
+
+    @Test
+    public void reset_ignoresPausedTime() {
+        FixedStepClock clock = new FixedStepClock();
+        clock.advance(0);
+        clock.reset();
+        assertEquals(0, clock.advance(STEP * 1000));
+        assertEquals(0, clock.getDroppedSteps());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroStep_isRejected() {
+        new FixedStepClock(0, 1);
+    }
+
+    private static int stepsOver(long duration, long tick) {
+        FixedStepClock clock = new FixedStepClock();
+        clock.advance(0);
+        int total = 0;
+        for (long now = tick; now <= duration; now += tick) {
+            total += clock.advance(now);
+        }
+        total += clock.advance(duration);
+        return total;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives FixedStepClock and PetPhysics the way the frame callbacks do, at several display rates,
+ * and checks that the drawn (interpolated) position advances by the same amount every frame.
+ */
+public class FramePacingTest {
+
+    private static final float SPEED = 6f; // px per physics step
+    private static final int FRAMES = 240;
+    // Drawing runs one step behind the simulation, so the first frames are still catching up.
+    private static final int WARM_UP_FRAMES = 4;
+
+    /** A pet gliding at a constant speed: no damping, no input after the first push. */
+    private static PetPhysics glidingPet() {
+        PetPhysics physics = new PetPhysics(1f, 1f);
+        physics.setBounds(0, 0, 100_000, 100_000);
+        physics.setPosition(0, 0);
+        physics.applyAcceleration(SPEED, 0);
+        return physics;
+    }
+
+    /** Per-frame movement of the drawn position at refreshHz, exact or rounded to whole pixels. */
+    private static float[] frameDeltas(int refreshHz, boolean interpolate, boolean roundToPixels) {
+        PetPhysics physics = glidingPet();
+        FixedStepClock clock = new FixedStepClock();
+        double framePeriodNanos = 1e9 / refreshHz;
+        long start = 5_000_000_000L;
+        clock.advance(start);
+
+        float[] deltas = new float[FRAMES];
+        float last = 0;
+        for (int frame = 1; frame <= FRAMES; frame++) {
+            int steps = clock.advance(start + Math.round(frame * framePeriodNanos));
+            for (int s = 0; s < steps; s++) {
+                physics.step(0, 0);
+            }
+            float drawn = interpolate ? physics.getInterpolatedX(clock.getAlpha()) : physics.getX();
+            if (roundToPixels) {
+                drawn = Math.round(drawn);
+            }
+            deltas[frame - 1] = drawn - last;
+            last = drawn;
+        }
+        return deltas;
+    }
+
+    private static void assertEvenlySpaced(int refreshHz) {
+        float expected = SPEED * 60f / refreshHz;
+        float[] deltas = frameDeltas(refreshHz, true, false);
+        for (int i = WARM_UP_FRAMES; i < deltas.length; i++) {
+            assertEquals(refreshHz + " Hz, frame " + i, expected, deltas[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void interpolatedPosition_isEvenlySpacedAt60Hz() {
+        assertEvenlySpaced(60);
+    }
+
+    @Test
+    public void interpolatedPosition_isEvenlySpacedAt90Hz() {
+        assertEvenlySpaced(90);
+    }
+
+    @Test
+    public void interpolatedPosition_isEvenlySpacedAt120Hz() {
+        assertEvenlySpaced(120);
+    }
+
+    /** Window positions are whole pixels: rounding may be off by one, but never drifts. */
+    @Test
+    public void roundedPosition_staysWithinAPixelOfEvenSpacing() {
+        for (int refreshHz : new int[]{60, 90, 120}) {
+            float expected = SPEED * 60f / refreshHz;
+            float[] deltas = frameDeltas(refreshHz, true, true);
+            float total = 0;
+            for (int i = WARM_UP_FRAMES; i < deltas.length; i++) {
+                assertEquals(refreshHz + " Hz, frame " + i, expected, deltas[i], 1f);
+                total += deltas[i];
+            }
+            assertEquals(refreshHz + " Hz total", expected * (deltas.length - WARM_UP_FRAMES), total, 1f);
+        }
+    }
+
+    /** What the loop did before: drawing the last step's position judders whenever Hz isn't 60. */
+    @Test
+    public void stepPositionsAlone_judderAbove60Hz() {
+        for (int refreshHz : new int[]{90, 120}) {
+            float[] deltas = frameDeltas(refreshHz, false, false);
+            float min = Float.MAX_VALUE, max = 0;
+            for (int i = WARM_UP_FRAMES; i < deltas.length; i++) {
+                min = Math.min(min, deltas[i]);
+                max = Math.max(max, deltas[i]);
+            }
+            assertEquals(refreshHz + " Hz", 0f, min, 0f);
+            assertEquals(refreshHz + " Hz", SPEED, max, 0f);
+        }
+    }
+}
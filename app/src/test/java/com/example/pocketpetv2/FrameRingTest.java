@@ -0,0 +1,98 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class FrameRingTest {
+
+    private static final Executor DIRECT = Runnable::run;
+    private static final FrameRing.Decoder<Integer> DECODER = index -> index;
+
+    @Test
+    public void wholeAnimationFits_isDecodedOnceAndKept() {
+        FrameRing<Integer> ring = new FrameRing<>(4, DIRECT, DECODER);
+        ring.play(4, 4);
+
+        for (int i = 0; i < 40; i++) {
+            assertEquals(Integer.valueOf(i % 4), ring.frame(i % 4));
+        }
+        assertEquals(4, ring.getDecodeCount());
+    }
+
+    @Test
+    public void longAnimation_streamsThroughABoundedNumberOfSlots() {
+        FrameRing<Integer> ring = new FrameRing<>(3, DIRECT, DECODER);
+        ring.play(8, 3);
+        assertEquals(3, ring.getReadyCount());
+
+        for (int i = 0; i < 24; i++) {
+            assertEquals("frame " + i, Integer.valueOf(i % 8), ring.frame(i % 8));
+            assertTrue(ring.getReadyCount() <= 3);
+        }
+        // One decode per frame played, plus the frames decoded ahead.
+        assertEquals(24 + 2, ring.getDecodeCount());
+    }
+
+    @Test
+    public void frameNotDecodedYet_returnsNullAndNeverDecodesOnTheCaller() {
+        Queue<Runnable> worker = new ArrayDeque<>();
+        FrameRing<Integer> ring = new FrameRing<>(4, worker::add, DECODER);
+        ring.play(4, 4);
+
+        assertNull(ring.frame(0));
+        assertEquals(0, ring.getDecodeCount());
+
+        worker.remove().run();
+        assertEquals(Integer.valueOf(0), ring.frame(0));
+        assertEquals(Integer.valueOf(3), ring.frame(3));
+        assertTrue(worker.isEmpty());
+    }
+
+    @Test
+    public void newAnimation_dropsFramesDecodedForTheOldOne() {
+        Queue<Runnable> worker = new ArrayDeque<>();
+        int[] animation = {100};
+        FrameRing<Integer> ring = new FrameRing<>(3, worker::add, index -> animation[0] + index);
+        ring.play(3, 3);
+
+        // The worker is mid-decode for the first animation when the second one starts.
+        Runnable fill = worker.remove();
+        ring.play(2, 3);
+        animation[0] = 200;
+        fill.run();
+
+        assertEquals(Integer.valueOf(200), ring.frame(0));
+        assertEquals(Integer.valueOf(201), ring.frame(1));
+    }
+
+    @Test
+    public void playbackJumpingAhead_restartsAtTheRequestedFrame() {
+        Queue<Runnable> worker = new ArrayDeque<>();
+        FrameRing<Integer> ring = new FrameRing<>(3, worker::add, DECODER);
+        ring.play(10, 3);
+        worker.remove().run();
+        assertEquals(Integer.valueOf(0), ring.frame(0));
+
+        assertNull(ring.frame(7));
+        while (!worker.isEmpty()) {
+            worker.remove().run();
+        }
+        assertEquals(Integer.valueOf(7), ring.frame(7));
+        assertEquals(Integer.valueOf(8), ring.frame(8));
+    }
+
+    @Test
+    public void clear_dropsEverything() {
+        FrameRing<Integer> ring = new FrameRing<>(2, DIRECT, DECODER);
+        ring.play(2, 2);
+        assertNotNull(ring.frame(1));
+        ring.clear();
+        assertNull(ring.frame(1));
+        assertEquals(0, ring.getReadyCount());
+    }
+}
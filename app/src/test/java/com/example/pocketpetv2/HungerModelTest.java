@@ -0,0 +1,62 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import static com.example.pocketpetv2.HungerModel.*;
+import static org.junit.Assert.*;
+
+public class HungerModelTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Test
+    public void losesOnePointPerMinute() {
+        assertEquals(360, hungerAt(360, T0, T0));
+        assertEquals(360, hungerAt(360, T0, T0 + MINUTE - 1));
+        assertEquals(359, hungerAt(360, T0, T0 + MINUTE));
+        assertEquals(300, hungerAt(360, T0, T0 + 60 * MINUTE));
+    }
+
+    @Test
+    public void neverGoesBelowZero() {
+        assertEquals(0, hungerAt(10, T0, T0 + 1000 * MINUTE));
+    }
+
+    @Test
+    public void clockGoingBackwards_keepsStoredValue() {
+        assertEquals(360, hungerAt(360, T0, T0 - MINUTE));
+    }
+
+    @Test
+    public void rebase_keepsPartialMinute() {
+        long now = T0 + 5 * MINUTE + 30_000;
+        long rebased = rebaseTimestamp(360, T0, now);
+        assertEquals(now - 30_000, rebased);
+        // The next point is lost 30s later, exactly when it would have been without the rebase.
+        assertEquals(354, hungerAt(360, T0, now + 30_000));
+        assertEquals(354, hungerAt(355, rebased, now + 30_000));
+    }
+
+    @Test
+    public void rebase_fromEmpty_startsFresh() {
+        long now = T0 + 1000 * MINUTE + 30_000;
+        assertEquals(now, rebaseTimestamp(10, T0, now));
+    }
+
+    @Test
+    public void millisUntilStarving() {
+        int stored = STARVING_THRESHOLD + 10;
+        assertEquals(10 * MINUTE, millisUntil(stored, T0, STARVING_THRESHOLD, T0));
+        assertEquals(4 * MINUTE, millisUntil(stored, T0, STARVING_THRESHOLD, T0 + 6 * MINUTE));
+        assertEquals(0, millisUntil(stored, T0, STARVING_THRESHOLD, T0 + 10 * MINUTE));
+        assertEquals(0, millisUntil(STARVING_THRESHOLD - 1, T0, STARVING_THRESHOLD, T0));
+    }
+
+    @Test
+    public void millisUntil_agreesWithHungerAt() {
+        long wait = millisUntil(MAX_HUNGER, T0, STARVING_THRESHOLD, T0 + 12_345);
+        assertEquals(STARVING_THRESHOLD + 1, hungerAt(MAX_HUNGER, T0, T0 + 12_345 + wait - 1));
+        assertEquals(STARVING_THRESHOLD, hungerAt(MAX_HUNGER, T0, T0 + 12_345 + wait));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class InputTraceTest {
+
+    private static final long T0 = 5_000_000_000L;
+
+    @Test
+    public void roundTrip_preservesEveryRecord() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputTraceWriter writer = new InputTraceWriter(bytes, T0)) {
+            writer.bounds(T0, 0f, 0f, 1080f, 2400f);
+            writer.position(T0 + 1, 540f, 2400f);
+            writer.tuning(T0 + 2, 0.8f, 3f);
+            writer.sensor(T0 + 20_000_000L, -1.5f, 9.81f, 0.25f);
+            writer.touch(T0 + 30_000_000L, InputTrace.ACTION_MOVE, 100.5f, 200.25f);
+            writer.frame(T0 + 33_333_333L);
+        }
+
+        InputTraceReader reader = new InputTraceReader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(T0, reader.getStartTimeNanos());
+
+        assertTrue(reader.next());
+        assertEquals(InputTrace.BOUNDS, reader.getType());
+        assertEquals(T0, reader.getTimeNanos());
+        assertEquals(1080f, reader.getMaxX(), 0f);
+        assertEquals(2400f, reader.getMaxY(), 0f);
+
+        assertTrue(reader.next());
+        assertEquals(InputTrace.POSITION, reader.getType());
+        assertEquals(540f, reader.getX(), 0f);
+
+        assertTrue(reader.next());
+        assertEquals(InputTrace.TUNING, reader.getType());
+        assertEquals(0.8f, reader.getDamping(), 0f);
+        assertEquals(3f, reader.getAccelerationScale(), 0f);
+
+        assertTrue(reader.next());
+        assertEquals(InputTrace.SENSOR, reader.getType());
+        assertEquals(T0 + 20_000_000L, reader.getTimeNanos());
+        assertEquals(-1.5f, reader.getX(), 0f);
+        assertEquals(9.81f, reader.getY(), 0f);
+        assertEquals(0.25f, reader.getZ(), 0f);
+
+        assertTrue(reader.next());
+        assertEquals(InputTrace.TOUCH, reader.getType());
+        assertEquals(InputTrace.ACTION_MOVE, reader.getAction());
+        assertEquals(200.25f, reader.getY(), 0f);
+
+        assertTrue(reader.next());
+        assertEquals(InputTrace.FRAME, reader.getType());
+        assertEquals(T0 + 33_333_333L, reader.getTimeNanos());
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void sensorSample_isCompact() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        InputTraceWriter writer = new InputTraceWriter(bytes, T0);
+        writer.flush();
+        int header = bytes.size();
+        for (int i = 1; i <= 100; i++) {
+            writer.sensor(T0 + i * 20_000_000L, 0f, 9.81f, 0f);
+        }
+        writer.close();
+        assertEquals(17, (bytes.size() - header) / 100);
+    }
+
+    @Test
+    public void outOfOrderTimestamps_survive() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputTraceWriter writer = new InputTraceWriter(bytes, T0)) {
+            writer.frame(T0 + 100);
+            writer.frame(T0 + 40);
+        }
+        InputTraceReader reader = new InputTraceReader(new ByteArrayInputStream(bytes.toByteArray()));
+        reader.next();
+        reader.next();
+        assertEquals(T0 + 40, reader.getTimeNanos());
+    }
+
+    @Test
+    public void versionOneLogs_stillRead() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputTraceWriter writer = new InputTraceWriter(bytes, T0)) {
+            writer.frame(T0 + 100);
+        }
+        byte[] data = bytes.toByteArray();
+        data[7] = 1; // low byte of the big-endian version
+        InputTraceReader reader = new InputTraceReader(new ByteArrayInputStream(data));
+        assertTrue(reader.next());
+        assertEquals(InputTrace.FRAME, reader.getType());
+    }
+
+    @Test(expected = IOException.class)
+    public void wrongMagic_isRejected() throws IOException {
+        new InputTraceReader(new ByteArrayInputStream(new byte[16]));
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedRecord_throws() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputTraceWriter writer = new InputTraceWriter(bytes, T0)) {
+            writer.sensor(T0 + 20_000_000L, 1f, 2f, 3f);
+        }
+        byte[] data = bytes.toByteArray();
+        InputTraceReader reader = new InputTraceReader(
+                new ByteArrayInputStream(Arrays.copyOf(data, data.length - 2)));
+        reader.next();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty_reportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void percentiles_areWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1..10000 us, uniformly.
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+        assertWithin(5_000_000L, histogram.getPercentileNanos(50));
+        assertWithin(9_500_000L, histogram.getPercentileNanos(95));
+        assertWithin(9_900_000L, histogram.getPercentileNanos(99));
+        assertEquals(10_000_000L, histogram.getMaxNanos());
+        assertEquals(10_000_000L, histogram.getPercentileNanos(100));
+        assertEquals(5_000_500L, histogram.getMeanNanos());
+    }
+
+    @Test
+    public void outlier_showsInMaxAndTailOnly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.record(200_000L);
+        }
+        histogram.record(40_000_000L);
+        assertWithin(200_000L, histogram.getPercentileNanos(50));
+        assertWithin(200_000L, histogram.getPercentileNanos(99));
+        assertEquals(40_000_000L, histogram.getMaxNanos());
+        assertEquals(40_000_000L, histogram.getPercentileNanos(99.95));
+    }
+
+    @Test
+    public void buckets_coverTheRangeInOrder() {
+        long previous = -1;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long upper = LatencyHistogram.upperBound(i);
+            assertTrue(upper > previous);
+            assertEquals(i, LatencyHistogram.bucketOf(upper));
+            if (previous >= 0) {
+                assertEquals(i, LatencyHistogram.bucketOf(previous + 1));
+            }
+            previous = upper;
+            if (upper == Long.MAX_VALUE) break;
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketOf(60_000_000_000L));
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+    }
+
+    @Test
+    public void reset_clearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000L);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(50));
+    }
+
+    @Test
+    public void stats_formatOneLinePerMetric() throws IOException {
+        LatencyStats stats = new LatencyStats();
+        stats.record(LatencyStats.Metric.PHYSICS_STEP, 1_500L);
+        stats.record(LatencyStats.Metric.RELAYOUT, 2_345_678L);
+
+        StringBuilder out = new StringBuilder();
+        stats.format(out);
+        String[] lines = out.toString().split("\n");
+        assertEquals(1 + LatencyStats.Metric.values().length, lines.length);
+        for (String line : lines) {
+            assertEquals(line, lines[0].length(), line.length());
+        }
+        assertTrue(lines[4], lines[4].startsWith("RELAYOUT"));
+        assertTrue(lines[4], lines[4].endsWith("2345.7"));
+
+        StringWriter dump = new StringWriter();
+        stats.dump(dump);
+        assertTrue(dump.toString().contains("RELAYOUT mean 2345.7 us"));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 8);
+    }
+}
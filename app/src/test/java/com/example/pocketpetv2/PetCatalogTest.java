@@ -0,0 +1,187 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PetCatalogTest {
+
+    /** Hands out made-up resource ids and counts lookups. */
+    private static class FakeResolver implements PetCatalog.Resolver {
+        final Map<String, Integer> ids = new HashMap<>();
+        int lookups;
+
+        @Override
+        public int drawable(String name) {
+            lookups++;
+            if (name.startsWith("missing")) return 0;
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = 0x7f080000 + ids.size();
+                ids.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    private static String pet(String id, String extra) {
+        StringBuilder builder = new StringBuilder("[").append(id).append("]\n").append(extra);
+        for (PetState state : PetState.values()) {
+            builder.append(state.name()).append(" = ").append(id).append('_')
+                    .append(state.name().toLowerCase()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static PetCatalog parse(String manifest, PetCatalog.Resolver resolver) throws IOException {
+        return PetCatalog.parse(new StringReader(manifest), resolver);
+    }
+
+    @Test
+    public void parse_keepsOrderNamesAndTuning() throws IOException {
+        PetCatalog catalog = parse("# comment\n\n"
+                + pet("gator", "name = Gator\n")
+                + pet("cat", "name = Cat\npreview = cat_portrait\ndamping = 0.8\nacceleration_scale = 3\n"),
+                new FakeResolver());
+
+        assertEquals(2, catalog.getTypes().size());
+        assertEquals("gator", catalog.getDefault().getId());
+        assertEquals("Cat", catalog.getTypes().get(1).getName());
+        assertEquals(1, catalog.indexOf("cat"));
+
+        PetType gator = catalog.get("gator");
+        assertEquals(PetPhysics.DEFAULT_DAMPING, gator.getDamping(), 0f);
+        assertEquals(PetPhysics.DEFAULT_ACCELERATION_SCALE, gator.getAccelerationScale(), 0f);
+        PetType cat = catalog.get("cat");
+        assertEquals(0.8f, cat.getDamping(), 0f);
+        assertEquals(3f, cat.getAccelerationScale(), 0f);
+    }
+
+    @Test
+    public void sprites_areResolvedLazilyAndOnce() throws IOException {
+        FakeResolver resolver = new FakeResolver();
+        PetCatalog catalog = parse(pet("gator", "") + pet("cat", "preview = cat_portrait\n"), resolver);
+        assertEquals(0, resolver.lookups);
+
+        PetType cat = catalog.get("cat");
+        int[] sprites = cat.getSprites();
+        assertEquals(PetState.values().length, resolver.lookups);
+        assertEquals(resolver.ids.get("cat_smack_right").intValue(), cat.getSpriteResource(PetState.SMACK_RIGHT));
+        assertSame(sprites, cat.getSprites());
+        assertEquals(PetState.values().length, resolver.lookups);
+
+        int preview = cat.getPreviewResource();
+        assertEquals(resolver.ids.get("cat_portrait").intValue(), preview);
+    }
+
+    @Test
+    public void animatedState_hasItsFramesAndDurations() throws IOException {
+        FakeResolver resolver = new FakeResolver();
+        PetType cat = parse(pet("cat", "").replace("FALLING_VERTICAL = cat_falling_vertical",
+                "FALLING_VERTICAL = cat_falling_vertical 240, cat_flail, cat_falling_vertical 60"),
+                resolver).get("cat");
+
+        SpriteAnimation falling = cat.getAnimation(PetState.FALLING_VERTICAL);
+        assertEquals(3, falling.getFrameCount());
+        assertEquals(cat.getSpriteResource(PetState.FALLING_VERTICAL), falling.getFrame(0));
+        assertEquals(resolver.ids.get("cat_flail").intValue(), falling.getFrame(1));
+        assertEquals(240, falling.getDurationMillis(0));
+        assertEquals(PetCatalog.DEFAULT_FRAME_MILLIS, falling.getDurationMillis(1));
+        assertEquals(60, falling.getDurationMillis(2));
+        assertEquals(1, cat.getAnimation(PetState.IDLE_LEFT).getFrameCount());
+    }
+
+    @Test
+    public void preview_defaultsToIdleLeftSprite() throws IOException {
+        FakeResolver resolver = new FakeResolver();
+        PetType gator = parse(pet("gator", ""), resolver).get("gator");
+        assertEquals(gator.getSpriteResource(PetState.IDLE_LEFT), gator.getPreviewResource());
+        assertEquals("gator", gator.getName());
+    }
+
+    @Test
+    public void unknownId_fallsBackToDefault() throws IOException {
+        PetCatalog catalog = parse(pet("gator", "") + pet("cat", ""), new FakeResolver());
+        assertEquals("gator", catalog.get("dragon").getId());
+        assertNull(catalog.find("dragon"));
+        assertEquals(-1, catalog.indexOf("dragon"));
+        assertEquals("gator", catalog.get(null).getId());
+    }
+
+    @Test
+    public void dozensOfPets_lookupDoesNotResolveOthers() throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            manifest.append(pet("pet" + i, "name = Pet " + i + "\n"));
+        }
+        FakeResolver resolver = new FakeResolver();
+        PetCatalog catalog = parse(manifest.toString(), resolver);
+
+        assertEquals(60, catalog.getTypes().size());
+        assertEquals("Pet 42", catalog.get("pet42").getName());
+        assertEquals(42, catalog.indexOf("pet42"));
+        catalog.get("pet42").getSprites();
+        assertEquals(PetState.values().length, resolver.lookups);
+    }
+
+    @Test
+    public void missingDrawable_namesThePet() throws IOException {
+        PetType broken = parse(pet("gator", "preview = missing_portrait\n"), new FakeResolver()).get("gator");
+        try {
+            broken.getPreviewResource();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("gator"));
+            assertTrue(e.getMessage(), e.getMessage().contains("missing_portrait"));
+        }
+    }
+
+    @Test
+    public void malformedManifests_failWithTheLine() throws IOException {
+        String[] bad = {
+                "",
+                "IDLE_LEFT = orphan\n",
+                pet("gator", "") + pet("gator", ""),
+                pet("gator", "damping = soft\n"),
+                pet("gator", "colour = green\n"),
+                pet("gator", "").replace("_idle_left", "_idle_left 0"),
+                pet("gator", "").replace("_idle_left", "_idle_left fast"),
+                pet("gator", "").replace("_idle_left", "_idle_left,"),
+                pet("gator", "").replace("_idle_left", "_idle_left 100 200"),
+                "[gator\n",
+                "[gator]\nname = Gator\n",
+        };
+        for (String manifest : bad) {
+            try {
+                parse(manifest, new FakeResolver());
+                fail("accepted:\n" + manifest);
+            } catch (IllegalArgumentException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().startsWith("Pet manifest"));
+            }
+        }
+    }
+
+    @Test
+    public void shippedManifest_listsTheBuiltInPets() throws IOException {
+        try (Reader reader = new InputStreamReader(
+                new FileInputStream("src/main/assets/" + PetCatalog.ASSET_NAME), StandardCharsets.UTF_8)) {
+            PetCatalog catalog = PetCatalog.parse(reader, new FakeResolver());
+            assertEquals("gator", catalog.getDefault().getId());
+            assertNotNull(catalog.find("cat"));
+            assertNotNull(catalog.find("penguin"));
+            for (PetType type : catalog.getTypes()) {
+                assertEquals(PetState.values().length, type.getSprites().length);
+            }
+            assertTrue(catalog.get("gator").getAnimation(PetState.FALLING_VERTICAL).getFrameCount() > 1);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PetFlockTest {
+
+    private static final float SIZE = 100f;
+    private static final float G = 9.81f;
+
+    private static PetFlock flock(int capacity) {
+        PetFlock flock = new PetFlock(capacity, SIZE);
+        flock.setBounds(0, 0, 980, 2100);
+        return flock;
+    }
+
+    private static void run(PetFlock flock, int steps) {
+        for (int i = 0; i < steps; i++) {
+            flock.step();
+            flock.updateStates();
+        }
+    }
+
+    @Test
+    public void singlePet_matchesPetPhysicsAndStateMachine() {
+        PetFlock flock = flock(1);
+        flock.add(490, 1000);
+        PetPhysics physics = new PetPhysics();
+        physics.setBounds(0, 0, 980, 2100);
+        physics.setPosition(490, 1000);
+        PetStateMachine stateMachine = new PetStateMachine();
+
+        for (int i = 0; i < 3000; i++) {
+            double phase = 2 * Math.PI * i / 700;
+            float ax = (float) (G * Math.sin(phase));
+            float ay = (float) (G * Math.cos(phase * 1.7));
+            flock.setInput(ax, ay);
+            physics.setInput(ax, ay);
+            flock.step();
+            flock.updateStates();
+            physics.step();
+            stateMachine.update(physics);
+
+            assertEquals("x at " + i, physics.getX(), flock.getX(0), 0f);
+            assertEquals("y at " + i, physics.getY(), flock.getY(0), 0f);
+            assertEquals("state at " + i, stateMachine.getState(), flock.getState(0));
+            assertEquals(physics.isAtRest(), flock.isAtRest(0));
+        }
+    }
+
+    @Test
+    public void flatPhone_petsRestWhereverTheyStopped() {
+        PetFlock flock = flock(3);
+        flock.add(440, 0);
+        flock.add(0, 1100);
+        flock.add(500, 700);
+        // Phone lying on a desk: gravity is all on z, x and y only carry sensor noise.
+        Random noise = new Random(7);
+        for (int i = 0; i < 120; i++) {
+            flock.setInput((noise.nextFloat() - 0.5f) * 0.02f, (noise.nextFloat() - 0.5f) * 0.02f);
+            flock.step();
+            flock.updateStates();
+            if (i >= 10) assertTrue("step " + i, flock.isAllAtRest());
+        }
+        assertEquals(0f, flock.getY(0), 20f);
+        assertEquals(0f, flock.getX(1), 20f);
+        assertFalse(flock.isGrounded(1));
+        assertEquals(700f, flock.getY(2), 20f);
+    }
+
+    /**
+     * Drives the flock like OverlayService: steps stop once it reports rest and only resume when a
+     * new sample makes it report otherwise.
+     */
+    @Test
+    public void slightTilt_hostThatStopsAtRestStillSlidesToTheEdge() {
+        PetFlock flock = flock(1);
+        flock.add(500, 700);
+        // Each step's push (0.19 * 2.5) is under the rest threshold; the speed it builds up isn't.
+        boolean running = false;
+        for (int sample = 0; sample < 3000; sample++) {
+            flock.setInput(0.19f, 0f);
+            if (!running && !flock.isAllAtRest()) {
+                running = true;
+            }
+            if (running) {
+                flock.step();
+                flock.updateStates();
+                running = !flock.isAllAtRest();
+            }
+        }
+        assertTrue(flock.isOnRightWall(0));
+        assertEquals(700f, flock.getY(0), 0f);
+        assertTrue(flock.isAllAtRest());
+    }
+
+    @Test
+    public void overlappingPets_arePushedApart() {
+        PetFlock flock = flock(2);
+        flock.add(400, 2100);
+        flock.add(450, 2100);
+        flock.setInput(0, G);
+        run(flock, 60);
+
+        assertTrue(Math.abs(flock.getX(1) - flock.getX(0)) >= SIZE - 0.01f);
+        assertTrue(flock.getContactCount() > 0);
+        assertTrue(flock.isAllAtRest());
+    }
+
+    @Test
+    public void fallingPet_landsOnAnotherAndRests() {
+        PetFlock flock = flock(2);
+        flock.add(400, 2100);
+        flock.add(400, 0);
+        flock.setInput(0, G);
+        run(flock, 300);
+
+        assertEquals(2100f, flock.getY(0), 0f);
+        assertEquals(2100f - SIZE, flock.getY(1), 1f);
+        assertTrue(flock.isGrounded(1));
+        assertFalse(flock.isOnGround(1));
+        assertTrue(flock.isAllAtRest());
+        assertTrue(flock.getState(1) == PetState.IDLE_LEFT || flock.getState(1) == PetState.IDLE_RIGHT);
+    }
+
+    @Test
+    public void pinnedPet_holdsStillAndIsBumped() {
+        PetFlock flock = flock(2);
+        flock.add(500, 1000);
+        flock.add(100, 1000);
+        flock.setPinned(0, true);
+        flock.setInput(G, 0); // everything slides right
+        run(flock, 120);
+
+        assertEquals(500f, flock.getX(0), 0f);
+        assertEquals(1000f, flock.getY(0), 0f);
+        assertTrue(flock.getX(1) <= 500f - SIZE + 0.01f);
+    }
+
+    @Test
+    public void remove_movesLastPetIntoSlot() {
+        PetFlock flock = flock(3);
+        flock.add(0, 0);
+        flock.add(200, 0);
+        flock.add(400, 0);
+        flock.remove(0);
+        assertEquals(2, flock.getCount());
+        assertEquals(400f, flock.getX(0), 0f);
+        assertEquals(200f, flock.getX(1), 0f);
+    }
+
+    @Test
+    public void holdAt_resumesFromTheDrawnPositionWithoutAJump() {
+        PetFlock flock = flock(2);
+        flock.add(100, 1000);
+        flock.add(500, 1000);
+        flock.setInput(G, -G);
+        run(flock, 5);
+        float alpha = 0.3f;
+        float drawnX = flock.getInterpolatedX(1, alpha);
+        float drawnY = flock.getInterpolatedY(1, alpha);
+        float velocityX = flock.getVelocityX(1);
+
+        flock.holdAt(alpha);
+
+        // After a clock reset the next frame draws at alpha 0: the same spot as before.
+        assertEquals(drawnX, flock.getInterpolatedX(1, 0f), 0f);
+        assertEquals(drawnY, flock.getInterpolatedY(1, 0f), 0f);
+        assertEquals(velocityX, flock.getVelocityX(1), 0f);
+        flock.step();
+        // One ordinary step onwards from there.
+        assertTrue(flock.getX(1) > drawnX);
+        assertEquals(flock.getVelocityX(1), flock.getX(1) - drawnX, 1e-3f);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void add_beyondCapacity_throws() {
+        PetFlock flock = flock(1);
+        flock.add(0, 0);
+        flock.add(0, 0);
+    }
+
+    @Test
+    public void droppedColumn_stacks() {
+        PetFlock flock = flock(3);
+        flock.add(300, 2100);
+        flock.add(310, 1750);
+        flock.add(290, 1500);
+        flock.setInput(0, G);
+        run(flock, 600);
+
+        assertEquals(2100f, flock.getY(0), 0f);
+        assertEquals(2000f, flock.getY(1), 1f);
+        assertEquals(1900f, flock.getY(2), 1f);
+        assertTrue(flock.isAllAtRest());
+    }
+
+    /** More pets than fit on the floor, dropped from random places, stack without overlapping. */
+    @Test
+    public void crowd_settlesWithoutOverlap() {
+        for (int seed = 1; seed <= 5; seed++) {
+            PetFlock flock = flock(12);
+            Random random = new Random(seed);
+            for (int i = 0; i < 12; i++) {
+                flock.add(random.nextFloat() * 980, random.nextFloat() * 1500);
+            }
+            flock.setInput(0, G);
+            run(flock, 1200);
+
+            assertTrue("seed " + seed, flock.isAllAtRest());
+            for (int a = 0; a < flock.getCount(); a++) {
+                for (int b = a + 1; b < flock.getCount(); b++) {
+                    float overlapX = SIZE - Math.abs(flock.getX(b) - flock.getX(a));
+                    float overlapY = SIZE - Math.abs(flock.getY(b) - flock.getY(a));
+                    assertTrue("seed " + seed + ": pets " + a + " and " + b + " overlap",
+                            overlapX <= 0.01f || overlapY <= 0.01f);
+                }
+            }
+        }
+    }
+
+    /** The shared loop must not allocate once running, whatever the pet count. */
+    @Test
+    public void step_doesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+
+        PetFlock flock = flock(64);
+        Random random = new Random(3);
+        for (int i = 0; i < 64; i++) {
+            flock.add(random.nextFloat() * 980, random.nextFloat() * 2100);
+        }
+        flock.setInput(3f, G);
+        run(flock, 20_000); // warm up
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        run(flock, 20_000);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
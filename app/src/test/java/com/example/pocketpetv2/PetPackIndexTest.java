@@ -0,0 +1,135 @@
+package com.example.pocketpetv2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PetPackIndexTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static PetPackIndex.Record record(String id) {
+        String[] entries = new String[PetPackIndex.ENTRY_SLOTS];
+        for (int e = 0; e < entries.length; e++) {
+            entries[e] = id + "/sprite" + e + ".png";
+        }
+        return new PetPackIndex.Record(id, "Name of " + id, id + ".zip", entries, 0.9f, 2f);
+    }
+
+    @Test
+    public void writeThenOpen_roundTripsEveryField() throws IOException {
+        File file = folder.newFile("packs.index");
+        List<PetPackIndex.Record> records = new ArrayList<>();
+        records.add(record("fox"));
+        records.add(record("dragon_\u00e9"));
+        PetPackIndex.write(file, records);
+
+        PetPackIndex index = PetPackIndex.open(file);
+        assertEquals(2, index.size());
+        int dragon = index.find("dragon_\u00e9");
+        assertEquals(1, dragon);
+        assertEquals("Name of dragon_\u00e9", index.getName(dragon));
+        assertEquals("dragon_\u00e9.zip", index.getPackFile(dragon));
+        assertEquals("dragon_\u00e9/sprite3.png", index.getEntry(dragon, 3));
+        assertEquals("dragon_\u00e9/sprite7.png", index.getEntry(dragon, PetPackIndex.PREVIEW_SLOT));
+        assertEquals(0.9f, index.getDamping(dragon), 0f);
+        assertEquals(2f, index.getAccelerationScale(dragon), 0f);
+        assertEquals(-1, index.find("wolf"));
+    }
+
+    @Test
+    public void hundredsOfPacks_everyIdIsFoundAtItsRecord() throws IOException {
+        File file = folder.newFile("packs.index");
+        List<PetPackIndex.Record> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            records.add(record("pet" + i));
+        }
+        PetPackIndex.write(file, records);
+
+        PetPackIndex index = PetPackIndex.open(file);
+        assertEquals(500, index.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, index.find("pet" + i));
+        }
+        assertEquals(-1, index.find("pet500"));
+    }
+
+    @Test
+    public void rewrite_keepsRecordNumbers() throws IOException {
+        File file = folder.newFile("packs.index");
+        PetPackIndex.write(file, Collections.singletonList(record("fox")));
+        PetPackIndex first = PetPackIndex.open(file);
+
+        List<PetPackIndex.Record> records = new ArrayList<>();
+        records.add(first.getRecord(0));
+        records.add(record("owl"));
+        PetPackIndex.write(file, records);
+
+        PetPackIndex second = PetPackIndex.open(file);
+        assertEquals(0, second.find("fox"));
+        assertEquals(1, second.find("owl"));
+        assertEquals("fox/sprite0.png", second.getEntry(0, 0));
+    }
+
+    @Test
+    public void missingFile_isEmpty() throws IOException {
+        PetPackIndex index = PetPackIndex.open(new File(folder.getRoot(), "none"));
+        assertEquals(0, index.size());
+        assertEquals(-1, index.find("fox"));
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptFile_isRejectedWhenOpened() throws IOException {
+        File corrupt = folder.newFile("corrupt.index");
+        try (FileOutputStream out = new FileOutputStream(corrupt)) {
+            out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+        }
+        PetPackIndex.open(corrupt);
+    }
+
+    /** Cut anywhere in the strings, the records still fit but their strings don't. */
+    @Test
+    public void truncatedFile_isRejectedWhenOpened() throws IOException {
+        File file = folder.newFile("packs.index");
+        List<PetPackIndex.Record> records = new ArrayList<>();
+        records.add(record("fox"));
+        records.add(record("owl"));
+        PetPackIndex.write(file, records);
+        long full = file.length();
+
+        for (long cut = full - 1; cut > full - 40; cut--) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(cut);
+            }
+            try {
+                PetPackIndex.open(file);
+                fail("opened at " + cut + " of " + full + " bytes");
+            } catch (IOException expected) {
+                // PetPacks treats it as no packs.
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void stringOffsetPastTheEnd_isRejectedWhenOpened() throws IOException {
+        File file = folder.newFile("packs.index");
+        PetPackIndex.write(file, Collections.singletonList(record("fox")));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // The first record's name offset; header, 2 hash slots, then the id offset.
+            raf.seek(16 + 4 * 2 + 4);
+            raf.writeInt((int) file.length() + 100);
+        }
+        PetPackIndex.open(file);
+    }
+}
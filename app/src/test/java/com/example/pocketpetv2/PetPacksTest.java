@@ -0,0 +1,224 @@
+package com.example.pocketpetv2;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class PetPacksTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /** Stands in for BitmapFactory: the fake images below decode unless they are marked corrupt. */
+    private static final PetPacks.ImageCheck IMAGES = image -> !read(image).startsWith("corrupt");
+
+    private File dir;
+    private PetCatalog builtIn;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = new File(folder.getRoot(), "packs");
+        builtIn = PetCatalog.parse(new StringReader(manifest("gator", "")), name -> 0x7f080000);
+    }
+
+    private static String manifest(String id, String extra) {
+        StringBuilder builder = new StringBuilder("[").append(id).append("]\n").append(extra);
+        for (PetState state : PetState.values()) {
+            builder.append(state.name()).append(" = ").append(id).append('/')
+                    .append(state.name().toLowerCase()).append(".png\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A pack holding the manifest and a fake image for every entry it names, minus skip. Entries
+     * with "corrupt" in their name get bytes that don't decode.
+     */
+    private static InputStream pack(String manifest, String... skip) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put(PetPacks.MANIFEST_ENTRY, manifest.getBytes(StandardCharsets.UTF_8));
+        for (String line : manifest.split("\n")) {
+            int equals = line.indexOf('=');
+            String value = equals > 0 ? line.substring(equals + 1).trim() : "";
+            if (value.endsWith(".png")) {
+                entries.put(value, ("pixels of " + value).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        for (String name : skip) {
+            entries.remove(name);
+        }
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            if (entry.getKey().contains("corrupt")) {
+                entry.setValue("corrupt".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[256];
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void importPack_indexesPetsAndStreamsTheirImages() throws IOException {
+        PetPacks packs = PetPacks.open(dir);
+        List<PetType> imported = packs.importPack(pack(manifest("fox", "name = Fox\ndamping = 0.8\n")
+                + manifest("owl", "preview = owl/idle_left.png\n")), builtIn, IMAGES);
+
+        assertEquals(2, imported.size());
+        PetType fox = packs.find("fox");
+        assertEquals("Fox", fox.getName());
+        assertEquals(0.8f, fox.getDamping(), 0f);
+
+        int sprite = fox.getSpriteResource(PetState.SMACK_RIGHT);
+        assertTrue(PetPacks.isPackSprite(sprite));
+        assertEquals("pixels of fox/smack_right.png", read(packs.openSprite(sprite)));
+        PetType owl = packs.find("owl");
+        assertEquals(owl.getSpriteResource(PetState.IDLE_LEFT), owl.getPreviewResource());
+
+        // Kept zipped: one pack file and the index, nothing unpacked.
+        String[] files = dir.list();
+        assertNotNull(files);
+        assertEquals(2, files.length);
+    }
+
+    @Test
+    public void reopen_readsOnlyTheIndex() throws IOException {
+        PetPacks.open(dir).importPack(pack(manifest("fox", "")), builtIn, IMAGES);
+
+        PetPacks reopened = PetPacks.open(dir);
+        assertEquals(1, reopened.size());
+        PetType fox = reopened.find("fox");
+        assertNotNull(fox);
+        assertEquals("pixels of fox/idle_left.png",
+                read(reopened.openSprite(fox.getSpriteResource(PetState.IDLE_LEFT))));
+    }
+
+    @Test
+    public void corruptIndex_readsAsNoPacks() throws IOException {
+        PetPacks.open(dir).importPack(pack(manifest("fox", "")), builtIn, IMAGES);
+        try (RandomAccessFile raf = new RandomAccessFile(new File(dir, PetPacks.INDEX_NAME), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        PetPacks reopened = PetPacks.open(dir);
+        assertEquals(0, reopened.size());
+        assertNull(reopened.find("fox"));
+    }
+
+    @Test
+    public void openSprite_sharesOnePackZipAndKeepsFewIdle() throws IOException {
+        PetPacks packs = PetPacks.open(dir);
+        packs.importPack(pack(manifest("fox", "")), builtIn, IMAGES);
+        PetType fox = packs.find("fox");
+
+        InputStream idle = packs.openSprite(fox.getSpriteResource(PetState.IDLE_LEFT));
+        InputStream falling = packs.openSprite(fox.getSpriteResource(PetState.FALLING_VERTICAL));
+        assertEquals(1, packs.getOpenZipCount());
+        assertEquals("pixels of fox/falling_vertical.png", read(falling));
+        assertEquals("pixels of fox/idle_left.png", read(idle));
+        // Still open for the next frame.
+        assertEquals(1, packs.getOpenZipCount());
+
+        String[] others = {"owl", "bat", "elk"};
+        for (String id : others) {
+            packs.importPack(pack(manifest(id, "")), builtIn, IMAGES);
+            read(packs.openSprite(packs.find(id).getSpriteResource(PetState.IDLE_LEFT)));
+        }
+        assertEquals(PetPacks.MAX_IDLE_ZIPS, packs.getOpenZipCount());
+        // A pack being read is never closed under a reader.
+        InputStream held = packs.openSprite(fox.getSpriteResource(PetState.SMACK_LEFT));
+        for (String id : others) {
+            read(packs.openSprite(packs.find(id).getSpriteResource(PetState.IDLE_RIGHT)));
+        }
+        assertEquals("pixels of fox/smack_left.png", read(held));
+    }
+
+    @Test
+    public void catalogWithPacks_listsPackPetsAfterBuiltIns() throws IOException {
+        PetPacks packs = PetPacks.open(dir);
+        PetCatalog catalog = builtIn.withPacks(packs);
+        assertEquals(1, catalog.getTypes().size());
+
+        packs.importPack(pack(manifest("fox", "")), catalog, IMAGES);
+        packs.importPack(pack(manifest("owl", "")), catalog, IMAGES);
+
+        assertEquals(3, catalog.getTypes().size());
+        assertEquals("owl", catalog.getTypes().get(2).getId());
+        assertEquals(2, catalog.indexOf("owl"));
+        assertSame(packs.find("fox"), catalog.get("fox"));
+        assertEquals("gator", catalog.get("wolf").getId());
+        assertFalse(PetPacks.isPackSprite(catalog.get("gator").getSpriteResource(PetState.IDLE_LEFT)));
+    }
+
+    @Test
+    public void badPacks_areRejectedAndLeaveNothingBehind() throws IOException {
+        PetPacks packs = PetPacks.open(dir);
+        packs.importPack(pack(manifest("fox", "")), builtIn, IMAGES);
+
+        InputStream[] bad = {
+                pack(manifest("gator", "")),
+                pack(manifest("fox", "")),
+                pack(manifest("Wolf", "")),
+                pack(manifest("wolf", ""), "wolf/falling_left.png"),
+                pack(manifest("wolf", "preview = wolf/portrait.png\n"), "wolf/portrait.png"),
+                pack(manifest("wolf", "preview = wolf/corrupt.png\n")),
+                pack("not a manifest\n"),
+        };
+        for (InputStream in : bad) {
+            try {
+                packs.importPack(in, builtIn, IMAGES);
+                fail();
+            } catch (IllegalArgumentException expected) {
+                // Reported to the user as is.
+            }
+        }
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        new ZipOutputStream(empty).close();
+        try {
+            packs.importPack(new ByteArrayInputStream(empty.toByteArray()), builtIn, IMAGES);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains(PetPacks.MANIFEST_ENTRY));
+        }
+
+        assertEquals(1, packs.size());
+        assertNull(packs.find("wolf"));
+        String[] files = dir.list();
+        assertNotNull(files);
+        assertEquals(2, files.length);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.pocketpetv2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PetPhysicsTest {
+
+    private static final float EPSILON = 0.0001f;
+
+    private PetPhysics physics;
+
+    @Before
+    public void setUp() {
+        physics = new PetPhysics();
+        physics.setBounds(0, 0, 1000, 2000);
+        physics.setPosition(500, 1000);
+    }
+
+    @Test
+    public void applyAcceleration_dampsThenAddsScaledAcceleration() {
+        physics.applyAcceleration(1f, 2f);
+        assertEquals(PetPhysics.DEFAULT_ACCELERATION_SCALE, physics.getVelocityX(), EPSILON);
+        assertEquals(2f * PetPhysics.DEFAULT_ACCELERATION_SCALE, physics.getVelocityY(), EPSILON);
+
+        physics.applyAcceleration(0f, 0f);
+        assertEquals(PetPhysics.DEFAULT_ACCELERATION_SCALE * PetPhysics.DEFAULT_DAMPING,
+                physics.getVelocityX(), EPSILON);
+    }
+
+    @Test
+    public void step_keepsSubPixelPosition() {
+        PetPhysics slow = new PetPhysics(1f, 0.1f);
+        slow.setBounds(0, 0, 100, 100);
+        slow.setPosition(10, 10);
+        slow.step(1f, 0f);
+        slow.step(0f, 0f);
+        assertEquals(10.2f, slow.getX(), EPSILON);
+    }
+
+    @Test
+    public void integrate_clampsToBoundsAndStopsOnThatAxis() {
+        for (int i = 0; i < 200; i++) {
+            physics.step(0f, 9.81f);
+        }
+        assertEquals(2000f, physics.getY(), EPSILON);
+        assertEquals(0f, physics.getVelocityY(), EPSILON);
+        assertTrue(physics.isOnGround());
+
+        for (int i = 0; i < 200; i++) {
+            physics.step(-9.81f, 0f);
+        }
+        assertEquals(0f, physics.getX(), EPSILON);
+        assertEquals(0f, physics.getVelocityX(), EPSILON);
+        assertTrue(physics.isOnLeftWall());
+        assertFalse(physics.isOnRightWall());
+    }
+
+    @Test
+    public void setPosition_clampsWithoutTouchingVelocity() {
+        physics.applyAcceleration(1f, 1f);
+        physics.setPosition(-50, 5000);
+        assertEquals(0f, physics.getX(), EPSILON);
+        assertEquals(2000f, physics.getY(), EPSILON);
+    }
+
+    @Test
+    public void setBounds_shrinkingMovesPetInside() {
+        physics.setBounds(0, 0, 100, 100);
+        assertEquals(100f, physics.getX(), EPSILON);
+        assertEquals(100f, physics.getY(), EPSILON);
+        assertTrue(physics.isOnRightWall());
+        assertTrue(physics.isOnGround());
+    }
+
+    @Test
+    public void setBounds_negativeSizeCollapsesToMin() {
+        physics.setBounds(0, 0, -10, -10);
+        assertEquals(0f, physics.getMaxX(), EPSILON);
+        assertEquals(0f, physics.getX(), EPSILON);
+    }
+
+    @Test
+    public void contactTolerance_isOnePixel() {
+        physics.setPosition(PetPhysics.CONTACT_TOLERANCE, 2000 - PetPhysics.CONTACT_TOLERANCE);
+        assertTrue(physics.isOnLeftWall());
+        assertTrue(physics.isOnGround());
+
+        physics.setPosition(PetPhysics.CONTACT_TOLERANCE + 0.5f, 2000 - PetPhysics.CONTACT_TOLERANCE - 0.5f);
+        assertFalse(physics.isOnWall());
+        assertFalse(physics.isOnGround());
+    }
+
+    @Test
+    public void isAtRest_whenSlowAndTheInputCantMoveIt() {
+        // Nothing pushing a pet that isn't moving: rests mid-air.
+        assertTrue(physics.isAtRest());
+
+        physics.setInput(0f, 9.81f);
+        physics.step();
+        assertFalse(physics.isAtRest());
+        for (int i = 0; i < 200; i++) {
+            physics.step();
+        }
+        assertTrue(physics.isAtRest());
+
+        physics.setInput(5f, 9.81f);
+        physics.step();
+        assertFalse(physics.isAtRest());
+    }
+
+    @Test
+    public void isAtRest_notWhileASlightTiltWouldBuildUpSpeed() {
+        // Under the threshold per step, but it keeps adding up to push / (1 - damping).
+        float push = PetPhysics.REST_VELOCITY_THRESHOLD * 0.98f;
+        physics.setInput(push / PetPhysics.DEFAULT_ACCELERATION_SCALE, 0f);
+        assertFalse(physics.isAtRest());
+
+        physics.setInput(0.01f / PetPhysics.DEFAULT_ACCELERATION_SCALE, 0f);
+        assertTrue(physics.isAtRest());
+    }
+
+    @Test
+    public void isAtRest_againstCeilingOrWallWithTheInputPressingIn() {
+        physics.setInput(0f, -9.81f);
+        for (int i = 0; i < 200; i++) {
+            physics.step();
+        }
+        assertTrue(physics.isOnCeiling());
+        assertTrue(physics.isAtRest());
+
+        physics.setInput(-9.81f, 0f);
+        for (int i = 0; i < 200; i++) {
+            physics.step();
+        }
+        assertTrue(physics.isOnLeftWall());
+        assertFalse(physics.isOnGround());
+        assertTrue(physics.isAtRest());
+
+        // Pulled away from the wall it touches.
+        physics.setInput(9.81f, 0f);
+        assertFalse(physics.isAtRest());
+    }
+
+    @Test
+    public void stop_zeroesVelocity() {
+        physics.applyAcceleration(3f, 4f);
+        physics.stop();
+        physics.integrate();
+        assertEquals(500f, physics.getX(), EPSILON);
+        assertEquals(1000f, physics.getY(), EPSILON);
+    }
+}
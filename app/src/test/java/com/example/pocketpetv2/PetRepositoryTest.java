@@ -0,0 +1,132 @@
+package com.example.pocketpetv2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PetRepositoryTest {
+
+    /** Counts writes and remembers the last one, like an XML rewrite of the prefs file would. */
+    private static class CountingStorage implements PetRepository.Storage {
+        int writes;
+        int lastFields;
+        String name, petType;
+        int hunger;
+        long lastUpdated;
+
+        @Override
+        public void write(int fields, String name, String petType, int hunger, long lastUpdatedMillis) {
+            writes++;
+            lastFields = fields;
+            if ((fields & PetRepository.FIELD_NAME) != 0) this.name = name;
+            if ((fields & PetRepository.FIELD_PET_TYPE) != 0) this.petType = petType;
+            if ((fields & PetRepository.FIELD_HUNGER) != 0) this.hunger = hunger;
+            if ((fields & PetRepository.FIELD_LAST_UPDATED) != 0) this.lastUpdated = lastUpdatedMillis;
+        }
+    }
+
+    /** Holds scheduled tasks until the test advances time. */
+    private static class ManualScheduler implements PetRepository.Scheduler {
+        final List<Runnable> pending = new ArrayList<>();
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            pending.add(task);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            pending.remove(task);
+        }
+
+        void runPending() {
+            List<Runnable> tasks = new ArrayList<>(pending);
+            pending.clear();
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    private CountingStorage storage;
+    private ManualScheduler scheduler;
+    private PetRepository repository;
+
+    @Before
+    public void setUp() {
+        storage = new CountingStorage();
+        scheduler = new ManualScheduler();
+        repository = new PetRepository(storage, scheduler, PetRepository.DEFAULT_COALESCE_MILLIS,
+                "Pet", "gator", 360, 1000L);
+    }
+
+    @Test
+    public void burstOfFeeds_isOneWrite() {
+        for (int i = 1; i <= 20; i++) {
+            repository.setHunger(360 + i * 10, 1000L + i);
+        }
+        assertEquals(0, storage.writes);
+        assertEquals(1, scheduler.pending.size());
+
+        scheduler.runPending();
+        assertEquals(1, storage.writes);
+        assertEquals(560, storage.hunger);
+        assertEquals(1020L, storage.lastUpdated);
+    }
+
+    @Test
+    public void unchangedValues_areNotWritten() {
+        repository.setName("Pet");
+        repository.setPetType("gator");
+        repository.setHunger(360, 1000L);
+        assertFalse(repository.hasPendingChanges());
+        assertTrue(scheduler.pending.isEmpty());
+        repository.flush();
+        assertEquals(0, storage.writes);
+    }
+
+    @Test
+    public void changeThenRevert_beforeFlush_isNotWritten() {
+        repository.setPetType("cat");
+        repository.setPetType("penguin");
+        repository.setPetType("gator");
+        scheduler.runPending();
+        assertEquals(0, storage.writes);
+    }
+
+    @Test
+    public void onlyChangedFieldsAreWritten() {
+        repository.setName("Chompy");
+        repository.setPetType("cat");
+        repository.flush();
+        assertEquals(1, storage.writes);
+        assertEquals(PetRepository.FIELD_NAME | PetRepository.FIELD_PET_TYPE, storage.lastFields);
+        assertEquals("Chompy", storage.name);
+        assertEquals("cat", storage.petType);
+    }
+
+    @Test
+    public void explicitFlush_cancelsScheduledWrite() {
+        repository.setName("Chompy");
+        repository.flush();
+        assertTrue(scheduler.pending.isEmpty());
+        assertEquals(1, storage.writes);
+
+        repository.flush();
+        assertEquals(1, storage.writes);
+    }
+
+    @Test
+    public void separateWindows_writeSeparately() {
+        repository.setHunger(400, 2000L);
+        scheduler.runPending();
+        repository.setHunger(440, 3000L);
+        scheduler.runPending();
+        assertEquals(2, storage.writes);
+        assertEquals(2, repository.getWriteCount());
+    }
+}
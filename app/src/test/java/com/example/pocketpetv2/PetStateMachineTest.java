@@ -0,0 +1,128 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import static com.example.pocketpetv2.PetStateMachine.*;
+import static org.junit.Assert.*;
+
+public class PetStateMachineTest {
+
+    private static final int AIR_DOWN = MOSTLY_VERTICAL;
+    private static final int AIR_RIGHT = MOSTLY_HORIZONTAL | MOVING_RIGHT;
+    private static final int AIR_LEFT = MOSTLY_HORIZONTAL | MOVING_LEFT;
+    private static final int GROUND = ON_GROUND;
+
+    @Test
+    public void idleLeft_transitions() {
+        assertTransition(PetState.IDLE_LEFT, GROUND, PetState.IDLE_LEFT);
+        assertTransition(PetState.IDLE_LEFT, GROUND | ON_LEFT_WALL, PetState.SMACK_LEFT);
+        assertTransition(PetState.IDLE_LEFT, GROUND | ON_RIGHT_WALL, PetState.SMACK_RIGHT);
+        assertTransition(PetState.IDLE_LEFT, AIR_DOWN, PetState.FALLING_VERTICAL);
+        assertTransition(PetState.IDLE_LEFT, AIR_RIGHT, PetState.FALLING_RIGHT);
+        assertTransition(PetState.IDLE_LEFT, AIR_LEFT, PetState.FALLING_LEFT);
+        // Not moving at all while airborne falls to the left, as the original switch did.
+        assertTransition(PetState.IDLE_LEFT, 0, PetState.FALLING_LEFT);
+    }
+
+    @Test
+    public void idleRight_transitions() {
+        assertTransition(PetState.IDLE_RIGHT, GROUND, PetState.IDLE_RIGHT);
+        assertTransition(PetState.IDLE_RIGHT, GROUND | ON_LEFT_WALL, PetState.SMACK_LEFT);
+        assertTransition(PetState.IDLE_RIGHT, GROUND | ON_RIGHT_WALL, PetState.SMACK_RIGHT);
+        assertTransition(PetState.IDLE_RIGHT, AIR_DOWN, PetState.FALLING_VERTICAL);
+        assertTransition(PetState.IDLE_RIGHT, AIR_RIGHT, PetState.FALLING_RIGHT);
+        assertTransition(PetState.IDLE_RIGHT, AIR_LEFT, PetState.FALLING_LEFT);
+    }
+
+    @Test
+    public void fallingVertical_transitions() {
+        assertTransition(PetState.FALLING_VERTICAL, AIR_DOWN, PetState.FALLING_VERTICAL);
+        assertTransition(PetState.FALLING_VERTICAL, AIR_DOWN | ON_LEFT_WALL, PetState.SMACK_LEFT);
+        assertTransition(PetState.FALLING_VERTICAL, AIR_DOWN | ON_RIGHT_WALL, PetState.SMACK_RIGHT);
+        assertTransition(PetState.FALLING_VERTICAL, AIR_RIGHT, PetState.FALLING_RIGHT);
+        assertTransition(PetState.FALLING_VERTICAL, AIR_LEFT, PetState.FALLING_LEFT);
+    }
+
+    @Test
+    public void fallingVertical_landsInLastIdlePose() {
+        PetStateMachine machine = new PetStateMachine(PetState.IDLE_RIGHT);
+        assertEquals(PetState.FALLING_VERTICAL, machine.update(AIR_DOWN));
+        assertEquals(PetState.IDLE_RIGHT, machine.update(GROUND));
+
+        machine.reset(PetState.IDLE_LEFT);
+        assertEquals(PetState.FALLING_VERTICAL, machine.update(AIR_DOWN));
+        assertEquals(PetState.IDLE_LEFT, machine.getLastIdleState());
+        assertEquals(PetState.IDLE_LEFT, machine.update(GROUND));
+    }
+
+    @Test
+    public void fallingLeft_transitions() {
+        assertTransition(PetState.FALLING_LEFT, AIR_LEFT, PetState.FALLING_LEFT);
+        assertTransition(PetState.FALLING_LEFT, AIR_LEFT | ON_LEFT_WALL, PetState.SMACK_LEFT);
+        assertTransition(PetState.FALLING_LEFT, AIR_LEFT | ON_RIGHT_WALL, PetState.SMACK_RIGHT);
+        assertTransition(PetState.FALLING_LEFT, GROUND, PetState.IDLE_LEFT);
+        assertTransition(PetState.FALLING_LEFT, AIR_DOWN, PetState.FALLING_VERTICAL);
+        assertTransition(PetState.FALLING_LEFT, AIR_RIGHT, PetState.FALLING_RIGHT);
+    }
+
+    @Test
+    public void fallingRight_transitions() {
+        assertTransition(PetState.FALLING_RIGHT, AIR_RIGHT, PetState.FALLING_RIGHT);
+        assertTransition(PetState.FALLING_RIGHT, AIR_RIGHT | ON_LEFT_WALL, PetState.SMACK_LEFT);
+        assertTransition(PetState.FALLING_RIGHT, AIR_RIGHT | ON_RIGHT_WALL, PetState.SMACK_RIGHT);
+        assertTransition(PetState.FALLING_RIGHT, GROUND, PetState.IDLE_RIGHT);
+        assertTransition(PetState.FALLING_RIGHT, AIR_DOWN, PetState.FALLING_VERTICAL);
+        assertTransition(PetState.FALLING_RIGHT, AIR_LEFT, PetState.FALLING_LEFT);
+    }
+
+    @Test
+    public void smackLeft_transitions() {
+        assertTransition(PetState.SMACK_LEFT, ON_LEFT_WALL, PetState.SMACK_LEFT);
+        assertTransition(PetState.SMACK_LEFT, GROUND | ON_LEFT_WALL, PetState.SMACK_LEFT);
+        assertTransition(PetState.SMACK_LEFT, GROUND, PetState.IDLE_LEFT);
+        assertTransition(PetState.SMACK_LEFT, AIR_RIGHT, PetState.FALLING_LEFT);
+    }
+
+    @Test
+    public void smackRight_transitions() {
+        assertTransition(PetState.SMACK_RIGHT, ON_RIGHT_WALL, PetState.SMACK_RIGHT);
+        assertTransition(PetState.SMACK_RIGHT, GROUND | ON_RIGHT_WALL, PetState.SMACK_RIGHT);
+        assertTransition(PetState.SMACK_RIGHT, GROUND, PetState.IDLE_RIGHT);
+        assertTransition(PetState.SMACK_RIGHT, AIR_LEFT, PetState.FALLING_RIGHT);
+    }
+
+    @Test
+    public void table_matchesRulesForEveryInput() {
+        for (PetState from : PetState.values()) {
+            for (PetState lastIdle : new PetState[]{PetState.IDLE_LEFT, PetState.IDLE_RIGHT}) {
+                for (int flags = 0; flags < FLAG_COUNT; flags++) {
+                    PetStateMachine machine = new PetStateMachine();
+                    machine.reset(from, lastIdle);
+                    assertEquals(from + " / " + lastIdle + " / " + flags,
+                            PetStateMachine.decide(from, lastIdle, flags), machine.update(flags));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void flags_fromPhysics() {
+        PetPhysics physics = new PetPhysics();
+        physics.setBounds(0, 0, 100, 100);
+        physics.setPosition(0, 100);
+        assertEquals(ON_LEFT_WALL | ON_GROUND, flags(physics));
+
+        physics.setPosition(50, 50);
+        physics.applyAcceleration(2f, 1f);
+        assertEquals(MOSTLY_HORIZONTAL | MOVING_RIGHT, flags(physics));
+
+        physics.stop();
+        physics.applyAcceleration(-1f, 2f);
+        assertEquals(MOSTLY_VERTICAL | MOVING_LEFT, flags(physics));
+    }
+
+    private static void assertTransition(PetState from, int flags, PetState expected) {
+        PetStateMachine machine = new PetStateMachine(from);
+        assertEquals(from + " with flags " + flags, expected, machine.update(flags));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PetStoreTest {
+
+    private static final int[] SPRITES = new int[PetState.values().length];
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static PetSnapshot initial() {
+        return new PetSnapshot("Pet", "gator", SPRITES, 0, 0, T0);
+    }
+
+    @Test
+    public void update_publishesNewSnapshot() {
+        PetStore store = new PetStore(initial(), null);
+        PetSnapshot next = store.update(s -> s.withName("Chompy"));
+        assertSame(next, store.get());
+        assertEquals("Chompy", store.get().getName());
+        assertEquals("gator", store.get().getPetType());
+    }
+
+    @Test
+    public void unchangedMutation_skipsListener() {
+        int[] calls = new int[1];
+        PetStore store = new PetStore(initial(), (previous, next) -> calls[0]++);
+        store.update(s -> s);
+        assertEquals(0, calls[0]);
+        store.update(s -> s.withName("Chompy"));
+        assertEquals(1, calls[0]);
+    }
+
+    @Test
+    public void petType_bumpsSpriteVersion() {
+        PetStore store = new PetStore(initial(), null);
+        store.update(s -> s.withPetType("cat", SPRITES));
+        assertEquals(1, store.get().getSpriteVersion());
+    }
+
+    @Test
+    public void fed_usesLazyHungerAndCaps() {
+        PetSnapshot snapshot = initial().withHunger(100, T0);
+        PetSnapshot fed = snapshot.fed(50, T0 + 10 * HungerModel.MILLIS_PER_POINT);
+        assertEquals(140, fed.getStoredHunger());
+        assertEquals(HungerModel.MAX_HUNGER, fed.fed(10_000, T0).getStoredHunger());
+    }
+
+    /**
+     * Feeds from several threads race a "worker" thread that rewrites the hunger pair, the way
+     * HungerWorker and the UI used to. No update may be lost, readers must never see hunger go
+     * backwards, and the listener must see every change in publication order.
+     */
+    @Test
+    public void concurrentFeedsAndWorkerUpdates_loseNothing() throws Exception {
+        final int feeders = 4;
+        final int feedsPerThread = 50_000;
+        final int workerUpdates = 50_000;
+
+        AtomicReference<PetSnapshot> lastSeen = new AtomicReference<>(initial());
+        AtomicBoolean outOfOrder = new AtomicBoolean(false);
+        PetSnapshot start = lastSeen.get();
+        PetStore store = new PetStore(start, (previous, next) -> {
+            if (lastSeen.getAndSet(next) != previous) {
+                outOfOrder.set(true);
+            }
+        });
+
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicBoolean wentBackwards = new AtomicBoolean(false);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < feeders; t++) {
+            threads.add(new Thread(() -> {
+                await(go);
+                for (int i = 0; i < feedsPerThread; i++) {
+                    store.update(s -> s.withHunger(s.getStoredHunger() + 1, s.getHungerUpdatedMillis()));
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            await(go);
+            for (int i = 0; i < workerUpdates; i++) {
+                store.update(s -> s.withHunger(s.getStoredHunger(), s.getHungerUpdatedMillis() + 1));
+            }
+        }));
+        Thread reader = new Thread(() -> {
+            await(go);
+            int last = -1;
+            while (!done.get()) {
+                int hunger = store.get().getStoredHunger();
+                if (hunger < last) {
+                    wentBackwards.set(true);
+                }
+                last = hunger;
+            }
+        });
+
+        for (Thread thread : threads) thread.start();
+        reader.start();
+        go.countDown();
+        for (Thread thread : threads) thread.join();
+        done.set(true);
+        reader.join();
+
+        assertEquals(feeders * feedsPerThread, store.get().getStoredHunger());
+        assertEquals(T0 + workerUpdates, store.get().getHungerUpdatedMillis());
+        assertSame(store.get(), lastSeen.get());
+        assertFalse("listener saw changes out of order", outOfOrder.get());
+        assertFalse("a reader saw hunger go backwards", wentBackwards.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.pocketpetv2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PowerSchedulerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    /** Records mode changes; wakes up at a fixed rate like a running frame loop plus sensor. */
+    private static class FakeHost implements PowerScheduler.Host {
+        final List<String> changes = new ArrayList<>();
+        double wakeupsPerSecond = 110;
+
+        @Override
+        public void onModeChanged(PowerScheduler.Mode from, PowerScheduler.Mode to) {
+            changes.add(from + "->" + to);
+        }
+
+        @Override
+        public double getWakeupsPerSecond() {
+            return wakeupsPerSecond;
+        }
+    }
+
+    private FakeHost host;
+    private PowerScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        host = new FakeHost();
+        scheduler = new PowerScheduler(host);
+        scheduler.start(true, false, false, 0);
+    }
+
+    @Test
+    public void start_withScreenOnAndUnlocked_runsNormally() {
+        assertEquals(PowerScheduler.Mode.NORMAL, scheduler.getMode());
+        assertTrue(host.changes.isEmpty());
+    }
+
+    @Test
+    public void start_withScreenOff_suspendsRightAway() {
+        PowerScheduler offAtStart = new PowerScheduler(host);
+        offAtStart.start(false, true, false, 0);
+        assertEquals(PowerScheduler.Mode.SUSPENDED, offAtStart.getMode());
+        assertEquals(1, offAtStart.getSuspendCount());
+    }
+
+    @Test
+    public void screenOff_suspendsUntilUserPresent() {
+        scheduler.onScreenOff(SECOND);
+        assertEquals(PowerScheduler.Mode.SUSPENDED, scheduler.getMode());
+
+        // Screen on behind the lock screen: the overlay isn't visible yet.
+        scheduler.onScreenOn(true, 5 * SECOND);
+        assertEquals(PowerScheduler.Mode.SUSPENDED, scheduler.getMode());
+
+        scheduler.onUserPresent(6 * SECOND);
+        assertEquals(PowerScheduler.Mode.NORMAL, scheduler.getMode());
+        assertEquals(2, host.changes.size());
+        assertEquals("NORMAL->SUSPENDED", host.changes.get(0));
+        assertEquals("SUSPENDED->NORMAL", host.changes.get(1));
+    }
+
+    @Test
+    public void screenOnWithoutKeyguard_resumesImmediately() {
+        scheduler.onScreenOff(0);
+        scheduler.onScreenOn(false, SECOND);
+        assertEquals(PowerScheduler.Mode.NORMAL, scheduler.getMode());
+    }
+
+    @Test
+    public void repeatedBroadcasts_dontRepeatTransitions() {
+        scheduler.onScreenOff(0);
+        scheduler.onScreenOff(SECOND);
+        scheduler.onUserPresent(2 * SECOND);
+        scheduler.onUserPresent(3 * SECOND);
+        assertEquals(2, host.changes.size());
+        assertEquals(1, scheduler.getSuspendCount());
+    }
+
+    @Test
+    public void powerSave_runsReducedAndSurvivesSuspension() {
+        scheduler.onPowerSaveChanged(true, 0);
+        assertEquals(PowerScheduler.Mode.POWER_SAVE, scheduler.getMode());
+
+        scheduler.onScreenOff(SECOND);
+        scheduler.onUserPresent(2 * SECOND);
+        assertEquals(PowerScheduler.Mode.POWER_SAVE, scheduler.getMode());
+
+        scheduler.onPowerSaveChanged(false, 3 * SECOND);
+        assertEquals(PowerScheduler.Mode.NORMAL, scheduler.getMode());
+    }
+
+    @Test
+    public void counters_addUpEverySuspension() {
+        scheduler.onScreenOff(10 * SECOND);
+        scheduler.onUserPresent(40 * SECOND);
+        host.wakeupsPerSecond = 5; // resting pet, sensor batched
+        scheduler.onScreenOff(100 * SECOND);
+
+        // 30 s at 110/s, then an ongoing 20 s at 5/s.
+        assertEquals(50 * SECOND, scheduler.getSuspendedNanos(120 * SECOND));
+        assertEquals(30 * 110 + 20 * 5, scheduler.getWakeupsAvoided(120 * SECOND));
+        assertEquals(2, scheduler.getSuspendCount());
+
+        scheduler.onUserPresent(130 * SECOND);
+        assertEquals(60 * SECOND, scheduler.getSuspendedNanos(500 * SECOND));
+        assertEquals(30 * 110 + 30 * 5, scheduler.getWakeupsAvoided(500 * SECOND));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RateCounterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void noEvents_isZero() {
+        RateCounter counter = new RateCounter();
+        assertEquals(0, counter.getPerSecond(5 * SECOND));
+        assertEquals(0, counter.getTotal());
+    }
+
+    @Test
+    public void reportsLastCompleteWindow() {
+        RateCounter counter = new RateCounter();
+        for (int i = 0; i < 60; i++) {
+            counter.record(i * (SECOND / 60));
+        }
+        // First window still open: nothing complete yet.
+        assertEquals(0, counter.getPerSecond(SECOND / 2));
+        // Window closed but no new event rolled it yet.
+        assertEquals(60, counter.getPerSecond(SECOND + 1));
+
+        counter.record(SECOND + SECOND / 4);
+        assertEquals(60, counter.getPerSecond(SECOND + SECOND / 2));
+        assertEquals(61, counter.getTotal());
+    }
+
+    @Test
+    public void goingQuiet_dropsToZero() {
+        RateCounter counter = new RateCounter();
+        for (int i = 0; i < 30; i++) {
+            counter.record(i * (SECOND / 30));
+        }
+        assertEquals(0, counter.getPerSecond(3 * SECOND));
+
+        counter.record(10 * SECOND);
+        assertEquals(0, counter.getPerSecond(10 * SECOND + 1));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.pocketpetv2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SensorRateGovernorTest {
+
+    private static final long SAMPLE = 20_000_000L; // 50 Hz
+    private static final float GRAVITY = 9.81f;
+
+    private SensorRateGovernor governor;
+    private long now;
+
+    @Before
+    public void setUp() {
+        governor = new SensorRateGovernor();
+        now = 0;
+    }
+
+    @Test
+    public void startsAtGameRate() {
+        assertEquals(SensorRateGovernor.Tier.GAME, governor.getTier());
+        assertFalse(feed(0f, GRAVITY, true));
+    }
+
+    @Test
+    public void steadyAndResting_dropsToLowAfterSteadyWindow() {
+        boolean changed = false;
+        while (now < SensorRateGovernor.STEADY_NANOS - SAMPLE) {
+            changed |= feed(0.1f, GRAVITY, true);
+        }
+        assertFalse(changed);
+        assertEquals(SensorRateGovernor.Tier.GAME, governor.getTier());
+
+        feed(0f, GRAVITY, true);
+        assertTrue(feed(0.2f, GRAVITY - 0.2f, true));
+        assertEquals(SensorRateGovernor.Tier.LOW, governor.getTier());
+    }
+
+    @Test
+    public void steadyButPetMoving_staysAtGameRate() {
+        for (int i = 0; i < 500; i++) {
+            assertFalse(feed(0f, GRAVITY, false));
+        }
+        assertEquals(SensorRateGovernor.Tier.GAME, governor.getTier());
+    }
+
+    @Test
+    public void bigChange_returnsToGameImmediately() {
+        settleToLow();
+        assertTrue(feed(3f, GRAVITY, true));
+        assertEquals(SensorRateGovernor.Tier.GAME, governor.getTier());
+        assertEquals(2, governor.getTierChanges());
+    }
+
+    @Test
+    public void smallNoise_staysLow() {
+        settleToLow();
+        for (int i = 0; i < 100; i++) {
+            assertFalse(feed((i & 1) * 0.3f, GRAVITY + (i & 1) * 0.3f, true));
+        }
+        assertEquals(SensorRateGovernor.Tier.LOW, governor.getTier());
+    }
+
+    @Test
+    public void boost_forcesGame() {
+        settleToLow();
+        assertTrue(governor.boost());
+        assertEquals(SensorRateGovernor.Tier.GAME, governor.getTier());
+        assertFalse(governor.boost());
+    }
+
+    private void settleToLow() {
+        while (governor.getTier() != SensorRateGovernor.Tier.LOW) {
+            feed(0f, GRAVITY, true);
+            assertTrue("never settled", now < 10 * SensorRateGovernor.STEADY_NANOS);
+        }
+    }
+
+    private boolean feed(float x, float y, boolean resting) {
+        boolean changed = governor.onSample(now, x, y, 0f, resting);
+        now += SAMPLE;
+        return changed;
+    }
+}
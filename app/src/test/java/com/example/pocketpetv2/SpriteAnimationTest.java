@@ -0,0 +1,72 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpriteAnimationTest {
+
+    private static final SpriteAnimation WALK = new SpriteAnimation(
+            new int[]{10, 11, 12, 13}, new int[]{100, 50, 100, 250});
+
+    @Test
+    public void frameAt_followsDurationsAndLoops() {
+        assertEquals(500, WALK.getLoopMillis());
+        assertEquals(0, WALK.frameAt(0));
+        assertEquals(0, WALK.frameAt(99));
+        assertEquals(1, WALK.frameAt(100));
+        assertEquals(2, WALK.frameAt(150));
+        assertEquals(3, WALK.frameAt(499));
+        assertEquals(0, WALK.frameAt(500));
+        assertEquals(1, WALK.frameAt(5_120));
+    }
+
+    @Test
+    public void millisUntilNextFrame() {
+        assertEquals(100, WALK.millisUntilNextFrame(0));
+        assertEquals(30, WALK.millisUntilNextFrame(120));
+        assertEquals(1, WALK.millisUntilNextFrame(499));
+        assertEquals(-1, SpriteAnimation.still(7).millisUntilNextFrame(123));
+    }
+
+    @Test
+    public void still_alwaysShowsItsOnlyFrame() {
+        SpriteAnimation still = SpriteAnimation.still(7);
+        assertEquals(1, still.getFrameCount());
+        assertEquals(0, still.frameAt(1_000_000));
+        assertEquals(7, still.getFrame(0));
+    }
+
+    @Test
+    public void reduce_keepsEvenlySpacedFramesAndTheLoopLength() {
+        SpriteAnimation two = WALK.reduce(2);
+        assertEquals(2, two.getFrameCount());
+        assertEquals(10, two.getFrame(0));
+        assertEquals(12, two.getFrame(1));
+        assertEquals(150, two.getDurationMillis(0));
+        assertEquals(350, two.getDurationMillis(1));
+        assertEquals(WALK.getLoopMillis(), two.getLoopMillis());
+
+        SpriteAnimation one = WALK.reduce(1);
+        assertEquals(1, one.getFrameCount());
+        assertEquals(10, one.getFrame(0));
+        assertSame(WALK, WALK.reduce(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedDurations_throw() {
+        new SpriteAnimation(new int[]{1, 2}, new int[]{100});
+    }
+
+    @Test
+    public void budget_grantsWhatFitsAndTakesItBack() {
+        AnimationBudget budget = new AnimationBudget(1000);
+        assertEquals(3, budget.reserveFrames(300, 8));
+        assertEquals(900, budget.getUsedBytes());
+        assertEquals(0, budget.reserveFrames(300, 2));
+
+        budget.release(600);
+        assertEquals(1, budget.reserveFrames(400, 2));
+        assertEquals(700, budget.getUsedBytes());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpriteAtlasLayoutTest {
+
+    private static final int STATES = PetState.values().length;
+
+    @Test
+    public void smallCells_packIntoOneRow() {
+        SpriteAtlasLayout layout = new SpriteAtlasLayout(200, 200, STATES);
+        assertEquals(1400, layout.getAtlasWidth());
+        assertEquals(200, layout.getAtlasHeight());
+    }
+
+    @Test
+    public void largeCells_wrapToStayUnderTextureLimit() {
+        SpriteAtlasLayout layout = new SpriteAtlasLayout(600, 600, STATES);
+        assertTrue(layout.getAtlasWidth() <= SpriteAtlasLayout.DEFAULT_MAX_TEXTURE_SIZE);
+        assertTrue(layout.getAtlasHeight() <= SpriteAtlasLayout.DEFAULT_MAX_TEXTURE_SIZE);
+        // 8 cells is the least waste possible once a single row no longer fits.
+        assertEquals(8, (layout.getAtlasWidth() / 600) * (layout.getAtlasHeight() / 600));
+    }
+
+    @Test
+    public void regions_coverDistinctCells() {
+        SpriteAtlasLayout layout = new SpriteAtlasLayout(600, 600, STATES);
+        for (int i = 0; i < STATES; i++) {
+            assertEquals(600, layout.getRight(i) - layout.getLeft(i));
+            assertEquals(600, layout.getBottom(i) - layout.getTop(i));
+            assertTrue(layout.getRight(i) <= layout.getAtlasWidth());
+            assertTrue(layout.getBottom(i) <= layout.getAtlasHeight());
+            for (int j = 0; j < i; j++) {
+                assertFalse("cells " + i + " and " + j + " overlap",
+                        layout.getLeft(i) == layout.getLeft(j) && layout.getTop(i) == layout.getTop(j));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooLarge_isRejected() {
+        new SpriteAtlasLayout(3000, 3000, STATES);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.pocketpetv2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpriteMemoryTest {
+
+    private static final int CELL = 100;
+    private static final int STATES = 7;
+    private static final long RECOVER_MILLIS = 60_000;
+    // 4 bytes per pixel: a 7 x 1 atlas of 100px cells, one cell, one half-size cell.
+    private static final long ATLAS_BYTES = STATES * CELL * CELL * 4;
+    private static final long SPRITE_BYTES = CELL * CELL * 4;
+    private static final long LOW_RES_BYTES = (CELL / 2) * (CELL / 2) * 4;
+
+    private static final class Image {
+        final int width, height;
+
+        Image(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final SpriteAtlasLayout layout = new SpriteAtlasLayout(CELL, CELL, STATES);
+    private int atlasLoads, spriteLoads;
+    private SpriteMemory<Image> memory;
+
+    private final SpriteMemory.Images<Image> images = new SpriteMemory.Images<Image>() {
+        @Override
+        public long byteCount(Image image) {
+            return (long) image.width * image.height * 4;
+        }
+
+        @Override
+        public Image loadAtlas(String petType) {
+            atlasLoads++;
+            return new Image(layout.getAtlasWidth(), layout.getAtlasHeight());
+        }
+
+        @Override
+        public Image loadSprite(String petType, int state, int width, int height) {
+            spriteLoads++;
+            return new Image(width, height);
+        }
+
+        @Override
+        public Image crop(Image atlas, int left, int top, int right, int bottom) {
+            return new Image(right - left, bottom - top);
+        }
+
+        @Override
+        public Image scale(Image image, int width, int height) {
+            return new Image(width, height);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        memory = new SpriteMemory<>(images, layout);
+        // The user switched from cat to gator: only gator's atlas stays.
+        memory.select("cat", 0, 0);
+        memory.select("gator", 3, 0);
+        atlasLoads = 0;
+        spriteLoads = 0;
+    }
+
+    @Test
+    public void setUp_keepsOnlyTheCurrentType() {
+        assertEquals(ATLAS_BYTES, memory.getResidentBytes());
+        assertEquals(3, memory.getRegion(3));
+        assertTrue(memory.keepsAnimationFrames());
+    }
+
+    @Test
+    public void levels_mapToTiers() {
+        assertEquals(SpriteMemory.Tier.ANIMATION_FRAMES, SpriteMemory.tierFor(SpriteMemory.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals(SpriteMemory.Tier.OTHER_STATES, SpriteMemory.tierFor(SpriteMemory.TRIM_MEMORY_RUNNING_LOW));
+        assertEquals(SpriteMemory.Tier.LOW_RES, SpriteMemory.tierFor(SpriteMemory.TRIM_MEMORY_RUNNING_CRITICAL));
+        assertEquals(SpriteMemory.Tier.ANIMATION_FRAMES, SpriteMemory.tierFor(SpriteMemory.TRIM_MEMORY_UI_HIDDEN));
+        assertEquals(SpriteMemory.Tier.ANIMATION_FRAMES, SpriteMemory.tierFor(SpriteMemory.TRIM_MEMORY_BACKGROUND));
+        assertEquals(SpriteMemory.Tier.OTHER_STATES, SpriteMemory.tierFor(SpriteMemory.TRIM_MEMORY_MODERATE));
+        assertEquals(SpriteMemory.Tier.LOW_RES, SpriteMemory.tierFor(SpriteMemory.TRIM_MEMORY_COMPLETE));
+        assertEquals(SpriteMemory.Tier.NONE, SpriteMemory.tierFor(0));
+    }
+
+    @Test
+    public void eachLevel_releasesItsTiersBytes() {
+        int[] levels = {
+                SpriteMemory.TRIM_MEMORY_RUNNING_MODERATE,
+                SpriteMemory.TRIM_MEMORY_RUNNING_LOW,
+                SpriteMemory.TRIM_MEMORY_RUNNING_CRITICAL,
+                SpriteMemory.TRIM_MEMORY_UI_HIDDEN,
+                SpriteMemory.TRIM_MEMORY_BACKGROUND,
+                SpriteMemory.TRIM_MEMORY_MODERATE,
+                SpriteMemory.TRIM_MEMORY_COMPLETE,
+        };
+        // The first tier only stops animation frames, which the host holds, not this class.
+        long otherStates = ATLAS_BYTES - SPRITE_BYTES;
+        long lowRes = ATLAS_BYTES - LOW_RES_BYTES;
+        long[] expected = {0, otherStates, lowRes, 0, 0, otherStates, lowRes};
+
+        for (int i = 0; i < levels.length; i++) {
+            setUp();
+            long released = memory.trim(levels[i], 1000);
+            assertEquals("level " + levels[i], expected[i], released);
+            assertEquals("level " + levels[i], ATLAS_BYTES - expected[i], memory.getResidentBytes());
+            assertFalse("level " + levels[i], memory.keepsAnimationFrames());
+            assertEquals(0, atlasLoads + spriteLoads);
+        }
+    }
+
+    @Test
+    public void escalatingPressure_releasesOnlyWhatIsLeft() {
+        assertEquals(0, memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_MODERATE, 0));
+        assertEquals(ATLAS_BYTES - SPRITE_BYTES, memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_LOW, 0));
+        assertEquals(SPRITE_BYTES - LOW_RES_BYTES, memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_CRITICAL, 0));
+        assertEquals(0, memory.trim(SpriteMemory.TRIM_MEMORY_COMPLETE, 0));
+        assertEquals(0, memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_MODERATE, 0));
+        assertEquals(LOW_RES_BYTES, memory.getResidentBytes());
+    }
+
+    @Test
+    public void animationFramesTier_keepsTheAtlasAndRecovers() {
+        memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_MODERATE, 1000);
+        assertFalse(memory.keepsAnimationFrames());
+
+        // States still change within the atlas.
+        assertFalse(memory.select("gator", 5, 2000));
+        assertEquals(5, memory.getRegion(5));
+        assertEquals(0, atlasLoads + spriteLoads);
+
+        memory.select("gator", 5, 1000 + RECOVER_MILLIS);
+        assertTrue(memory.keepsAnimationFrames());
+        assertEquals(0, atlasLoads);
+    }
+
+    @Test
+    public void trimmedToOneSprite_drawsOnlyTheCurrentState() {
+        memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_LOW, 0);
+
+        assertEquals(CELL, memory.getImage().width);
+        assertEquals(1, memory.getImageLayout().getCount());
+        assertEquals(0, memory.getRegion(3));
+        assertEquals(0, memory.getRegion(5));
+    }
+
+    @Test
+    public void stateChangeWhileTrimmed_loadsJustThatSprite() {
+        memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_CRITICAL, 0);
+
+        assertTrue(memory.select("gator", 5, 10));
+        assertFalse(memory.select("gator", 5, 20));
+
+        assertEquals(1, spriteLoads);
+        assertEquals(0, atlasLoads);
+        assertEquals(CELL / 2, memory.getImage().width);
+        assertEquals(LOW_RES_BYTES, memory.getResidentBytes());
+    }
+
+    @Test
+    public void pressureEnds_atlasReloadsLazilyOnNextSelect() {
+        memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_CRITICAL, 1000);
+
+        assertFalse(memory.select("gator", 3, 1000 + RECOVER_MILLIS - 1));
+        assertEquals(SpriteMemory.Tier.LOW_RES, memory.getTier());
+        assertEquals(0, atlasLoads);
+
+        assertTrue(memory.select("gator", 3, 1000 + RECOVER_MILLIS));
+        assertEquals(SpriteMemory.Tier.NONE, memory.getTier());
+        assertEquals(1, atlasLoads);
+        assertEquals(ATLAS_BYTES, memory.getResidentBytes());
+        assertEquals(3, memory.getRegion(3));
+    }
+
+    @Test
+    public void repeatedTrims_postponeRecovery() {
+        memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_LOW, 0);
+        memory.trim(SpriteMemory.TRIM_MEMORY_RUNNING_MODERATE, RECOVER_MILLIS / 2);
+
+        memory.select("gator", 3, RECOVER_MILLIS);
+        assertEquals(SpriteMemory.Tier.OTHER_STATES, memory.getTier());
+        assertEquals(0, atlasLoads);
+    }
+
+    @Test
+    public void switchingTypes_replacesTheAtlas() {
+        memory.select("penguin", 0, 10);
+        assertEquals(1, atlasLoads);
+        assertEquals(ATLAS_BYTES, memory.getResidentBytes());
+
+        memory.select("gator", 0, 20);
+        assertEquals(2, atlasLoads);
+    }
+
+    @Test
+    public void installedAtlas_replacesTheOldType() {
+        memory.install("penguin", new Image(layout.getAtlasWidth(), layout.getAtlasHeight()));
+        assertEquals(ATLAS_BYTES, memory.getResidentBytes());
+        assertFalse(memory.select("penguin", 2, 0));
+        assertEquals(0, atlasLoads);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpriteSizingTest {
+
+    @Test
+    public void dpToPx_roundsAndNeverReturnsZero() {
+        assertEquals(200, SpriteSizing.dpToPx(200, 1f));
+        assertEquals(600, SpriteSizing.dpToPx(200, 3f));
+        assertEquals(525, SpriteSizing.dpToPx(200, 2.625f));
+        assertEquals(1, SpriteSizing.dpToPx(0.1f, 1f));
+    }
+
+    @Test
+    public void inSampleSize_keepsDecodeAtLeastTargetSize() {
+        // 1000px source sprites shown at 200dp.
+        assertEquals(4, SpriteSizing.calculateInSampleSize(1000, 1000, 200, 200));
+        assertEquals(2, SpriteSizing.calculateInSampleSize(1000, 1000, 400, 400));
+        assertEquals(1, SpriteSizing.calculateInSampleSize(1000, 1000, 600, 600));
+        assertEquals(1, SpriteSizing.calculateInSampleSize(1000, 1000, 2000, 2000));
+    }
+
+    @Test
+    public void inSampleSize_limitedByTheTighterAxis() {
+        assertEquals(2, SpriteSizing.calculateInSampleSize(1000, 400, 200, 200));
+    }
+
+    @Test
+    public void inSampleSize_invalidSizesFallBackToOne() {
+        assertEquals(1, SpriteSizing.calculateInSampleSize(0, 0, 200, 200));
+        assertEquals(1, SpriteSizing.calculateInSampleSize(1000, 1000, 0, 200));
+    }
+
+    @Test
+    public void fit_keepsAspectRatio() {
+        assertEquals(600, SpriteSizing.fitWidth(1000, 1000, 600, 600));
+        assertEquals(600, SpriteSizing.fitHeight(1000, 1000, 600, 600));
+        assertEquals(600, SpriteSizing.fitWidth(1000, 500, 600, 600));
+        assertEquals(300, SpriteSizing.fitHeight(1000, 500, 600, 600));
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.pocketpetv2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StartupLoaderTest {
+
+    /** Holds tasks until the test runs them, standing in for a thread or a Looper. */
+    private static class QueueExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private static final PetSnapshot PET = new PetSnapshot("Pet", "gator",
+            new int[PetState.values().length], 3, 360, 0L);
+
+    private long now;
+    private StartupTrace trace;
+    private QueueExecutor worker;
+    private QueueExecutor main;
+    private List<String> events;
+
+    @Before
+    public void setUp() {
+        trace = new StartupTrace(() -> now);
+        worker = new QueueExecutor();
+        main = new QueueExecutor();
+        events = new ArrayList<>();
+    }
+
+    private StartupLoader.Callback<String> recordingCallback() {
+        return new StartupLoader.Callback<String>() {
+            @Override
+            public void onStateReady(PetSnapshot pet) {
+                events.add("state:" + pet.getName());
+            }
+
+            @Override
+            public void onSpritesReady(PetSnapshot pet, String sprites) {
+                events.add("sprites:" + sprites);
+            }
+
+            @Override
+            public void onFailed(PetSnapshot pet, Throwable error) {
+                events.add("failed:" + (pet != null ? pet.getName() : null) + ":" + error.getMessage());
+            }
+        };
+    }
+
+    /** Inflation on the main thread must not wait for any disk work queued on the worker. */
+    @Test
+    public void contentView_isNotBlockedByPrefetch() {
+        StartupLoader<String> loader = new StartupLoader<>(worker, main, trace);
+        trace.mark(StartupTrace.Phase.CREATE);
+        loader.start(() -> {
+            now += 80_000_000L; // slow prefs load
+            return PET;
+        }, pet -> {
+            now += 120_000_000L; // slow atlas decode
+            return pet.getPetType();
+        }, recordingCallback());
+
+        now += 15_000_000L; // inflate
+        trace.mark(StartupTrace.Phase.CONTENT_VIEW);
+
+        assertEquals(15_000_000L, trace.sinceCreateNanos(StartupTrace.Phase.CONTENT_VIEW));
+        assertFalse(trace.isMarked(StartupTrace.Phase.STATE_READY));
+        assertTrue(events.isEmpty());
+
+        worker.runAll();
+        main.runAll();
+        assertEquals(95_000_000L, trace.sinceCreateNanos(StartupTrace.Phase.STATE_READY));
+        assertEquals(215_000_000L, trace.sinceCreateNanos(StartupTrace.Phase.SPRITES_READY));
+    }
+
+    @Test
+    public void results_areDeliveredOnMainInOrder() {
+        StartupLoader<String> loader = new StartupLoader<>(worker, main, trace);
+        loader.start(() -> PET, PetSnapshot::getPetType, recordingCallback());
+
+        worker.runAll();
+        assertTrue("nothing is delivered off the main executor", events.isEmpty());
+        assertEquals(2, main.tasks.size());
+
+        main.runAll();
+        assertEquals(Arrays.asList("state:Pet", "sprites:gator"), events);
+    }
+
+    @Test
+    public void phases_areMarkedInStartupOrder() {
+        StartupLoader<String> loader = new StartupLoader<>(worker, main, trace);
+        trace.mark(StartupTrace.Phase.CREATE);
+        now += 1;
+        loader.start(() -> {
+            now += 1;
+            return PET;
+        }, pet -> {
+            now += 1;
+            return "atlas";
+        }, recordingCallback());
+        now += 1;
+        trace.mark(StartupTrace.Phase.CONTENT_VIEW);
+        worker.runAll();
+        main.runAll();
+
+        long previous = -1;
+        for (StartupTrace.Phase phase : new StartupTrace.Phase[]{StartupTrace.Phase.CREATE,
+                StartupTrace.Phase.PREFETCH_START, StartupTrace.Phase.CONTENT_VIEW,
+                StartupTrace.Phase.STATE_READY, StartupTrace.Phase.SPRITES_READY}) {
+            long at = trace.sinceCreateNanos(phase);
+            assertTrue(phase + " recorded after the previous phase", at > previous);
+            previous = at;
+        }
+    }
+
+    @Test
+    public void spritesLoadFromTheLoadedState() {
+        StartupLoader<String> loader = new StartupLoader<>(worker, main, trace);
+        PetSnapshot[] seen = new PetSnapshot[1];
+        loader.start(() -> PET, pet -> {
+            seen[0] = pet;
+            return "atlas";
+        }, recordingCallback());
+        worker.runAll();
+        assertSame(PET, seen[0]);
+    }
+
+    @Test
+    public void cancel_dropsUndeliveredResults() {
+        StartupLoader<String> loader = new StartupLoader<>(worker, main, trace);
+        loader.start(() -> PET, pet -> "atlas", recordingCallback());
+        worker.runAll();
+        loader.cancel();
+        main.runAll();
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void throwingStateLoader_isReportedOnMainAndStopsThere() {
+        StartupLoader<String> loader = new StartupLoader<>(worker, main, trace);
+        String[] spritesLoaded = new String[1];
+        loader.start(() -> {
+            throw new IllegalStateException("no prefs");
+        }, pet -> spritesLoaded[0] = "atlas", recordingCallback());
+
+        worker.runAll();
+        assertTrue("nothing is delivered off the main executor", events.isEmpty());
+        main.runAll();
+        assertEquals(Arrays.asList("failed:null:no prefs"), events);
+        assertNull(spritesLoaded[0]);
+        assertFalse(trace.isMarked(StartupTrace.Phase.STATE_READY));
+    }
+
+    @Test
+    public void throwingSpriteLoader_isReportedAfterTheState() {
+        StartupLoader<String> loader = new StartupLoader<>(worker, main, trace);
+        loader.start(() -> PET, pet -> {
+            throw new IllegalStateException("bad atlas");
+        }, recordingCallback());
+
+        worker.runAll();
+        main.runAll();
+        assertEquals(Arrays.asList("state:Pet", "failed:Pet:bad atlas"), events);
+        assertFalse(trace.isMarked(StartupTrace.Phase.SPRITES_READY));
+    }
+
+    @Test
+    public void cancel_dropsUndeliveredFailures() {
+        StartupLoader<String> loader = new StartupLoader<>(worker, main, trace);
+        loader.start(() -> {
+            throw new IllegalStateException("no prefs");
+        }, pet -> "atlas", recordingCallback());
+        worker.runAll();
+        loader.cancel();
+        main.runAll();
+        assertTrue(events.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void start_twice_throws() {
+        StartupLoader<String> loader = new StartupLoader<>(worker, main, trace);
+        loader.start(() -> PET, pet -> "atlas", recordingCallback());
+        loader.start(() -> PET, pet -> "atlas", recordingCallback());
+    }
+
+    /** Same pipeline on a real worker thread: the main thread is free while state loads. */
+    @Test
+    public void realWorker_runsConcurrentlyWithMain() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(2);
+        StartupTrace realTrace = new StartupTrace();
+        StartupLoader<String> loader = new StartupLoader<>(executor, task -> {
+            task.run();
+            delivered.countDown();
+        }, realTrace);
+
+        loader.start(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return PET;
+        }, pet -> "atlas", recordingCallback());
+
+        realTrace.mark(StartupTrace.Phase.CONTENT_VIEW);
+        assertFalse(realTrace.isMarked(StartupTrace.Phase.STATE_READY));
+        release.countDown();
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(realTrace.elapsedNanos(StartupTrace.Phase.CONTENT_VIEW, StartupTrace.Phase.STATE_READY) >= 0);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StartupTraceTest {
+
+    private long now = 1_000_000_000L;
+
+    @Test
+    public void elapsed_isMeasuredBetweenMarks() {
+        StartupTrace trace = new StartupTrace(() -> now);
+        trace.mark(StartupTrace.Phase.CREATE);
+        now += 12_000_000L;
+        trace.mark(StartupTrace.Phase.CONTENT_VIEW);
+        now += 30_000_000L;
+        trace.mark(StartupTrace.Phase.FIRST_PET_FRAME);
+
+        assertEquals(12_000_000L, trace.sinceCreateNanos(StartupTrace.Phase.CONTENT_VIEW));
+        assertEquals(30_000_000L, trace.elapsedNanos(StartupTrace.Phase.CONTENT_VIEW,
+                StartupTrace.Phase.FIRST_PET_FRAME));
+    }
+
+    @Test
+    public void unrecordedPhase_reportsMinusOne() {
+        StartupTrace trace = new StartupTrace(() -> now);
+        trace.mark(StartupTrace.Phase.CREATE);
+        assertFalse(trace.isMarked(StartupTrace.Phase.STATE_READY));
+        assertEquals(-1, trace.sinceCreateNanos(StartupTrace.Phase.STATE_READY));
+    }
+
+    @Test
+    public void secondMark_isIgnored() {
+        StartupTrace trace = new StartupTrace(() -> now);
+        assertTrue(trace.mark(StartupTrace.Phase.CREATE));
+        now += 5_000_000_000L;
+        assertFalse(trace.mark(StartupTrace.Phase.CREATE));
+        now += 1_000_000L;
+        trace.mark(StartupTrace.Phase.CONTENT_VIEW);
+        assertEquals(5_001_000_000L, trace.sinceCreateNanos(StartupTrace.Phase.CONTENT_VIEW));
+    }
+
+    @Test
+    public void toString_listsRecordedPhasesInMillis() {
+        StartupTrace trace = new StartupTrace(() -> now);
+        trace.mark(StartupTrace.Phase.CREATE);
+        now += 12_345_678L;
+        trace.mark(StartupTrace.Phase.CONTENT_VIEW);
+        assertEquals("startup CREATE=0.0ms CONTENT_VIEW=12.3ms", trace.toString());
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StationaryControllerTest {
+
+    private static final long SAMPLE = 20_000_000L;
+    private static final long STILL_TIMEOUT = 5_000_000_000L;
+    private static final float GRAVITY = 9.81f;
+
+    /** Records what the controller asked the sensor stack to do. */
+    private static class FakeSensorSource implements StationaryController.SensorSource {
+        final boolean hasTrigger;
+        SensorRateGovernor.Tier registered;
+        boolean triggerArmed;
+        int registrations;
+
+        FakeSensorSource(boolean hasTrigger) {
+            this.hasTrigger = hasTrigger;
+        }
+
+        @Override
+        public void registerAccelerometer(SensorRateGovernor.Tier tier) {
+            registered = tier;
+            registrations++;
+        }
+
+        @Override
+        public void unregisterAccelerometer() {
+            registered = null;
+        }
+
+        @Override
+        public boolean requestWakeTrigger() {
+            triggerArmed = hasTrigger;
+            return hasTrigger;
+        }
+
+        @Override
+        public void cancelWakeTrigger() {
+            triggerArmed = false;
+        }
+    }
+
+    private long now;
+
+    @Test
+    public void start_registersAtGameRate() {
+        FakeSensorSource source = new FakeSensorSource(true);
+        StationaryController controller = new StationaryController(source, STILL_TIMEOUT);
+        controller.start();
+        assertEquals(StationaryController.Mode.ACTIVE, controller.getMode());
+        assertEquals(SensorRateGovernor.Tier.GAME, source.registered);
+    }
+
+    @Test
+    public void stillDevice_releasesAccelerometerAndArmsTrigger() {
+        FakeSensorSource source = new FakeSensorSource(true);
+        StationaryController controller = new StationaryController(source, STILL_TIMEOUT);
+        controller.start();
+
+        feedStill(controller, SensorRateGovernor.STEADY_NANOS + SAMPLE);
+        assertEquals(SensorRateGovernor.Tier.LOW, source.registered);
+        assertEquals(StationaryController.Mode.ACTIVE, controller.getMode());
+
+        feedStill(controller, STILL_TIMEOUT);
+        assertEquals(StationaryController.Mode.TRIGGER_WAIT, controller.getMode());
+        assertNull(source.registered);
+        assertTrue(source.triggerArmed);
+        assertNull(controller.getTier());
+        assertEquals(1, controller.getSleeps());
+    }
+
+    @Test
+    public void wakeTrigger_restoresGameRate() {
+        FakeSensorSource source = new FakeSensorSource(true);
+        StationaryController controller = new StationaryController(source, STILL_TIMEOUT);
+        controller.start();
+        feedStill(controller, SensorRateGovernor.STEADY_NANOS + STILL_TIMEOUT + SAMPLE);
+
+        controller.onWakeTrigger();
+        assertEquals(StationaryController.Mode.ACTIVE, controller.getMode());
+        assertEquals(SensorRateGovernor.Tier.GAME, source.registered);
+        assertEquals(1, controller.getWakes());
+    }
+
+    @Test
+    public void noTrigger_fallsBackToProbeAndWakesOnMovement() {
+        FakeSensorSource source = new FakeSensorSource(false);
+        StationaryController controller = new StationaryController(source, STILL_TIMEOUT);
+        controller.start();
+        feedStill(controller, SensorRateGovernor.STEADY_NANOS + STILL_TIMEOUT + SAMPLE);
+
+        assertEquals(StationaryController.Mode.PROBING, controller.getMode());
+        assertEquals(SensorRateGovernor.Tier.PROBE, source.registered);
+
+        // Small noise while probing doesn't wake.
+        controller.onAccelerometerSample(now += SAMPLE, 0f, GRAVITY, 0f, true);
+        controller.onAccelerometerSample(now += SAMPLE, 0.2f, GRAVITY, 0f, true);
+        assertEquals(StationaryController.Mode.PROBING, controller.getMode());
+
+        // Picking the phone up does, on the very next probe sample.
+        controller.onAccelerometerSample(now += SAMPLE, 4f, 7f, 3f, true);
+        assertEquals(StationaryController.Mode.ACTIVE, controller.getMode());
+        assertEquals(SensorRateGovernor.Tier.GAME, source.registered);
+    }
+
+    @Test
+    public void movement_resetsStillTimer() {
+        FakeSensorSource source = new FakeSensorSource(true);
+        StationaryController controller = new StationaryController(source, STILL_TIMEOUT);
+        controller.start();
+
+        feedStill(controller, SensorRateGovernor.STEADY_NANOS + STILL_TIMEOUT / 2);
+        controller.onAccelerometerSample(now += SAMPLE, 5f, GRAVITY, 0f, true);
+        assertEquals(SensorRateGovernor.Tier.GAME, source.registered);
+
+        feedStill(controller, STILL_TIMEOUT);
+        assertEquals(StationaryController.Mode.ACTIVE, controller.getMode());
+    }
+
+    @Test
+    public void petMoving_neverSleeps() {
+        FakeSensorSource source = new FakeSensorSource(true);
+        StationaryController controller = new StationaryController(source, STILL_TIMEOUT);
+        controller.start();
+        long end = now + 4 * STILL_TIMEOUT;
+        while (now < end) {
+            controller.onAccelerometerSample(now += SAMPLE, 0f, GRAVITY, 0f, false);
+        }
+        assertEquals(StationaryController.Mode.ACTIVE, controller.getMode());
+        assertEquals(SensorRateGovernor.Tier.GAME, source.registered);
+    }
+
+    @Test
+    public void touch_wakesFromSleep() {
+        FakeSensorSource source = new FakeSensorSource(true);
+        StationaryController controller = new StationaryController(source, STILL_TIMEOUT);
+        controller.start();
+        feedStill(controller, SensorRateGovernor.STEADY_NANOS + STILL_TIMEOUT + SAMPLE);
+
+        controller.onTouch();
+        assertEquals(StationaryController.Mode.ACTIVE, controller.getMode());
+        assertFalse(source.triggerArmed);
+        assertEquals(SensorRateGovernor.Tier.GAME, source.registered);
+    }
+
+    @Test
+    public void stop_releasesEverything() {
+        FakeSensorSource source = new FakeSensorSource(true);
+        StationaryController controller = new StationaryController(source, STILL_TIMEOUT);
+        controller.start();
+        feedStill(controller, SensorRateGovernor.STEADY_NANOS + STILL_TIMEOUT + SAMPLE);
+
+        controller.stop();
+        assertEquals(StationaryController.Mode.STOPPED, controller.getMode());
+        assertFalse(source.triggerArmed);
+        assertNull(source.registered);
+
+        int registrations = source.registrations;
+        controller.onWakeTrigger();
+        controller.onTouch();
+        assertEquals(registrations, source.registrations);
+    }
+
+    @Test
+    public void flatPhone_releasesAccelerometerWithThePetOffTheFloor() {
+        FakeSensorSource source = new FakeSensorSource(true);
+        StationaryController controller = new StationaryController(source, STILL_TIMEOUT);
+        controller.start();
+        PetFlock flock = new PetFlock(2, 100f);
+        flock.setBounds(0, 0, 980, 2100);
+        flock.add(440, 0);
+        flock.add(0, 1100);
+
+        Random noise = new Random(3);
+        long end = now + SensorRateGovernor.STEADY_NANOS + STILL_TIMEOUT + SAMPLE;
+        while (now < end && controller.getMode() == StationaryController.Mode.ACTIVE) {
+            float x = (noise.nextFloat() - 0.5f) * 0.02f;
+            float y = (noise.nextFloat() - 0.5f) * 0.02f;
+            float z = GRAVITY;
+            // Same mapping as OverlayService.onSensorChanged.
+            flock.setInput(-x, y);
+            flock.step();
+            controller.onAccelerometerSample(now += SAMPLE, x, y, z, flock.isAllAtRest());
+        }
+        assertEquals(0f, flock.getY(0), 20f);
+        assertFalse(flock.isGrounded(1));
+        assertEquals(StationaryController.Mode.TRIGGER_WAIT, controller.getMode());
+        assertNull(source.registered);
+    }
+
+    private void feedStill(StationaryController controller, long duration) {
+        long end = now + duration;
+        while (now < end && controller.getMode() == StationaryController.Mode.ACTIVE) {
+            controller.onAccelerometerSample(now += SAMPLE, 0.05f, GRAVITY, 0.1f, true);
+        }
+    }
+}
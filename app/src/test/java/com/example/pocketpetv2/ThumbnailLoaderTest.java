@@ -0,0 +1,112 @@
+package com.example.pocketpetv2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class ThumbnailLoaderTest {
+
+    private final Queue<Runnable> workerTasks = new ArrayDeque<>();
+    private final Queue<Runnable> mainTasks = new ArrayDeque<>();
+    private final List<String> decoded = new ArrayList<>();
+    private final List<String> delivered = new ArrayList<>();
+    private ThumbnailLoader<String> loader;
+
+    @Before
+    public void setUp() {
+        loader = new ThumbnailLoader<>(3, workerTasks::add, mainTasks::add,
+                key -> {
+                    decoded.add(key);
+                    return key.startsWith("broken") ? null : "thumb:" + key;
+                },
+                (key, thumbnail) -> delivered.add(key));
+    }
+
+    private void runAll() {
+        while (!workerTasks.isEmpty() || !mainTasks.isEmpty()) {
+            while (!workerTasks.isEmpty()) workerTasks.poll().run();
+            while (!mainTasks.isEmpty()) mainTasks.poll().run();
+        }
+    }
+
+    @Test
+    public void request_missDecodesOnWorkerAndDelivers() {
+        assertNull(loader.request("cat"));
+        assertTrue(decoded.isEmpty());
+
+        runAll();
+        assertEquals(Arrays.asList("cat"), delivered);
+        assertEquals("thumb:cat", loader.request("cat"));
+        assertEquals(1, loader.getDecodeCount());
+    }
+
+    @Test
+    public void request_jumpsAheadOfPrefetches() {
+        loader.prefetch(Arrays.asList("gator", "cat", "penguin"));
+        loader.request("penguin");
+
+        runAll();
+        assertEquals(Arrays.asList("penguin", "gator", "cat"), decoded);
+    }
+
+    @Test
+    public void sameKeyQueuedTwice_decodesOnce() {
+        loader.prefetch(Arrays.asList("cat", "cat"));
+        loader.request("cat");
+        runAll();
+        loader.prefetch(Arrays.asList("cat"));
+        loader.request("cat");
+        runAll();
+
+        assertEquals(Arrays.asList("cat"), decoded);
+        assertEquals(Arrays.asList("cat"), delivered);
+    }
+
+    @Test
+    public void cache_keepsTheMostRecentlyUsed() {
+        loader.prefetch(Arrays.asList("a", "b", "c"));
+        runAll();
+        loader.request("a"); // now b is the eldest
+        loader.prefetch(Arrays.asList("d"));
+        runAll();
+
+        assertEquals(3, loader.size());
+        assertNull(loader.peek("b"));
+        assertNotNull(loader.peek("a"));
+        assertNotNull(loader.peek("c"));
+        assertNotNull(loader.peek("d"));
+    }
+
+    @Test
+    public void failedDecode_isNotCachedAndCanBeRetried() {
+        loader.request("broken");
+        runAll();
+        assertTrue(delivered.isEmpty());
+        assertEquals(0, loader.size());
+
+        loader.request("broken");
+        runAll();
+        assertEquals(2, decoded.size());
+    }
+
+    @Test
+    public void close_dropsQueuedAndUndeliveredWork() {
+        loader.prefetch(Arrays.asList("a", "b"));
+        workerTasks.poll().run(); // decodes both; deliveries still queued on main
+        loader.prefetch(Arrays.asList("c"));
+        loader.close();
+        runAll();
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(0, loader.size());
+        assertNull(loader.request("a"));
+        assertTrue(workerTasks.isEmpty());
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays a scripted session (tilts, a drag, a settle) and compares the per-frame position and
+ * state against a golden file. If the simulation changes on purpose, regenerate the file with
+ * -Dgolden.update=true and review the diff.
+ */
+public class TraceReplayerTest {
+
+    private static final String GOLDEN = "golden/replay_tilt_and_drag.txt";
+    private static final long T0 = 1_000_000_000L;
+    private static final long FRAME = 16_666_667L;
+    private static final long SAMPLE = 20_000_000L;
+    private static final float G = 9.81f;
+
+    /** Six seconds of input at 60 Hz frames and 50 Hz sensor samples. */
+    static byte[] scriptedSession() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputTraceWriter writer = new InputTraceWriter(bytes, T0)) {
+            writer.bounds(T0, 0, 0, 880, 2200);
+            writer.position(T0, 440, 2200);
+
+            long end = T0 + 6_000_000_000L;
+            long nextFrame = T0;
+            long nextSample = T0;
+            boolean dragging = false;
+            while (nextFrame < end) {
+                if (nextSample <= nextFrame) {
+                    float seconds = (nextSample - T0) / 1e9f;
+                    float x, y;
+                    if (seconds < 1f) {          // flat on the table
+                        x = 0f;
+                        y = G;
+                    } else if (seconds < 2f) {   // tilt left, pet slides right (x input is negated)
+                        x = -6f;
+                        y = 7.5f;
+                    } else if (seconds < 3f) {   // tilt right
+                        x = 6f;
+                        y = 7.5f;
+                    } else if (seconds < 4f) {   // upside down
+                        x = 1f;
+                        y = -G;
+                    } else {                     // back to flat
+                        x = 0f;
+                        y = G;
+                    }
+                    writer.sensor(nextSample, x, y, 0.5f);
+                    nextSample += SAMPLE;
+                } else {
+                    long t = nextFrame;
+                    if (t >= T0 + 4_500_000_000L && t < T0 + 5_000_000_000L) {
+                        // Drag the pet 300 px right and 400 px up over half a second.
+                        float f = (t - (T0 + 4_500_000_000L)) / 500_000_000f;
+                        writer.touch(t, dragging ? InputTrace.ACTION_MOVE : InputTrace.ACTION_DOWN,
+                                500 + 300 * f, 1000 - 400 * f);
+                        dragging = true;
+                    } else if (dragging) {
+                        writer.touch(t, InputTrace.ACTION_UP, 800, 600);
+                        dragging = false;
+                    }
+                    writer.frame(t);
+                    nextFrame += FRAME;
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String replayToText(byte[] trace) throws IOException {
+        StringBuilder out = new StringBuilder();
+        TraceReplayer replayer = new TraceReplayer();
+        replayer.replay(new InputTraceReader(new ByteArrayInputStream(trace)), (time, x, y, state) ->
+                out.append(String.format(Locale.ROOT, "%d %.2f %.2f %s%n", (time - T0) / 1_000_000, x, y, state)));
+        return out.toString();
+    }
+
+    @Test
+    public void replay_matchesGolden() throws IOException {
+        String actual = replayToText(scriptedSession());
+
+        if (Boolean.getBoolean("golden.update")) {
+            File file = new File("src/test/resources/" + GOLDEN);
+            Files.write(file.toPath(), actual.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        InputStream golden = getClass().getClassLoader().getResourceAsStream(GOLDEN);
+        assertNotNull("missing " + GOLDEN + "; run with -Dgolden.update=true", golden);
+        String expected = new String(readAll(golden), StandardCharsets.UTF_8);
+
+        String[] expectedLines = expected.split("\n");
+        String[] actualLines = actual.split("\n");
+        for (int i = 0; i < Math.min(expectedLines.length, actualLines.length); i++) {
+            assertEquals("frame " + i, expectedLines[i].trim(), actualLines[i].trim());
+        }
+        assertEquals(expectedLines.length, actualLines.length);
+    }
+
+    @Test
+    public void replay_isDeterministic() throws IOException {
+        byte[] trace = scriptedSession();
+        assertEquals(replayToText(trace), replayToText(trace));
+    }
+
+    @Test
+    public void replay_coversTheSession() throws IOException {
+        TraceReplayer replayer = new TraceReplayer();
+        replayer.replay(new InputTraceReader(new ByteArrayInputStream(scriptedSession())), null);
+
+        assertEquals(360, replayer.getFrames());
+        assertTrue(replayer.getStateChanges() >= 4);
+        // Left lying still on the floor after the drag.
+        assertTrue(replayer.getPhysics().isOnGround());
+        assertTrue(replayer.getPhysics().isAtRest());
+        assertTrue(replayer.getSimulatedNanos() > 5_900_000_000L);
+    }
+
+    private static byte[] slide(boolean tuned) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputTraceWriter writer = new InputTraceWriter(bytes, T0)) {
+            writer.bounds(T0, 0, 0, 880, 2200);
+            writer.position(T0, 100, 2200);
+            if (tuned) {
+                writer.tuning(T0, 0.8f, 3f);
+            }
+            writer.sensor(T0, -0.5f, G, 0.5f);
+            for (int i = 0; i <= 10; i++) {
+                writer.frame(T0 + i * FRAME);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void tuningRecord_isAppliedToTheReplay() throws IOException {
+        TraceReplayer tuned = new TraceReplayer();
+        tuned.replay(new InputTraceReader(new ByteArrayInputStream(slide(true))), null);
+        TraceReplayer untuned = new TraceReplayer();
+        untuned.replay(new InputTraceReader(new ByteArrayInputStream(slide(false))), null);
+
+        PetPhysics expected = new PetPhysics(0.8f, 3f);
+        expected.setBounds(0, 0, 880, 2200);
+        expected.setPosition(100, 2200);
+        expected.setInput(0.5f, G);
+        for (long i = 0; i < tuned.getSteps(); i++) {
+            expected.step();
+        }
+        assertTrue(tuned.getSteps() > 0);
+        assertEquals(expected.getX(), tuned.getPhysics().getX(), 0f);
+        assertNotEquals(tuned.getPhysics().getX(), untuned.getPhysics().getX(), 1f);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.pocketpetv2;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class UniformGridTest {
+
+    @Test
+    public void visitsEveryClosePairExactlyOnce() {
+        float cell = 50f;
+        int count = 300;
+        float[] x = new float[count];
+        float[] y = new float[count];
+        Random random = new Random(11);
+        for (int i = 0; i < count; i++) {
+            x[i] = random.nextFloat() * 1000;
+            y[i] = random.nextFloat() * 800;
+        }
+
+        UniformGrid grid = new UniformGrid();
+        grid.configure(0, 0, 1000, 800, cell, count);
+        grid.build(x, y, count);
+
+        Set<Long> visited = new HashSet<>();
+        grid.forEachNearbyPair((a, b) -> {
+            assertNotEquals(a, b);
+            long key = Math.min(a, b) * 100_000L + Math.max(a, b);
+            assertTrue("pair visited twice", visited.add(key));
+        });
+
+        for (int a = 0; a < count; a++) {
+            for (int b = a + 1; b < count; b++) {
+                float dx = x[b] - x[a];
+                float dy = y[b] - y[a];
+                if (dx * dx + dy * dy < cell * cell) {
+                    assertTrue("missed close pair " + a + "," + b, visited.contains(a * 100_000L + b));
+                }
+            }
+        }
+        // The broad phase is far smaller than all pairs.
+        assertTrue(visited.size() < count * (count - 1) / 2 / 10);
+    }
+
+    @Test
+    public void pointsOutsideTheArea_goToEdgeCells() {
+        UniformGrid grid = new UniformGrid();
+        grid.configure(0, 0, 100, 100, 50, 2);
+        grid.build(new float[]{-500, -10}, new float[]{-500, 5}, 2);
+        int[] pairs = new int[1];
+        grid.forEachNearbyPair((a, b) -> pairs[0]++);
+        assertEquals(1, pairs[0]);
+    }
+}
@@ -0,0 +1,108 @@
+import groovy.json.JsonSlurper
+
+// JVM-only JMH benchmarks for the pet simulation core. Run with
+//   ./gradlew :benchmark:jmh
+// Results (with the gc profiler's alloc numbers) land in build/results/jmh/results.json.
+// :benchmark:compareJmhBaseline diffs them against baseline/jmh-baseline.json, and
+// :benchmark:updateJmhBaseline replaces the baseline, which is what to do at each release.
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The sim core is plain Java inside :app, which is an Android module a JVM project can't depend
+// on. Compile just those classes from the app's sources so the numbers are for the shipped code.
+val simCoreClasses = listOf(
+    "FixedStepClock",
+    "HungerModel",
+    "InputTrace",
+    "InputTraceReader",
+    "InputTraceWriter",
+    "PetFlock",
+    "PetPhysics",
+    "PetSnapshot",
+    "PetState",
+    "PetStateMachine",
+    "SpriteAtlasLayout",
+    "TraceReplayer",
+    "UniformGrid",
+)
+
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            setIncludes(simCoreClasses.map { "com/example/pocketpetv2/$it.java" })
+        }
+    }
+}
+
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+val jmhBaseline = layout.projectDirectory.file("baseline/jmh-baseline.json")
+
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    benchmarkMode.set(listOf("avgt"))
+    timeUnit.set("ns")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    resultsFile.set(jmhResults)
+}
+
+tasks.register<Copy>("updateJmhBaseline") {
+    description = "Replaces the checked-in JMH baseline with the latest results."
+    from(jmhResults)
+    into(jmhBaseline.asFile.parentFile)
+    rename { jmhBaseline.asFile.name }
+}
+
+tasks.register("compareJmhBaseline") {
+    description = "Prints score and allocation changes of the latest JMH run against the baseline."
+    val resultsFile = jmhResults.get().asFile
+    val baselineFile = jmhBaseline.asFile
+    inputs.files(resultsFile, baselineFile)
+    doLast {
+        fun load(file: File): Map<String, Map<*, *>> {
+            if (!file.isFile) return emptyMap()
+            @Suppress("UNCHECKED_CAST")
+            val runs = JsonSlurper().parse(file) as List<Map<*, *>>
+            return runs.associateBy { it["benchmark"] as String }
+        }
+
+        fun score(run: Map<*, *>?, metric: String?): Double? {
+            val node = if (metric == null) run?.get("primaryMetric")
+            else (run?.get("secondaryMetrics") as Map<*, *>?)?.get(metric)
+            return ((node as Map<*, *>?)?.get("score") as Number?)?.toDouble()
+        }
+
+        fun change(old: Double?, new: Double?): String = when {
+            old == null || new == null -> "n/a"
+            old == 0.0 -> if (new == 0.0) "0%" else "new"
+            else -> "%+.1f%%".format((new - old) / old * 100)
+        }
+
+        val current = load(resultsFile)
+        val baseline = load(baselineFile)
+        if (current.isEmpty()) throw GradleException("No results at $resultsFile; run :benchmark:jmh first")
+        if (baseline.isEmpty()) logger.lifecycle("Baseline is empty; run :benchmark:updateJmhBaseline to record one")
+
+        logger.lifecycle("%-60s %12s %9s %12s %9s".format("benchmark", "ns/op", "change", "B/op", "change"))
+        for ((name, run) in current.toSortedMap()) {
+            val old = baseline[name]
+            val time = score(run, null)
+            val alloc = score(run, "gc.alloc.rate.norm")
+            logger.lifecycle("%-60s %12.2f %9s %12.1f %9s".format(
+                name.removePrefix("com.example.pocketpetv2."),
+                time ?: Double.NaN, change(score(old, null), time),
+                alloc ?: Double.NaN, change(score(old, "gc.alloc.rate.norm"), alloc)))
+        }
+    }
+}
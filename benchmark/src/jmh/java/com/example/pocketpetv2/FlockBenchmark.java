@@ -0,0 +1,51 @@
+package com.example.pocketpetv2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of OverlayService's shared tick for several pets: one PetFlock step (integrate, grid build,
+ * collisions) plus the state update. Should grow about linearly with the pet count and allocate
+ * nothing.
+ */
+@State(Scope.Thread)
+public class FlockBenchmark {
+
+    private static final int SAMPLES = 1024;
+    private static final float PET_SIZE = 525f;
+
+    @Param({"1", "4", "16", "64"})
+    public int pets;
+
+    private PetFlock flock;
+    private final float[] tiltX = new float[SAMPLES];
+    private final float[] tiltY = new float[SAMPLES];
+    private int sample;
+
+    @Setup
+    public void setUp() {
+        flock = new PetFlock(pets, PET_SIZE);
+        flock.setBounds(0, 0, 1080 - PET_SIZE, 2400 - PET_SIZE);
+        for (int i = 0; i < pets; i++) {
+            flock.add((1080 - PET_SIZE) * i / pets, (2400 - PET_SIZE) * (i % 3) / 2);
+        }
+        // Same sweep as PhysicsBenchmark, so the pets keep piling into walls and each other.
+        for (int i = 0; i < SAMPLES; i++) {
+            double phase = 2 * Math.PI * i / SAMPLES;
+            tiltX[i] = (float) (9.81 * Math.sin(phase));
+            tiltY[i] = (float) (9.81 * Math.cos(3 * phase));
+        }
+    }
+
+    @Benchmark
+    public float tick() {
+        int i = sample++ & (SAMPLES - 1);
+        flock.setInput(tiltX[i], tiltY[i]);
+        flock.step();
+        flock.updateStates();
+        return flock.getX(0) + flock.getY(pets - 1);
+    }
+}
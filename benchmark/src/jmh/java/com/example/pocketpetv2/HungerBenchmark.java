@@ -0,0 +1,48 @@
+package com.example.pocketpetv2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Hunger as PetData computes it: getCurrentHunger on every hunger bar refresh, the starving-check
+ * delay on each persisted change, and a feed, which publishes a new snapshot.
+ */
+@State(Scope.Thread)
+public class HungerBenchmark {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private PetSnapshot pet;
+    private long nowMillis;
+
+    @Setup
+    public void setUp() {
+        pet = new PetSnapshot("Pet", "gator", new int[PetState.values().length], 0, 600, T0);
+        nowMillis = T0;
+    }
+
+    @Benchmark
+    public int currentHunger() {
+        // 7 s per call, so a run crosses minute boundaries and eventually reaches 0.
+        return pet.hungerAt(nowMillis += 7_000);
+    }
+
+    @Benchmark
+    public long millisUntilStarving() {
+        return HungerModel.millisUntil(pet.getStoredHunger(), pet.getHungerUpdatedMillis(),
+                HungerModel.STARVING_THRESHOLD, nowMillis += 7_000);
+    }
+
+    @Benchmark
+    public PetSnapshot feed() {
+        PetSnapshot fed = pet.fed(1, nowMillis += 7_000);
+        // Keep the pet from saturating at MAX_HUNGER so every feed does the full calculation.
+        if (fed.getStoredHunger() >= HungerModel.MAX_HUNGER) {
+            fed = fed.withHunger(HungerModel.MAX_HUNGER / 2, nowMillis);
+        }
+        pet = fed;
+        return fed;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.pocketpetv2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Physics cost per frame, as driven by MainActivity's update runnable and OverlayService's frame
+ * callback: record a sensor sample, then run however many fixed steps the clock hands out.
+ */
+@State(Scope.Thread)
+public class PhysicsBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final PetPhysics physics = new PetPhysics();
+    private final FixedStepClock clock = new FixedStepClock();
+    private final float[] tiltX = new float[SAMPLES];
+    private final float[] tiltY = new float[SAMPLES];
+    private int sample;
+    private long nowNanos;
+
+    @Setup
+    public void setUp() {
+        physics.setBounds(0, 0, 1080, 2400);
+        physics.setPosition(540, 1200);
+        // Sweep the tilt around so the pet keeps hitting walls, floor and ceiling.
+        for (int i = 0; i < SAMPLES; i++) {
+            double phase = 2 * Math.PI * i / SAMPLES;
+            tiltX[i] = (float) (9.81 * Math.sin(phase));
+            tiltY[i] = (float) (9.81 * Math.cos(3 * phase));
+        }
+    }
+
+    @Benchmark
+    public float step() {
+        int i = sample++ & (SAMPLES - 1);
+        physics.setInput(tiltX[i], tiltY[i]);
+        physics.step();
+        return physics.getX() + physics.getY();
+    }
+
+    /** One 60 Hz frame: advance the clock, then step. Usually exactly one step. */
+    @Benchmark
+    public float frame() {
+        int i = sample++ & (SAMPLES - 1);
+        physics.setInput(tiltX[i], tiltY[i]);
+        int steps = clock.advance(nowNanos += FixedStepClock.DEFAULT_STEP_NANOS);
+        for (int s = 0; s < steps; s++) {
+            physics.step();
+        }
+        return physics.getX() + physics.getY();
+    }
+}
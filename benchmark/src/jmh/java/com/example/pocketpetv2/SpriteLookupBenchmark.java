@@ -0,0 +1,49 @@
+package com.example.pocketpetv2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * What a state change costs once the atlas is loaded: SpriteCache.show reads the sprite version
+ * and moves the drawable's source rect to the state's cell, and the packer maps state to resource.
+ */
+@State(Scope.Thread)
+public class SpriteLookupBenchmark {
+
+    private static final PetState[] STATES = PetState.values();
+
+    private PetSnapshot pet;
+    private SpriteAtlasLayout layout;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int[] sprites = new int[STATES.length];
+        for (int i = 0; i < sprites.length; i++) {
+            sprites[i] = 0x7f080000 + i;
+        }
+        pet = new PetSnapshot("Pet", "gator", sprites, 1, 600, 0L);
+        layout = new SpriteAtlasLayout(525, 525, STATES.length);
+    }
+
+    private PetState nextState() {
+        int i = next++;
+        if (next == STATES.length) next = 0;
+        return STATES[i];
+    }
+
+    @Benchmark
+    public int spriteResource() {
+        return pet.getSpriteResource(nextState());
+    }
+
+    /** Version check plus the source rect, as in SpriteCache.show and AtlasDrawable.setRegion. */
+    @Benchmark
+    public int atlasRegion() {
+        int index = nextState().ordinal();
+        return pet.getSpriteVersion() + layout.getLeft(index) + layout.getTop(index)
+                + layout.getRight(index) + layout.getBottom(index);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.pocketpetv2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * State-transition evaluation, the per-frame PetStateMachine.update(physics) call in both hosts.
+ * Inputs are recorded from a simulated run so the table sees a realistic mix of flags.
+ */
+@State(Scope.Thread)
+public class StateMachineBenchmark {
+
+    private static final int FRAMES = 4096;
+
+    private final PetStateMachine stateMachine = new PetStateMachine();
+    private final PetPhysics[] physicsFrames = new PetPhysics[FRAMES];
+    private final int[] flagFrames = new int[FRAMES];
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        PetPhysics sim = new PetPhysics();
+        sim.setBounds(0, 0, 1080, 2400);
+        sim.setPosition(540, 1200);
+        for (int i = 0; i < FRAMES; i++) {
+            double phase = 2 * Math.PI * i / 512;
+            sim.step((float) (9.81 * Math.sin(phase)), (float) (9.81 * Math.cos(phase / 3)));
+
+            PetPhysics copy = new PetPhysics();
+            copy.setBounds(sim.getMinX(), sim.getMinY(), sim.getMaxX(), sim.getMaxY());
+            copy.setPosition(sim.getX(), sim.getY());
+            // Carry the velocity over: from rest, one acceleration of v / scale leaves exactly v
+            // (give or take rounding) without moving the pet, so the MOVING_* and MOSTLY_* flags
+            // show up as they did in the run.
+            copy.applyAcceleration(sim.getVelocityX() / PetPhysics.DEFAULT_ACCELERATION_SCALE,
+                    sim.getVelocityY() / PetPhysics.DEFAULT_ACCELERATION_SCALE);
+            copy.setInput(sim.getInputX(), sim.getInputY());
+            physicsFrames[i] = copy;
+            flagFrames[i] = PetStateMachine.flags(copy);
+        }
+    }
+
+    /** Flag extraction plus the table lookup, what the hosts call each frame. */
+    @Benchmark
+    public PetState update() {
+        return stateMachine.update(physicsFrames[frame++ & (FRAMES - 1)]);
+    }
+
+    /** The table lookup alone. */
+    @Benchmark
+    public PetState updateFromFlags() {
+        return stateMachine.update(flagFrames[frame++ & (FRAMES - 1)]);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.pocketpetv2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Offline replay cost: one minute of recorded input (60 Hz frames, 50 Hz sensor samples, the tilt
+ * sweeping around) fed through TraceReplayer, decoding included. Divide 60 s by the score for the
+ * speed-up over real time.
+ */
+@State(Scope.Thread)
+public class TraceReplayBenchmark {
+
+    private static final long T0 = 1_000_000_000L;
+    private static final long FRAME = 16_666_667L;
+    private static final long SAMPLE = 20_000_000L;
+    private static final long DURATION = 60_000_000_000L;
+
+    private byte[] trace;
+
+    @Setup
+    public void setUp() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputTraceWriter writer = new InputTraceWriter(bytes, T0)) {
+            writer.bounds(T0, 0, 0, 1080, 2400);
+            writer.position(T0, 540, 2400);
+            writer.tuning(T0, PetPhysics.DEFAULT_DAMPING, PetPhysics.DEFAULT_ACCELERATION_SCALE);
+            long nextFrame = T0;
+            long nextSample = T0;
+            while (nextFrame < T0 + DURATION) {
+                if (nextSample <= nextFrame) {
+                    double phase = 2 * Math.PI * (nextSample - T0) / 5e9;
+                    writer.sensor(nextSample, (float) (9.81 * Math.sin(phase)),
+                            (float) (9.81 * Math.cos(phase / 3)), 0.5f);
+                    nextSample += SAMPLE;
+                } else {
+                    writer.frame(nextFrame);
+                    nextFrame += FRAME;
+                }
+            }
+        }
+        trace = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public long replayOneMinute() throws IOException {
+        TraceReplayer replayer = new TraceReplayer();
+        replayer.replay(new InputTraceReader(new ByteArrayInputStream(trace)), null);
+        return replayer.getSteps();
+    }
+}
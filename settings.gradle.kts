@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "PocketPetV2"
 include(":app")
+include(":benchmark")